@@ -1,18 +1,59 @@
 package com.crypto.dashboard.config;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
-import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class AppConfig {
 
+    /**
+     * 上游（CoinGecko）連線池
+     * 連線會保持 keep-alive 重複使用，TLS 協商時優先使用 HTTP/2（ALPN），不支援時退回 HTTP/1.1
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(5000);  // 連線超時：5 秒
-        factory.setReadTimeout(10000);    // 讀取超時：10 秒
-        return new RestTemplate(factory);
+    public PoolingAsyncClientConnectionManager upstreamConnectionManager(
+            @Value("${upstream.http.max-total:20}") int maxTotal,
+            @Value("${upstream.http.max-per-route:10}") int maxPerRoute,
+            @Value("${upstream.http.connect-timeout-ms:5000}") long connectTimeoutMs,
+            @Value("${upstream.http.connection-ttl-ms:300000}") long connectionTtlMs) {
+        return PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)            // 連線池總上限
+                .setMaxConnPerRoute(maxPerRoute)      // 每個主機的上限
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))    // 連線超時
+                        .setTimeToLive(TimeValue.ofMilliseconds(connectionTtlMs))       // 連線最長存活時間
+                        .build())
+                .setDefaultTlsConfig(TlsConfig.custom()
+                        .setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpAsyncClient upstreamHttpAsyncClient(
+            PoolingAsyncClientConnectionManager upstreamConnectionManager,
+            @Value("${upstream.http.read-timeout-ms:10000}") long readTimeoutMs,
+            @Value("${upstream.http.pool-wait-timeout-ms:2000}") long poolWaitTimeoutMs) {
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(upstreamConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolWaitTimeoutMs))  // 等待連線池的時間
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))               // 讀取超時
+                        .build())
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .build();
+        client.start();
+        return client;
     }
 }
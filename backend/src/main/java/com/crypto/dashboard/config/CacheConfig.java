@@ -0,0 +1,31 @@
+package com.crypto.dashboard.config;
+
+import com.crypto.dashboard.service.CachedPayload;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    /**
+     * 幣種詳情快取改以位元組數限制大小（其餘快取沿用 spring.cache.caffeine.spec）
+     * 每筆大小差異很大（冷門幣種幾 KB、熱門幣種較大），以筆數限制無法控制記憶體用量
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> coinDetailCacheCustomizer(
+            @Value("${coingecko.detail-cache.max-bytes:33554432}") long maxBytes,
+            @Value("${coingecko.detail-cache.expire-ms:300000}") long expireMillis) {
+        return cacheManager -> cacheManager.registerCustomCache("coinDetail", Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Object key, Object value) -> value instanceof CachedPayload payload ? payload.weight() : 1)
+                .expireAfterWrite(Duration.ofMillis(expireMillis))
+                .recordStats()
+                .build());
+    }
+}
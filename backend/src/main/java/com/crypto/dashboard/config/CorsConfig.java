@@ -32,6 +32,7 @@ public class CorsConfig implements WebMvcConfigurer {
                 .allowedOrigins(origins)
                 .allowedMethods(methods)
                 .allowedHeaders("*".equals(allowedHeaders) ? new String[]{"*"} : allowedHeaders.split(","))
+                .exposedHeaders("ETag", "Age", "X-Data-Stale")  // 讓前端讀得到快取驗證與舊資料標記
                 .allowCredentials(allowCredentials)
                 .maxAge(3600);
     }
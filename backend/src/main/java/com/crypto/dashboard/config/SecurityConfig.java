@@ -1,9 +1,12 @@
 package com.crypto.dashboard.config;
 
 import com.crypto.dashboard.filter.JwtAuthenticationFilter;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -24,6 +27,10 @@ public class SecurityConfig {
     // 注入自定義的 JWT 過濾器（每個請求都會先經過這個過濾器檢查 Token）
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    // 監控端點的獨立埠（management.server.port，只綁定內部介面）；未設定時為 -1
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     /**
      * 安全過濾鏈配置（核心方法）
      * 作用：定義哪些路徑需要登入、哪些路徑公開、如何驗證身份
@@ -46,6 +53,14 @@ public class SecurityConfig {
                 .requestMatchers("/api/auth/**").permitAll()  // 註冊、登入 API
                 .requestMatchers("/api/coins/**").permitAll()  // 幣種查詢 API（CoinGecko Proxy）
                 .requestMatchers("/api/announcements").permitAll()  // 查看系統公告 API
+                .requestMatchers(HttpMethod.GET, "/api/compare").permitAll()  // 幣種比較（儲存的比較需要登入）
+
+                // ========== 監控 ==========
+                // 健康檢查公開；其餘端點（Prometheus 會暴露快取名稱、上游端點、錯誤率與 JVM 資訊）
+                // 只在內部管理埠上開放給 Prometheus 抓取，從公開的埠存取需要 ADMIN 角色
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers(this::isManagementPort).permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
 
                 // ========== Swagger API 文檔路徑（開發時方便測試）==========
                 .requestMatchers("/swagger-ui/**").permitAll()
@@ -66,6 +81,13 @@ public class SecurityConfig {
         return http.build();  // 建立並返回安全配置
     }
 
+    /**
+     * 請求是否由獨立的管理埠進入（管理埠的子容器共用同一條安全過濾鏈，以本機埠號區分）
+     */
+    private boolean isManagementPort(HttpServletRequest request) {
+        return managementPort > 0 && request.getLocalPort() == managementPort;
+    }
+
     /**
      * 密碼加密器（用於註冊和登入時的密碼加密/驗證）
      * BCrypt 是目前最安全的密碼加密演算法之一（自動加鹽、防彩虹表攻擊）
@@ -1,15 +1,28 @@
 package com.crypto.dashboard.controller;
 
+import com.crypto.dashboard.dto.response.AdminDailyStatsDTO;
 import com.crypto.dashboard.dto.response.AdminStatsResponse;
+import com.crypto.dashboard.dto.response.UserPageResponse;
 import com.crypto.dashboard.dto.response.UserSummaryDTO;
 import com.crypto.dashboard.service.AdminService;
+import com.crypto.dashboard.service.UserActivity;
+import com.crypto.dashboard.service.UserActivityRecorder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 
 @RestController @RequestMapping("/api/admin")
 public class AdminController {
@@ -17,6 +30,9 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private UserActivityRecorder activityRecorder;
+
     // 取得統計數據
     @GetMapping("/stats")
     public ResponseEntity<AdminStatsResponse> getStats() {
@@ -24,10 +40,69 @@ public class AdminController {
         return ResponseEntity.ok(stats);
     }
 
+    // 取得每日統計（最近 days 天，由舊到新）
+    @GetMapping("/stats/history")
+    public ResponseEntity<List<AdminDailyStatsDTO>> getStatsHistory(@RequestParam(defaultValue = "30") int days) {
+        List<AdminDailyStatsDTO> history = adminService.getStatsHistory(days);
+        return ResponseEntity.ok(history);
+    }
+
     // 取得所有用戶列表
     @GetMapping("/users")
     public ResponseEntity<List<UserSummaryDTO>> getAllUsers() {
         List<UserSummaryDTO> users = adminService.getAllUsers();
         return ResponseEntity.ok(users);
     }
+
+    // 分頁取得用戶列表（sort: joinDate | username；q: 用戶名或 Email 前綴；cursor: 上一頁的 nextCursor）
+    @GetMapping("/users/page")
+    public ResponseEntity<UserPageResponse> getUsersPage(
+            @RequestParam(defaultValue = "joinDate") String sort,
+            @RequestParam(defaultValue = "desc") String order,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        UserPageResponse page = adminService.getUsersPage(sort, order, q, cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
+    // 匯出用戶（format: csv | ndjson），邊查詢邊寫出
+    @GetMapping("/users/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String q,
+            Authentication authentication) {
+        String contentType = AdminService.exportContentType(format);  // 開始串流前先驗證參數
+        activityRecorder.record(authentication, UserActivity.Type.EXPORT_DATA, null,
+                q == null ? Map.of("format", format) : Map.of("format", format, "q", q));
+        String filename = "users-" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + "." + format;
+        StreamingResponseBody body = out -> adminService.exportUsers(format, q, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(contentType))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    // 最近一小時的用戶行為統計（各類型合計、每分鐘分布、熱門幣種）
+    @GetMapping("/analytics/activity")
+    public ResponseEntity<Map<String, Object>> getActivityAnalytics(@RequestParam(defaultValue = "10") int limit) {
+        Map<String, Object> analytics = adminService.getActivityAnalytics(limit);
+        return ResponseEntity.ok(analytics);
+    }
+
+    // 最近 hours 小時的每小時用戶行為統計
+    @GetMapping("/analytics/activity/history")
+    public ResponseEntity<Map<String, Object>> getActivityHistory(
+            @RequestParam(defaultValue = "24") int hours,
+            @RequestParam(defaultValue = "10") int limit) {
+        Map<String, Object> history = adminService.getActivityHistory(hours, limit);
+        return ResponseEntity.ok(history);
+    }
+
+    // 取得上游 API 呼叫統計
+    @GetMapping("/upstream")
+    public ResponseEntity<Map<String, Object>> getUpstreamStats() {
+        Map<String, Object> stats = adminService.getUpstreamStats();
+        return ResponseEntity.ok(stats);
+    }
 }
@@ -5,9 +5,12 @@ import com.crypto.dashboard.dto.request.RegisterRequest;
 import com.crypto.dashboard.dto.response.ApiResponse;
 import com.crypto.dashboard.dto.response.AuthResponse;
 import com.crypto.dashboard.service.AuthService;
+import com.crypto.dashboard.service.UserActivity;
+import com.crypto.dashboard.service.UserActivityRecorder;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -16,6 +19,7 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
+    private final UserActivityRecorder activityRecorder;
 
     @PostMapping("/register")
     public ResponseEntity<ApiResponse<AuthResponse>> register(@Valid @RequestBody RegisterRequest request) {
@@ -26,13 +30,16 @@ public class AuthController {
     @PostMapping("/login")
     public ResponseEntity<ApiResponse<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
         AuthResponse response = authService.login(request);
+        activityRecorder.record(response.getUser().getId(), UserActivity.Type.LOGIN, null, null);
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<ApiResponse<Void>> logout(@RequestHeader("Authorization") String tokenHeader) {
+    public ResponseEntity<ApiResponse<Void>> logout(@RequestHeader("Authorization") String tokenHeader,
+                                                    Authentication authentication) {
         String token = tokenHeader.replace("Bearer ", "");
         authService.logout(token);
+        activityRecorder.record(authentication, UserActivity.Type.LOGOUT, null, null);
         return ResponseEntity.ok(ApiResponse.success(null));
     }
 }
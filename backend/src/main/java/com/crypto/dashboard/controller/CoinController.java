@@ -1,35 +1,266 @@
 package com.crypto.dashboard.controller;
 
+import com.crypto.dashboard.exception.ServiceNotReadyException;
+import com.crypto.dashboard.service.ActivityRollup;
+import com.crypto.dashboard.service.CachedPayload;
+import com.crypto.dashboard.service.CandleService;
+import com.crypto.dashboard.service.CoinCatalogService;
 import com.crypto.dashboard.service.CoinService;
+import com.crypto.dashboard.service.FavoriteLeaderboard;
+import com.crypto.dashboard.service.FxRateService;
+import com.crypto.dashboard.service.MarketChangeLog;
+import com.crypto.dashboard.service.MarketChartService;
+import com.crypto.dashboard.service.MarketStreamService;
+import com.crypto.dashboard.service.UserActivity;
+import com.crypto.dashboard.service.UserActivityRecorder;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/coins")
 @RequiredArgsConstructor
 public class CoinController {
 
+    /**
+     * 上游無法使用、改回傳最後一次成功取得的資料時附加的標頭
+     */
+    private static final String STALE_HEADER = "X-Data-Stale";
+
     private final CoinService coinService;
+    private final MarketChartService marketChartService;
+    private final CandleService candleService;
+    private final MarketStreamService marketStreamService;
+    private final MarketChangeLog marketChangeLog;
+    private final CoinCatalogService coinCatalogService;
+    private final FxRateService fxRateService;
+    private final FavoriteLeaderboard favoriteLeaderboard;
+    private final UserActivityRecorder activityRecorder;
+    private final ActivityRollup activityRollup;
 
     @GetMapping
-    public ResponseEntity<String> getCoins(
+    public ResponseEntity<byte[]> getCoins(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "50") int perPage,
-            @RequestParam(defaultValue = "market_cap_desc") String orderBy) {
-        String result = coinService.getCoinsList(page, perPage, orderBy);
-        return ResponseEntity.ok(result);
+            @RequestParam(defaultValue = "market_cap_desc") String orderBy,
+            @RequestParam(required = false) String currency,
+            WebRequest request) {
+        CachedPayload result = coinService.getCoinsList(page, perPage, orderBy);
+        return respond(result, currency, request);
     }
 
     @GetMapping("/global")
-    public ResponseEntity<String> getGlobalData() {
-        String result = coinService.getGlobalData();
-        return ResponseEntity.ok(result);
+    public ResponseEntity<byte[]> getGlobalData(WebRequest request) {
+        CachedPayload result = coinService.getGlobalData();
+        return respond(result, request);
+    }
+
+    /**
+     * 支援的貨幣與匯率（其他 API 以 currency 參數指定，伺服器端由美元報價換算）
+     */
+    @GetMapping("/currencies")
+    public ResponseEntity<byte[]> getCurrencies(WebRequest request) {
+        return respond(fxRateService.getCurrencies(), request);
+    }
+
+    /**
+     * 最多人收藏的幣種（記憶體中的收藏排行，不查詢資料庫）
+     */
+    @GetMapping("/most-watched")
+    public ResponseEntity<byte[]> getMostWatched(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String currency,
+            WebRequest request) {
+        CachedPayload result = favoriteLeaderboard.getMostWatched(limit);
+        return respond(result, currency, request);
+    }
+
+    /**
+     * 站內熱門：最近一小時本站用戶最常瀏覽的幣種（由記憶體中的彙總回答）
+     */
+    @GetMapping("/trending/internal")
+    public ResponseEntity<byte[]> getInternalTrending(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String currency,
+            WebRequest request) {
+        CachedPayload result = activityRollup.getTrending(limit);
+        return respond(result, currency, request);
+    }
+
+    /**
+     * 搜尋 / 自動完成（本地目錄索引，不呼叫 CoinGecko）
+     */
+    @GetMapping("/search")
+    public ResponseEntity<byte[]> searchCoins(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String currency,
+            WebRequest request) {
+        CachedPayload result = coinCatalogService.search(q, limit);
+        return respond(result, currency, request);
+    }
+
+    /**
+     * 市場列表增量更新：只回傳 since 版本之後數值有變動的列（落後太多時回傳完整快照，full = true）
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<byte[]> getCoinChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(required = false) String currency,
+            WebRequest request) {
+        CachedPayload result = marketChangeLog.getChanges(since);
+        if (result == null) {
+            throw new ServiceNotReadyException("Market snapshot is not available yet");
+        }
+        return respond(result, currency, request);
+    }
+
+    /**
+     * 即時價格推播（SSE）：先送 snapshot 事件，之後每次市場更新只送有變動的欄位（delta 事件）
+     * top=N 訂閱市值前 N 名，ids=a,b,c 訂閱指定幣種（擇一）
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPrices(
+            @RequestParam(required = false) Integer top,
+            @RequestParam(required = false) String ids) {
+        return marketStreamService.subscribe(top, ids);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<String> getCoinDetail(@PathVariable String id) {
-        String result = coinService.getCoinDetail(id);
-        return ResponseEntity.ok(result);
+    public ResponseEntity<byte[]> getCoinDetail(
+            @PathVariable String id,
+            @RequestParam(required = false) String currency,
+            Authentication authentication,
+            WebRequest request) {
+        CachedPayload result = coinService.getCoinDetail(id);
+        activityRecorder.record(authentication, UserActivity.Type.VIEW_COIN, id, null);
+        return respond(result, currency, request);
+    }
+
+    /**
+     * 價格走勢（已降採樣到 width 個點以內）
+     */
+    @GetMapping("/{id}/chart")
+    public ResponseEntity<byte[]> getCoinChart(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "30") int days,
+            @RequestParam(defaultValue = "500") int width,
+            @RequestParam(required = false) String currency,
+            WebRequest request) {
+        CachedPayload result = marketChartService.getChart(id, days, width);
+        return respond(result, currency, request);
+    }
+
+    /**
+     * K 線（由市場快照彙總，不呼叫 CoinGecko）
+     * 格式：[[openTime, open, high, low, close, volume24h], ...]，依時間由舊到新
+     */
+    @GetMapping("/{id}/candles")
+    public ResponseEntity<byte[]> getCoinCandles(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "1h") String interval,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        CachedPayload result = candleService.getCandles(id, interval, from, to, limit);
+        return respond(result, request);
+    }
+
+    /**
+     * 寫出預先編碼的內容
+     * - If-None-Match 與 ETag 相同 → 304（不帶 body，備援舊資料同樣附加 X-Data-Stale 與 Age）
+     * - 用戶端接受 gzip → 直接寫出已壓縮好的位元組（ETag 加上 -gz）
+     * - 備援舊資料 → 加上 X-Data-Stale: true 與 Age（資料已經多少秒）
+     */
+    private ResponseEntity<byte[]> respond(CachedPayload payload, WebRequest request) {
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (notModified(request, payload.getEtag(), gzip)) {
+            return notModifiedResponse(payload);  // Spring 已設定 304 與 ETag
+        }
+        return headers(payload, variantEtag(payload.getEtag(), gzip), gzip)
+                .body(gzip ? payload.getGzip() : payload.getIdentity());
+    }
+
+    /**
+     * 寫出換算成指定貨幣的內容（currency 為空或 usd 時與 respond(payload, request) 相同）
+     * 快取中只有美元版本，換算在每次輸出時進行；304 判斷在換算之前
+     */
+    private ResponseEntity<byte[]> respond(CachedPayload payload, String currency, WebRequest request) {
+        FxRateService.Rate rate = fxRateService.rateFor(currency);
+        if (rate == null) {
+            return respond(payload, request);
+        }
+        String etag = rate.etag(payload.getEtag());
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (notModified(request, etag, gzip)) {
+            return notModifiedResponse(payload);
+        }
+        return headers(payload, variantEtag(etag, gzip), gzip).body(fxRateService.convert(payload, rate, gzip));
+    }
+
+    /**
+     * If-None-Match 與原文或 gzip 任一版本的 ETag 相同就回 304（兩者內容相同，只是編碼不同），
+     * 304 帶回用戶端手上那個版本的 ETag；都不相同時以本次要回應的版本判斷
+     * @param etag 原文的 ETag
+     */
+    private static boolean notModified(WebRequest request, String etag, boolean gzip) {
+        String current = variantEtag(etag, gzip);
+        String other = variantEtag(etag, !gzip);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        boolean otherMatches = ifNoneMatch != null && ifNoneMatch.contains(other);  // ETag 含雙引號，不會誤判前綴
+        return request.checkNotModified(otherMatches ? other : current);
+    }
+
+    private static String variantEtag(String etag, boolean gzip) {
+        return gzip ? CachedPayload.gzipEtag(etag) : etag;
+    }
+
+    private static ResponseEntity.BodyBuilder headers(CachedPayload payload, String etag, boolean gzip) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())  // 用戶端可以保存，但每次都要用 ETag 重新驗證
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return staleHeaders(builder, payload);
+    }
+
+    private static ResponseEntity<byte[]> notModifiedResponse(CachedPayload payload) {
+        return staleHeaders(ResponseEntity.status(HttpStatus.NOT_MODIFIED), payload).build();
+    }
+
+    /**
+     * 備援舊資料：304 也要帶，否則用戶端重新驗證後不知道手上的資料其實已經過時
+     */
+    private static <B extends ResponseEntity.HeadersBuilder<B>> B staleHeaders(B builder, CachedPayload payload) {
+        if (payload.isStale()) {
+            long ageSeconds = Math.max(0, (System.currentTimeMillis() - payload.getCreatedAt()) / 1000);
+            builder.header(STALE_HEADER, "true")
+                    .header(HttpHeaders.AGE, String.valueOf(ageSeconds));
+        }
+        return builder;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].trim().replace(" ", "").equals("q=0");
+            }
+        }
+        return false;
     }
 }
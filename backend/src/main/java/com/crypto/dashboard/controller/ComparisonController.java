@@ -0,0 +1,75 @@
+package com.crypto.dashboard.controller;
+
+import com.crypto.dashboard.dto.request.ComparisonRequest;
+import com.crypto.dashboard.dto.response.ApiResponse;
+import com.crypto.dashboard.dto.response.ComparisonResponse;
+import com.crypto.dashboard.entity.CoinComparison;
+import com.crypto.dashboard.service.ComparisonService;
+import com.crypto.dashboard.service.UserActivity;
+import com.crypto.dashboard.service.UserActivityRecorder;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/compare")
+@RequiredArgsConstructor
+public class ComparisonController {
+
+    private final ComparisonService comparisonService;
+    private final UserActivityRecorder activityRecorder;
+
+    // 比較多個幣種（ids 以逗號分隔，公開）
+    @GetMapping
+    public ResponseEntity<ApiResponse<ComparisonResponse>> compare(
+            @RequestParam List<String> ids,
+            @RequestParam(defaultValue = "30") int days,
+            @RequestParam(defaultValue = "500") int width,
+            Authentication authentication) {
+        ComparisonResponse result = comparisonService.compare(ids, days, width);
+        activityRecorder.record(authentication, UserActivity.Type.COMPARE_COINS, null, Map.of("coins", ids, "days", days));
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
+    // 取得自己儲存的比較
+    @GetMapping("/saved")
+    public ResponseEntity<ApiResponse<List<CoinComparison>>> getSavedComparisons(Authentication authentication) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(ApiResponse.success(comparisonService.getSavedComparisons(userId)));
+    }
+
+    // 儲存比較
+    @PostMapping("/saved")
+    public ResponseEntity<ApiResponse<CoinComparison>> saveComparison(
+            Authentication authentication,
+            @Valid @RequestBody ComparisonRequest request) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(ApiResponse.success(comparisonService.saveComparison(userId, request)));
+    }
+
+    // 取得已儲存比較的結果
+    @GetMapping("/saved/{id}")
+    public ResponseEntity<ApiResponse<ComparisonResponse>> compareSaved(
+            Authentication authentication,
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "30") int days,
+            @RequestParam(defaultValue = "500") int width) {
+        Long userId = (Long) authentication.getPrincipal();
+        ComparisonResponse result = comparisonService.compareSaved(userId, id, days, width);
+        activityRecorder.record(userId, UserActivity.Type.COMPARE_COINS, null, Map.of("comparisonId", id, "days", days));
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
+    // 刪除已儲存的比較
+    @DeleteMapping("/saved/{id}")
+    public ResponseEntity<ApiResponse<Void>> deleteComparison(Authentication authentication, @PathVariable Long id) {
+        Long userId = (Long) authentication.getPrincipal();
+        comparisonService.deleteComparison(userId, id);
+        return ResponseEntity.ok(ApiResponse.success(null));
+    }
+}
@@ -3,9 +3,11 @@ package com.crypto.dashboard.controller;
 import com.crypto.dashboard.dto.response.ApiResponse;
 import com.crypto.dashboard.entity.CoinFavorite;
 import com.crypto.dashboard.service.FavoriteService;
-import com.crypto.dashboard.util.JwtUtil;
+import com.crypto.dashboard.service.UserActivity;
+import com.crypto.dashboard.service.UserActivityRecorder;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -16,31 +18,30 @@ import java.util.List;
 public class FavoriteController {
 
     private final FavoriteService favoriteService;
-    private final JwtUtil jwtUtil;
+    private final UserActivityRecorder activityRecorder;
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<CoinFavorite>>> getFavorites(
-            @RequestHeader("Authorization") String tokenHeader) {
-        Long userId = jwtUtil.getUserIdFromToken(tokenHeader.replace("Bearer ", ""));
+    public ResponseEntity<ApiResponse<List<CoinFavorite>>> getFavorites(@AuthenticationPrincipal Long userId) {
         List<CoinFavorite> favorites = favoriteService.getUserFavorites(userId);
         return ResponseEntity.ok(ApiResponse.success(favorites));
     }
 
     @PostMapping
     public ResponseEntity<ApiResponse<CoinFavorite>> addFavorite(
-            @RequestHeader("Authorization") String tokenHeader,
+            @AuthenticationPrincipal Long userId,
             @RequestParam String coinId) {
-        Long userId = jwtUtil.getUserIdFromToken(tokenHeader.replace("Bearer ", ""));
         CoinFavorite favorite = favoriteService.addFavorite(userId, coinId);
+        activityRecorder.record(userId, UserActivity.Type.ADD_FAVORITE, coinId, null);
         return ResponseEntity.ok(ApiResponse.success(favorite));
     }
 
     @DeleteMapping("/{coinId}")
     public ResponseEntity<ApiResponse<Void>> removeFavorite(
-            @RequestHeader("Authorization") String tokenHeader,
+            @AuthenticationPrincipal Long userId,
             @PathVariable String coinId) {
-        Long userId = jwtUtil.getUserIdFromToken(tokenHeader.replace("Bearer ", ""));
-        favoriteService.removeFavorite(userId, coinId);
+        if (favoriteService.removeFavorite(userId, coinId)) {
+            activityRecorder.record(userId, UserActivity.Type.REMOVE_FAVORITE, coinId, null);
+        }
         return ResponseEntity.ok(ApiResponse.success(null));
     }
 }
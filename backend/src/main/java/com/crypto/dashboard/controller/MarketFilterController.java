@@ -0,0 +1,80 @@
+package com.crypto.dashboard.controller;
+
+import com.crypto.dashboard.dto.request.MarketFilterRequest;
+import com.crypto.dashboard.dto.response.ApiResponse;
+import com.crypto.dashboard.dto.response.MarketFilterResponse;
+import com.crypto.dashboard.entity.MarketFilterPreset;
+import com.crypto.dashboard.service.MarketFilterService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/market-filters")
+@RequiredArgsConstructor
+public class MarketFilterController {
+
+    private final MarketFilterService marketFilterService;
+
+    // 取得自己的篩選預設
+    @GetMapping("/presets")
+    public ResponseEntity<ApiResponse<List<MarketFilterPreset>>> getPresets(Authentication authentication) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(ApiResponse.success(marketFilterService.getPresets(userId)));
+    }
+
+    // 新增篩選預設
+    @PostMapping("/presets")
+    public ResponseEntity<ApiResponse<MarketFilterPreset>> createPreset(
+            Authentication authentication,
+            @Valid @RequestBody MarketFilterRequest request) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(ApiResponse.success(marketFilterService.createPreset(userId, request)));
+    }
+
+    // 更新篩選預設
+    @PutMapping("/presets/{id}")
+    public ResponseEntity<ApiResponse<MarketFilterPreset>> updatePreset(
+            Authentication authentication,
+            @PathVariable Long id,
+            @Valid @RequestBody MarketFilterRequest request) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(ApiResponse.success(marketFilterService.updatePreset(userId, id, request)));
+    }
+
+    // 刪除篩選預設
+    @DeleteMapping("/presets/{id}")
+    public ResponseEntity<ApiResponse<Void>> deletePreset(Authentication authentication, @PathVariable Long id) {
+        Long userId = (Long) authentication.getPrincipal();
+        marketFilterService.deletePreset(userId, id);
+        return ResponseEntity.ok(ApiResponse.success(null));
+    }
+
+    // 以已儲存的預設篩選市場
+    @GetMapping("/presets/{id}/results")
+    public ResponseEntity<ApiResponse<MarketFilterResponse>> evaluatePreset(
+            Authentication authentication,
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "50") int perPage,
+            @RequestParam(defaultValue = "market_cap_desc") String orderBy) {
+        Long userId = (Long) authentication.getPrincipal();
+        MarketFilterResponse result = marketFilterService.evaluatePreset(userId, id, page, perPage, orderBy);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
+    // 以臨時條件篩選市場（不儲存）
+    @PostMapping("/evaluate")
+    public ResponseEntity<ApiResponse<MarketFilterResponse>> evaluate(
+            @Valid @RequestBody MarketFilterRequest request,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "50") int perPage,
+            @RequestParam(defaultValue = "market_cap_desc") String orderBy) {
+        MarketFilterResponse result = marketFilterService.evaluateAdHoc(request, page, perPage, orderBy);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+}
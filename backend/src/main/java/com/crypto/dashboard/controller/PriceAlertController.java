@@ -0,0 +1,55 @@
+package com.crypto.dashboard.controller;
+
+import com.crypto.dashboard.dto.request.PriceAlertRequest;
+import com.crypto.dashboard.dto.response.ApiResponse;
+import com.crypto.dashboard.entity.CoinPriceAlert;
+import com.crypto.dashboard.service.PriceAlertService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/alerts")
+@RequiredArgsConstructor
+public class PriceAlertController {
+
+    private final PriceAlertService priceAlertService;
+
+    // 取得自己的價格提醒
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<CoinPriceAlert>>> getAlerts(Authentication authentication) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(ApiResponse.success(priceAlertService.getAlerts(userId)));
+    }
+
+    // 新增價格提醒
+    @PostMapping
+    public ResponseEntity<ApiResponse<CoinPriceAlert>> createAlert(
+            Authentication authentication,
+            @Valid @RequestBody PriceAlertRequest request) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(ApiResponse.success(priceAlertService.createAlert(userId, request)));
+    }
+
+    // 更新價格提醒（會重新開始評估）
+    @PutMapping("/{id}")
+    public ResponseEntity<ApiResponse<CoinPriceAlert>> updateAlert(
+            Authentication authentication,
+            @PathVariable Long id,
+            @Valid @RequestBody PriceAlertRequest request) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(ApiResponse.success(priceAlertService.updateAlert(userId, id, request)));
+    }
+
+    // 刪除價格提醒
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<Void>> deleteAlert(Authentication authentication, @PathVariable Long id) {
+        Long userId = (Long) authentication.getPrincipal();
+        priceAlertService.deleteAlert(userId, id);
+        return ResponseEntity.ok(ApiResponse.success(null));
+    }
+}
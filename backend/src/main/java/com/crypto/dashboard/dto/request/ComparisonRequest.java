@@ -0,0 +1,19 @@
+package com.crypto.dashboard.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 儲存幣種比較
+ */
+@Data
+public class ComparisonRequest {
+    @Size(max = 100, message = "Comparison name must be at most 100 characters")
+    private String comparisonName;
+
+    @NotEmpty(message = "Coin ids are required")
+    private List<String> coinIds;
+}
@@ -0,0 +1,27 @@
+package com.crypto.dashboard.dto.request;
+
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 市場篩選條件（儲存預設或臨時篩選共用）
+ * 所有上下限皆為選填，null 代表不限制
+ */
+@Data
+public class MarketFilterRequest {
+    @Size(max = 100, message = "Preset name must be at most 100 characters")
+    private String presetName;  // 儲存預設時必填
+
+    private BigDecimal priceMin;
+    private BigDecimal priceMax;
+    private Long marketCapMin;
+    private Long marketCapMax;
+    private Long volume24hMin;
+    private BigDecimal priceChange24hMin;
+    private BigDecimal priceChange24hMax;
+    private List<String> categories;
+    private Boolean isDefault;
+}
@@ -0,0 +1,29 @@
+package com.crypto.dashboard.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 價格提醒（新增或更新共用）
+ */
+@Data
+public class PriceAlertRequest {
+    @NotBlank(message = "Coin id is required")
+    @Size(max = 64, message = "Coin id must be at most 64 characters")
+    private String coinId;
+
+    @NotBlank(message = "Alert type is required")
+    private String alertType;  // above / below
+
+    @NotNull(message = "Target price is required")
+    @Positive(message = "Target price must be positive")
+    private BigDecimal targetPrice;
+
+    private String currency;   // 目前只支援 usd
+    private Boolean isActive;
+}
@@ -0,0 +1,16 @@
+package com.crypto.dashboard.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter @Setter @AllArgsConstructor
+public class ActivityHourlyDTO {
+    private LocalDateTime hourStart;
+    private String activityType;   // login、view_coin 等（與 user_activities 相同）
+    private String coinId;         // null 表示該類型所有幣種的合計
+    private Long count;
+    private Boolean approximate;   // 長尾幣種的數字為估計值（只會高估）
+}
@@ -0,0 +1,16 @@
+package com.crypto.dashboard.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter @Setter @AllArgsConstructor
+public class AdminDailyStatsDTO {
+    private LocalDate date;
+    private Long signups;          // 當天註冊人數
+    private Long activeUsers;      // 當天登入過的不重複用戶數
+    private Long totalUsers;       // 當天結束時（今天為目前）的總用戶數
+    private Long totalFavorites;   // 當天結束時（今天為目前）的總收藏數
+}
@@ -0,0 +1,27 @@
+package com.crypto.dashboard.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * 幣種比較結果
+ * - timestamps / prices：對齊後的價格（已依 width 抽樣，prices[i] 對應 coins[i]）
+ * - normalized：相對於區間第一個點的漲跌幅（%）
+ * - 波動度為對數報酬標準差的年化值（%）；無法計算的數值為 null
+ */
+@Getter @Setter @AllArgsConstructor
+public class ComparisonResponse {
+    private List<String> coins;
+    private Integer days;
+    private Long intervalMillis;
+    private Integer returnCount;     // 計算統計值使用的報酬筆數
+    private long[] timestamps;
+    private double[][] prices;
+    private double[][] normalized;
+    private Double[] totalReturn;
+    private Double[] volatility;
+    private Double[][] correlation;
+}
@@ -0,0 +1,20 @@
+package com.crypto.dashboard.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 市場篩選結果
+ * coins 為 CoinGecko /coins/markets 格式的 JSON 陣列（直接由市場快照複製，不重新序列化）
+ */
+@Getter @Setter @AllArgsConstructor
+public class MarketFilterResponse {
+    private Long snapshotVersion;
+    private Integer total;     // 符合條件的總筆數
+    private Integer page;
+    private Integer perPage;
+    @JsonRawValue
+    private String coins;
+}
@@ -0,0 +1,13 @@
+package com.crypto.dashboard.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter @Setter @AllArgsConstructor
+public class UserPageResponse {
+    private List<UserSummaryDTO> items;
+    private String nextCursor;  // 下一頁的游標（沒有下一頁為 null）
+}
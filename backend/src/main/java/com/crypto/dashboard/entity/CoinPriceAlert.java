@@ -0,0 +1,77 @@
+package com.crypto.dashboard.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 價格提醒實體類別
+ * 對應資料表：coin_price_alerts
+ */
+@Entity
+@Table(name = "coin_price_alerts")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class CoinPriceAlert {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "coin_id", nullable = false, length = 64)
+    private String coinId;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.ENUM)
+    @Column(name = "alert_type", nullable = false)
+    private AlertType alertType;
+
+    @Column(name = "target_price", nullable = false, precision = 20, scale = 8)
+    private BigDecimal targetPrice;
+
+    @Column(nullable = false, length = 10)
+    private String currency = "usd";
+
+    @Column(name = "is_triggered", nullable = false)
+    private Boolean isTriggered = false;
+
+    @Column(name = "triggered_at")
+    private LocalDateTime triggeredAt;
+
+    @Column(name = "is_active", nullable = false)
+    private Boolean isActive = true;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    /**
+     * 提醒方向：價格漲到目標以上 / 跌到目標以下
+     */
+    public enum AlertType {
+        above, below
+    }
+}
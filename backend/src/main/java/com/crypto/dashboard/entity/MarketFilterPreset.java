@@ -0,0 +1,79 @@
+package com.crypto.dashboard.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 市場篩選預設實體類別
+ * 對應資料表：market_filter_presets
+ */
+@Entity
+@Table(name = "market_filter_presets")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class MarketFilterPreset {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "preset_name", nullable = false, length = 100)
+    private String presetName;
+
+    @Column(name = "price_min", precision = 20, scale = 8)
+    private BigDecimal priceMin;
+
+    @Column(name = "price_max", precision = 20, scale = 8)
+    private BigDecimal priceMax;
+
+    @Column(name = "market_cap_min")
+    private Long marketCapMin;
+
+    @Column(name = "market_cap_max")
+    private Long marketCapMax;
+
+    @Column(name = "volume_24h_min")
+    private Long volume24hMin;
+
+    @Column(name = "price_change_24h_min", precision = 8, scale = 2)
+    private BigDecimal priceChange24hMin;
+
+    @Column(name = "price_change_24h_max", precision = 8, scale = 2)
+    private BigDecimal priceChange24hMax;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "categories")
+    private List<String> categories;
+
+    @Column(name = "is_default", nullable = false)
+    private Boolean isDefault = false;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
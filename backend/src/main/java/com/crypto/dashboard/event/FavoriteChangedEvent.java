@@ -0,0 +1,11 @@
+package com.crypto.dashboard.event;
+
+/**
+ * 收藏異動事件（新增、移除）
+ * 交易提交後才套用到記憶體中的收藏排行，回滾的異動不會影響計數
+ *
+ * @param coinId 幣種 id
+ * @param delta  收藏數變化（新增 +1，移除為負的刪除筆數）
+ */
+public record FavoriteChangedEvent(String coinId, long delta) {
+}
@@ -0,0 +1,10 @@
+package com.crypto.dashboard.event;
+
+import com.crypto.dashboard.service.MarketSnapshot;
+
+/**
+ * 市場快照更新事件（MarketSnapshotService 每次成功建立新快照後發佈）
+ * 監聽者在快照排程的執行緒上同步執行，處理時間會延後下一次刷新，需保持輕量
+ */
+public record MarketSnapshotUpdatedEvent(MarketSnapshot snapshot) {
+}
@@ -0,0 +1,27 @@
+package com.crypto.dashboard.event;
+
+import com.crypto.dashboard.entity.CoinPriceAlert;
+
+import java.math.BigDecimal;
+
+/**
+ * 價格提醒異動事件（新增、更新、刪除）
+ * 交易提交後才套用到記憶體中的提醒索引，回滾的異動不會影響索引
+ *
+ * @param previous 異動前的狀態（新增時為 null）
+ * @param current  異動後的狀態（刪除時為 null）
+ */
+public record PriceAlertChangedEvent(Snapshot previous, Snapshot current) {
+
+    /**
+     * 建索引需要的欄位（不持有 JPA 實體，避免交易結束後延遲載入）
+     */
+    public record Snapshot(Long id, String coinId, CoinPriceAlert.AlertType alertType,
+                           BigDecimal targetPrice, boolean pending) {
+
+        public static Snapshot of(CoinPriceAlert alert) {
+            return new Snapshot(alert.getId(), alert.getCoinId(), alert.getAlertType(), alert.getTargetPrice(),
+                    Boolean.TRUE.equals(alert.getIsActive()) && !Boolean.TRUE.equals(alert.getIsTriggered()));
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.crypto.dashboard.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用戶登入事件（交易提交後才更新統計）
+ *
+ * @param previousLoginAt 這次登入之前的最後登入時間（從未登入為 null）
+ * @param loginAt         這次登入時間
+ */
+public record UserLoggedInEvent(Long userId, LocalDateTime previousLoginAt, LocalDateTime loginAt) {
+}
@@ -0,0 +1,10 @@
+package com.crypto.dashboard.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用戶註冊事件（交易提交後才更新統計，回滾的註冊不會計入）
+ * 註冊等於自動登入，joinedAt 同時也是第一次登入時間
+ */
+public record UserRegisteredEvent(Long userId, LocalDateTime joinedAt) {
+}
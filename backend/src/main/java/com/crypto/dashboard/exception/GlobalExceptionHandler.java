@@ -1,6 +1,8 @@
 package com.crypto.dashboard.exception;
 
 import com.crypto.dashboard.dto.response.ApiResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -17,6 +19,24 @@ public class GlobalExceptionHandler {
 
     private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    // 上游失敗且沒有舊資料可用、最後回應錯誤給前端的次數（依原因分類）
+    private final Counter quotaExceeded;
+    private final Counter circuitOpen;
+    private final Counter upstreamError;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.quotaExceeded = upstreamFailures(meterRegistry, "quota_exceeded");
+        this.circuitOpen = upstreamFailures(meterRegistry, "circuit_open");
+        this.upstreamError = upstreamFailures(meterRegistry, "error");
+    }
+
+    private static Counter upstreamFailures(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("api.upstream.failures")
+                .description("Requests answered with an error because upstream data was unavailable")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
     /**
      * 處理登入憑證錯誤
      */
@@ -47,6 +67,50 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error(e.getMessage()));
     }
 
+    /**
+     * 處理服務暫時無法處理請求（啟動中、容量已滿），不計入上游失敗
+     */
+    @ExceptionHandler(ServiceNotReadyException.class)
+    public ResponseEntity<ApiResponse<Void>> handleServiceNotReady(ServiceNotReadyException e) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponse.error(e.getMessage()));
+    }
+
+    /**
+     * 處理上游呼叫額度用盡（且沒有可用的舊資料）
+     */
+    @ExceptionHandler(UpstreamQuotaExceededException.class)
+    public ResponseEntity<ApiResponse<Void>> handleUpstreamQuotaExceeded(UpstreamQuotaExceededException e) {
+        quotaExceeded.increment();
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponse.error("Market data is temporarily unavailable, please retry later"));
+    }
+
+    /**
+     * 處理上游斷路器開啟（且沒有可用的舊資料）
+     */
+    @ExceptionHandler(UpstreamUnavailableException.class)
+    public ResponseEntity<ApiResponse<Void>> handleUpstreamUnavailable(UpstreamUnavailableException e) {
+        circuitOpen.increment();
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponse.error("Market data is temporarily unavailable, please retry later"));
+    }
+
+    /**
+     * 處理其他上游錯誤（超時、5xx 等，且沒有可用的舊資料）
+     */
+    @ExceptionHandler(ExternalApiException.class)
+    public ResponseEntity<ApiResponse<Void>> handleExternalApi(ExternalApiException e) {
+        upstreamError.increment();
+        log.warn("Upstream call failed: {}", e.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.BAD_GATEWAY)
+                .body(ApiResponse.error("Failed to fetch market data, please retry later"));
+    }
+
     /**
      * 處理 Spring Validation 錯誤
      */
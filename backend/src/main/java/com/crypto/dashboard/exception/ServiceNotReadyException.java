@@ -0,0 +1,10 @@
+package com.crypto.dashboard.exception;
+
+/**
+ * 服務暫時無法處理請求例外（資料尚未載入完成、連線數已滿等），與上游失敗無關
+ */
+public class ServiceNotReadyException extends CryptoDashboardException {
+    public ServiceNotReadyException(String message) {
+        super(message);
+    }
+}
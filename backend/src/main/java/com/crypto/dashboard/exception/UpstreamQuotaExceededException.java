@@ -0,0 +1,10 @@
+package com.crypto.dashboard.exception;
+
+/**
+ * 上游呼叫額度用盡例外（等待逾時或等待佇列已滿）
+ */
+public class UpstreamQuotaExceededException extends ExternalApiException {
+    public UpstreamQuotaExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,25 @@
+package com.crypto.dashboard.exception;
+
+/**
+ * 上游回應非 2xx 狀態碼例外
+ */
+public class UpstreamStatusException extends ExternalApiException {
+
+    private final int status;
+
+    public UpstreamStatusException(int status) {
+        super("Upstream responded with HTTP " + status);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * 是否代表上游本身有問題（5xx 或 429 Too Many Requests）
+     */
+    public boolean isUpstreamFault() {
+        return status >= 500 || status == 429;
+    }
+}
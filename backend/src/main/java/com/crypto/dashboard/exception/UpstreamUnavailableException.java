@@ -0,0 +1,10 @@
+package com.crypto.dashboard.exception;
+
+/**
+ * 上游暫時無法使用例外（斷路器開啟中，請求未送出）
+ */
+public class UpstreamUnavailableException extends ExternalApiException {
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+}
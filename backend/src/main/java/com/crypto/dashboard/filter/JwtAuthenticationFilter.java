@@ -1,21 +1,19 @@
 package com.crypto.dashboard.filter;
 
-import com.crypto.dashboard.util.JwtUtil;
+import com.crypto.dashboard.util.JwtPrincipal;
+import com.crypto.dashboard.util.JwtPrincipalCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collections;
-import java.util.List;
 
 /**
  * JWT 認證過濾器（Spring Security 過濾鏈的第一道關卡）
@@ -26,8 +24,8 @@ import java.util.List;
 @RequiredArgsConstructor  // Lombok 自動生成建構子，注入 final 欄位
 public class JwtAuthenticationFilter extends OncePerRequestFilter {  // 繼承 OncePerRequestFilter 確保每個請求只執行一次
 
-    // 注入 JWT 工具類（用於驗證 Token 和提取用戶資訊）
-    private final JwtUtil jwtUtil;
+    // 注入已驗證 Token 的快取（同一個 Token 只解析、驗證簽名一次）
+    private final JwtPrincipalCache principalCache;
 
     /**
      * 核心過濾方法（每個 HTTP 請求都會執行這個方法）
@@ -51,25 +49,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {  // 繼承 O
 
             try {
                 // ========== 步驟 3：驗證 Token 是否有效（未過期、簽名正確）==========
-                if (jwtUtil.validateToken(token)) {
-                    // ========== 步驟 4：從 Token 中提取用戶資訊 ==========
-                    Long userId = jwtUtil.getUserIdFromToken(token);  // 提取用戶 ID
-                    String role = jwtUtil.getRoleFromToken(token);    // 提取角色（admin 或 user）
-
-                    // ========== 步驟 5：建立 Spring Security 的角色權限物件 ==========
-                    // Spring Security 的 hasRole("ADMIN") 會自動檢查 "ROLE_ADMIN"
-                    // 所以我們需要手動加上 "ROLE_" 前綴
-                    List<SimpleGrantedAuthority> authorities = role != null
-                            ? List.of(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()))  // 例如：ROLE_ADMIN
-                            : Collections.emptyList();  // 沒有角色則設為空列表
+                // ========== 步驟 4：從 Token 中提取用戶資訊（用戶 ID、角色）==========
+                // 快取命中時不需要解析 Token；未命中時只解析一次，同時取得所有資訊
+                JwtPrincipal principal = principalCache.verify(token);  // 無效時為 null
+                if (principal != null) {
+                    // ========== 步驟 5：取得 Spring Security 的角色權限物件 ==========
+                    // 已在 JwtPrincipal 建立時加上 "ROLE_" 前綴（例如：ROLE_ADMIN）
 
                     // ========== 步驟 6：建立 Authentication 物件（Spring Security 的身份憑證）==========
                     // 這個物件會被放入 SecurityContext，後續的 Controller 可以取得當前用戶資訊
                     UsernamePasswordAuthenticationToken authentication =
                             new UsernamePasswordAuthenticationToken(
-                                    userId,        // principal（主體）：通常是用戶 ID 或 username
-                                    null,          // credentials（憑證）：密碼（JWT 不需要密碼所以設為 null）
-                                    authorities    // authorities（權限）：角色列表（例如：ROLE_ADMIN）
+                                    principal.userId(),       // principal（主體）：用戶 ID
+                                    null,                     // credentials（憑證）：密碼（JWT 不需要密碼所以設為 null）
+                                    principal.authorities()   // authorities（權限）：角色列表（例如：ROLE_ADMIN）
                             );
 
                     // 設定請求的詳細資訊（IP 位址、Session ID 等）
@@ -0,0 +1,73 @@
+package com.crypto.dashboard.repository;
+
+import com.crypto.dashboard.dto.response.ActivityHourlyDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * activity_hourly_rollups 資料表存取（JdbcTemplate，每小時每類型一列合計、每個熱門幣種一列）
+ *
+ * 同一小時可能分成多個 segment 寫入（例如關閉前寫入的部分小時、重啟後的其餘部分），查詢時加總所有 segment；
+ * 同一個 segment 重新寫入（重試）時覆蓋而不是累加，部分成功或逾時後重試都不會重複計數
+ */
+@Repository
+@RequiredArgsConstructor
+public class ActivityRollupRepository {
+
+    private static final String TOTAL = "";
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO activity_hourly_rollups (hour_start, activity_type, coin_id, activity_count, approximate, segment) "
+            + "VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE "  // 同一個 segment 的重試：覆蓋
+            + "activity_count = VALUES(activity_count), "
+            + "approximate = VALUES(approximate)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 寫入一個 segment（可安全地重複呼叫）
+     * @param segment 寫入者與擷取序號，同一批資料重試時必須相同
+     */
+    public void upsertAll(String segment, List<ActivityHourlyDTO> rows) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setTimestamp(1, Timestamp.valueOf(row.getHourStart()));
+            ps.setString(2, row.getActivityType());
+            ps.setString(3, row.getCoinId() == null ? TOTAL : row.getCoinId());
+            ps.setLong(4, row.getCount());
+            ps.setBoolean(5, row.getApproximate());
+            ps.setString(6, segment);
+        });
+    }
+
+    /**
+     * 各類型每小時合計（由舊到新）
+     */
+    public List<ActivityHourlyDTO> findTotalsFrom(LocalDateTime from) {
+        return jdbcTemplate.query(
+                "SELECT hour_start, activity_type, SUM(activity_count) FROM activity_hourly_rollups "
+                + "WHERE hour_start >= ? AND coin_id = '' "
+                + "GROUP BY hour_start, activity_type ORDER BY hour_start, activity_type",
+                (rs, rowNum) -> new ActivityHourlyDTO(rs.getTimestamp(1).toLocalDateTime(), rs.getString(2), null,
+                        rs.getLong(3), false),
+                Timestamp.valueOf(from));
+    }
+
+    /**
+     * 某類型在區間內被操作最多次的幣種（各小時加總）
+     */
+    public List<ActivityHourlyDTO> findTopCoins(String activityType, LocalDateTime from, int limit) {
+        return jdbcTemplate.query(
+                "SELECT activity_type, coin_id, SUM(activity_count) AS total, MAX(approximate) FROM activity_hourly_rollups "
+                + "WHERE activity_type = ? AND hour_start >= ? AND coin_id <> '' "
+                + "GROUP BY activity_type, coin_id ORDER BY total DESC LIMIT ?",
+                (rs, rowNum) -> new ActivityHourlyDTO(from, rs.getString(1), rs.getString(2), rs.getLong(3),
+                        rs.getBoolean(4)),
+                activityType, Timestamp.valueOf(from), limit);
+    }
+}
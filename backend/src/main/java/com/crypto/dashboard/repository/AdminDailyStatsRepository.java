@@ -0,0 +1,84 @@
+package com.crypto.dashboard.repository;
+
+import com.crypto.dashboard.dto.response.AdminDailyStatsDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * admin_daily_stats 資料表存取，以及重新計算統計時對 users 的彙總查詢
+ * （JdbcTemplate，每天一列、以 UPSERT 覆寫，不經過 JPA 實體）
+ */
+@Repository
+@RequiredArgsConstructor
+public class AdminDailyStatsRepository {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO admin_daily_stats (stat_date, signups, active_users, total_users, total_favorites) "
+            + "VALUES (?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE "
+            + "signups = VALUES(signups), "
+            + "active_users = VALUES(active_users), "
+            + "total_users = VALUES(total_users), "
+            + "total_favorites = VALUES(total_favorites)";
+
+    private static final String SELECT_SQL =
+            "SELECT stat_date, signups, active_users, total_users, total_favorites FROM admin_daily_stats "
+            + "WHERE stat_date >= ? ORDER BY stat_date";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void upsert(AdminDailyStatsDTO stats) {
+        jdbcTemplate.update(UPSERT_SQL, Date.valueOf(stats.getDate()), stats.getSignups(), stats.getActiveUsers(),
+                stats.getTotalUsers(), stats.getTotalFavorites());
+    }
+
+    /**
+     * 只更新註冊人數（由 users.join_date 重新計算的結果；登入人數無法事後重算，保留原值）
+     */
+    public void upsertSignups(LocalDate date, long signups) {
+        jdbcTemplate.update("INSERT INTO admin_daily_stats (stat_date, signups) VALUES (?, ?) "
+                + "ON DUPLICATE KEY UPDATE signups = VALUES(signups)", Date.valueOf(date), signups);
+    }
+
+    public List<AdminDailyStatsDTO> findFrom(LocalDate from) {
+        return jdbcTemplate.query(SELECT_SQL,
+                (rs, rowNum) -> new AdminDailyStatsDTO(rs.getDate(1).toLocalDate(), rs.getLong(2), rs.getLong(3),
+                        rs.getLong(4), rs.getLong(5)),
+                Date.valueOf(from));
+    }
+
+    // ========== 重新計算用的彙總查詢 ==========
+
+    /**
+     * 最後登入時間在 from 之後的用戶數，依最後登入日期分組（idx_last_login_at 範圍掃描）
+     */
+    public Map<LocalDate, Long> countByLastLoginDate(LocalDateTime from) {
+        return groupByDate("SELECT DATE(last_login_at), COUNT(*) FROM users WHERE last_login_at >= ? "
+                + "GROUP BY DATE(last_login_at)", from);
+    }
+
+    /**
+     * 註冊時間在 from 之後的用戶數，依註冊日期分組
+     */
+    public Map<LocalDate, Long> countByJoinDate(LocalDateTime from) {
+        return groupByDate("SELECT DATE(join_date), COUNT(*) FROM users WHERE join_date >= ? "
+                + "GROUP BY DATE(join_date)", from);
+    }
+
+    private Map<LocalDate, Long> groupByDate(String sql, LocalDateTime from) {
+        Map<LocalDate, Long> result = new TreeMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            result.put(rs.getDate(1).toLocalDate(), rs.getLong(2));
+        }, Timestamp.valueOf(from));
+        return result;
+    }
+}
@@ -0,0 +1,126 @@
+package com.crypto.dashboard.repository;
+
+import com.crypto.dashboard.dto.response.UserSummaryDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 管理後台的用戶列表查詢（JdbcTemplate，不經過 JPA 實體）
+ *
+ * - 分頁：keyset（seek）分頁，以 (排序欄位, id) 作為游標往後找，不使用 OFFSET，
+ *   任何一頁的成本都只有 size 筆（join_date 走 idx_join_date_id、username 走 uk_username）
+ * - 收藏數以相關子查詢逐列計算（idx_user_id），只對回傳的列計算，不 GROUP BY 整張 coin_favorites
+ * - 匯出：MySQL 串流結果集（fetchSize = Integer.MIN_VALUE，只能往前讀），記憶體用量與總筆數無關
+ */
+@Repository
+@RequiredArgsConstructor
+public class AdminUserRepository {
+
+    private static final String COLUMNS =
+            "SELECT u.id, u.username, u.email, u.role, u.status, u.join_date, "
+            + "(SELECT COUNT(*) FROM coin_favorites f WHERE f.user_id = u.id) AS favorite_count "
+            + "FROM users u ";
+
+    private static final RowMapper<UserSummaryDTO> ROW_MAPPER = (rs, rowNum) -> toDto(rs);
+
+    /**
+     * 排序方式（欄位名稱固定在程式中，不接受外部字串組 SQL）
+     */
+    public enum SortField {
+        JOIN_DATE("u.join_date"),
+        USERNAME("u.username");
+
+        private final String column;
+
+        SortField(String column) {
+            this.column = column;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 取得一頁
+     * @param prefix 用戶名或 Email 的前綴（null 表示不篩選）
+     * @param afterValue 上一頁最後一列的排序欄位值（第一頁為 null）
+     * @param afterId 上一頁最後一列的 id
+     * @param limit 最多回傳幾筆
+     */
+    public List<UserSummaryDTO> findPage(SortField sort, boolean descending, String prefix,
+                                         Object afterValue, Long afterId, int limit) {
+        StringBuilder sql = new StringBuilder(COLUMNS).append("WHERE 1 = 1 ");
+        List<Object> args = new ArrayList<>();
+        appendPrefixFilter(sql, args, prefix);
+        if (afterValue != null && afterId != null) {
+            String op = descending ? "<" : ">";
+            sql.append("AND (").append(sort.column).append(' ').append(op).append(" ? OR (")
+                    .append(sort.column).append(" = ? AND u.id ").append(op).append(" ?)) ");
+            args.add(afterValue);
+            args.add(afterValue);
+            args.add(afterId);
+        }
+        String direction = descending ? " DESC" : " ASC";
+        sql.append("ORDER BY ").append(sort.column).append(direction).append(", u.id").append(direction)
+                .append(" LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * 依註冊時間（新到舊）逐列讀出所有符合的用戶，每列呼叫一次 handler
+     */
+    public void streamAll(String prefix, RowCallbackHandler handler) {
+        StringBuilder sql = new StringBuilder(COLUMNS).append("WHERE 1 = 1 ");
+        List<Object> args = new ArrayList<>();
+        appendPrefixFilter(sql, args, prefix);
+        sql.append("ORDER BY u.join_date DESC, u.id DESC");
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);  // MySQL Connector/J：逐列串流，不把整個結果集載入記憶體
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            return ps;
+        }, handler);
+    }
+
+    private static void appendPrefixFilter(StringBuilder sql, List<Object> args, String prefix) {
+        if (prefix == null) {
+            return;
+        }
+        String pattern = escapeLike(prefix) + "%";
+        sql.append("AND (u.username LIKE ? OR u.email LIKE ?) ");
+        args.add(pattern);
+        args.add(pattern);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    public static UserSummaryDTO toDto(ResultSet rs) throws SQLException {
+        Timestamp joinDate = rs.getTimestamp(6);
+        String role = rs.getString(4);
+        String status = rs.getString(5);
+        return new UserSummaryDTO(
+                rs.getLong(1),
+                rs.getString(2),
+                rs.getString(3),
+                role != null ? role : "user",
+                status != null ? status : "active",
+                joinDate != null ? joinDate.toLocalDateTime() : null,
+                rs.getLong(7));
+    }
+}
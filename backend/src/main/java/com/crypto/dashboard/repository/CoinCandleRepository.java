@@ -0,0 +1,72 @@
+package com.crypto.dashboard.repository;
+
+import com.crypto.dashboard.service.Candle;
+import com.crypto.dashboard.service.CandleTimeframe;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * coin_candles 資料表存取（JdbcTemplate 批次寫入，K 線數量大，不經過 JPA 實體）
+ */
+@Repository
+@RequiredArgsConstructor
+public class CoinCandleRepository {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO coin_candles (coin_id, timeframe, open_time, open_price, high_price, low_price, close_price, volume_24h) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE "  // 重啟後同一根 K 線可能寫入兩次，合併而非覆蓋
+            + "high_price = GREATEST(high_price, VALUES(high_price)), "
+            + "low_price = LEAST(low_price, VALUES(low_price)), "
+            + "close_price = VALUES(close_price), "
+            + "volume_24h = VALUES(volume_24h)";
+
+    private static final String SELECT_SQL =
+            "SELECT open_time, open_price, high_price, low_price, close_price, volume_24h FROM coin_candles "
+            + "WHERE coin_id = ? AND timeframe = ? AND open_time >= ? AND open_time <= ? "
+            + "ORDER BY open_time DESC LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 批次寫入（每 batchSize 筆送一次）
+     */
+    public void upsertAll(List<Candle> candles, int batchSize) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, candles, batchSize, (ps, candle) -> {
+            ps.setString(1, candle.coinId());
+            ps.setString(2, candle.timeframe().getCode());
+            ps.setLong(3, candle.openTime());
+            ps.setDouble(4, candle.open());
+            ps.setDouble(5, candle.high());
+            ps.setDouble(6, candle.low());
+            ps.setDouble(7, candle.close());
+            if (Double.isNaN(candle.volume())) {
+                ps.setNull(8, Types.DOUBLE);
+            } else {
+                ps.setDouble(8, candle.volume());
+            }
+        });
+    }
+
+    /**
+     * 查詢區間內最新的 limit 根 K 線（由新到舊）
+     */
+    public List<Candle> findLatest(String coinId, CandleTimeframe timeframe, long from, long to, int limit) {
+        return jdbcTemplate.query(SELECT_SQL,
+                (rs, rowNum) -> new Candle(coinId, timeframe, rs.getLong(1), rs.getDouble(2), rs.getDouble(3),
+                        rs.getDouble(4), rs.getDouble(5), rs.getObject(6) == null ? Double.NaN : rs.getDouble(6)),
+                coinId, timeframe.getCode(), from, to, limit);
+    }
+
+    /**
+     * 刪除開始時間早於 cutoff 的 K 線
+     */
+    public int deleteOlderThan(CandleTimeframe timeframe, long cutoff) {
+        return jdbcTemplate.update("DELETE FROM coin_candles WHERE timeframe = ? AND open_time < ?",
+                timeframe.getCode(), cutoff);
+    }
+}
@@ -0,0 +1,14 @@
+package com.crypto.dashboard.repository;
+
+import com.crypto.dashboard.entity.CoinComparison;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CoinComparisonRepository extends JpaRepository<CoinComparison, Long> {
+    List<CoinComparison> findByUser_IdAndIsSavedTrueOrderByCreatedAtDesc(Long userId);
+    Optional<CoinComparison> findByIdAndUser_Id(Long id, Long userId);
+}
@@ -17,15 +17,13 @@ public interface CoinFavoriteRepository extends JpaRepository<CoinFavorite, Long
 
     @Transactional
     @Modifying
-    void deleteByUser_IdAndCoinId(Long userId, String coinId);
+    long deleteByUser_IdAndCoinId(Long userId, String coinId);
 
     long countByCoinId(String coinId);
 
-    // 新增：取得最多收藏的幣種排行（Top 10）
+    // 每個幣種的收藏數（FavoriteLeaderboard 定期校正用）
     @Query(value = "SELECT coin_id, COUNT(id) as count " +
            "FROM coin_favorites " +
-           "GROUP BY coin_id " +
-           "ORDER BY count DESC " +
-           "LIMIT 10", nativeQuery = true)
-    List<Object[]> findTopFavoriteCoins();
+           "GROUP BY coin_id", nativeQuery = true)
+    List<Object[]> countFavoritesByCoin();
 }
@@ -0,0 +1,33 @@
+package com.crypto.dashboard.repository;
+
+import com.crypto.dashboard.entity.CoinPriceAlert;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CoinPriceAlertRepository extends JpaRepository<CoinPriceAlert, Long> {
+    List<CoinPriceAlert> findByUser_IdOrderByCreatedAtDesc(Long userId);
+    Optional<CoinPriceAlert> findByIdAndUser_Id(Long id, Long userId);
+
+    // 載入待評估的提醒（以 id 分批，只取建索引需要的欄位）
+    @Query("SELECT a.id, a.coinId, a.alertType, a.targetPrice FROM CoinPriceAlert a " +
+           "WHERE a.isActive = true AND a.isTriggered = false AND a.id > :afterId ORDER BY a.id")
+    List<Object[]> findPendingAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // 批次標記為已觸發（已觸發或已停用的不重複更新）
+    @Transactional
+    @Modifying
+    @Query("UPDATE CoinPriceAlert a SET a.isTriggered = true, a.triggeredAt = :triggeredAt " +
+           "WHERE a.id IN :ids AND a.isTriggered = false AND a.isActive = true")
+    int markTriggered(@Param("ids") Collection<Long> ids, @Param("triggeredAt") LocalDateTime triggeredAt);
+}
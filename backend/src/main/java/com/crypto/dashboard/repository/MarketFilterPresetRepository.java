@@ -0,0 +1,14 @@
+package com.crypto.dashboard.repository;
+
+import com.crypto.dashboard.entity.MarketFilterPreset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MarketFilterPresetRepository extends JpaRepository<MarketFilterPreset, Long> {
+    List<MarketFilterPreset> findByUser_IdOrderByCreatedAtDesc(Long userId);
+    Optional<MarketFilterPreset> findByIdAndUser_Id(Long id, Long userId);
+}
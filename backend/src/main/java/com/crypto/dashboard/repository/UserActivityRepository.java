@@ -0,0 +1,47 @@
+package com.crypto.dashboard.repository;
+
+import com.crypto.dashboard.service.UserActivity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * user_activities 資料表存取（JdbcTemplate 批次寫入，資料量大且只新增，不經過 JPA 實體）
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserActivityRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO user_activities (user_id, activity_type, coin_id, metadata, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 一次批次寫入（配合 rewriteBatchedStatements 合併成多列 INSERT）
+     * @param metadataJson 把 metadata 轉成 JSON 字串（null 表示沒有）
+     */
+    public void insertAll(List<UserActivity> activities, Function<UserActivity, String> metadataJson) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, activities, activities.size(), (ps, activity) -> {
+            ps.setLong(1, activity.userId());
+            ps.setString(2, activity.type().getCode());
+            if (activity.coinId() == null) {
+                ps.setNull(3, Types.VARCHAR);
+            } else {
+                ps.setString(3, activity.coinId());
+            }
+            String metadata = metadataJson.apply(activity);
+            if (metadata == null) {
+                ps.setNull(4, Types.VARCHAR);
+            } else {
+                ps.setString(4, metadata);
+            }
+            ps.setTimestamp(5, new Timestamp(activity.createdAt()));
+        });
+    }
+}
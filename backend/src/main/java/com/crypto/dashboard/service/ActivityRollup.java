@@ -0,0 +1,458 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.dto.response.ActivityHourlyDTO;
+import com.crypto.dashboard.exception.ValidationException;
+import com.crypto.dashboard.repository.ActivityRollupRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用戶行為的串流彙總（最近一小時，一分鐘一桶）
+ * 作用：「站內最近一小時最多人看的幣種」等問題直接由記憶體中的計數回答，不查詢 user_activities
+ *
+ * - 由 UserActivityRecorder 的寫入執行緒在取出事件時餵入（請求執行緒不受影響）
+ * - 各行為類型：每分鐘一個計數，另維護整個時間窗的合計
+ * - 幣種：瀏覽與加入收藏各一個 SlidingCoinCounter（常見幣種精確計數，長尾以 count-min sketch 估計）
+ * - 查詢結果每 publish-ms 重新產生一次不可變的 View，查詢只讀取 View（與事件量無關）
+ * - 每個整點把上一小時的合計與熱門幣種寫入 activity_hourly_rollups（關閉時寫入目前這一小時已有的部分）；
+ *   每次擷取是一個 segment，寫入失敗重試時覆蓋同一個 segment，不會重複計數
+ */
+@Component
+@RequiredArgsConstructor
+public class ActivityRollup {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivityRollup.class);
+
+    /**
+     * 時間窗長度（分鐘）；等於一小時，整點時時間窗剛好是完整的上一小時
+     */
+    public static final int WINDOW_MINUTES = 60;
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+    public static final int MAX_HISTORY_HOURS = 24 * 30;
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final int PERSISTED_COINS = 100;    // 每小時每種行為保存幾個熱門幣種
+    private static final int MAX_UNFLUSHED_HOURS = 48;
+    private static final UserActivity.Type[] TYPES = UserActivity.Type.values();
+
+    private final ActivityRollupRepository rollupRepository;
+    private final MarketSnapshotService marketSnapshotService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 每種行為精確計數的幣種數量上限（超過的記在 count-min sketch）
+     */
+    @Value("${activity.rollup.tracked-coins:2048}")
+    private int trackedCoins;
+
+    // 以下欄位由 this 同步
+    private long currentMinute = -1;
+    private final long[] bucketMinutes = new long[WINDOW_MINUTES];
+    private final long[][] typeCounts = new long[TYPES.length][WINDOW_MINUTES];
+    private final long[] typeTotals = new long[TYPES.length];
+    private SlidingCoinCounter views;
+    private SlidingCoinCounter favorites;
+    private final Deque<Segment> unflushed = new ArrayDeque<>();
+    private long segments;
+    private boolean dirty;
+
+    /**
+     * 本次啟動的識別（segment id 的前綴），重啟後同一小時的其餘部分寫入不同的 segment
+     */
+    private final String instanceId = Long.toString(System.currentTimeMillis(), 36)
+            + "-" + Long.toString(ProcessHandle.current().pid(), 36);
+
+    private volatile View view = new View(0, 0, new long[TYPES.length], new long[TYPES.length][WINDOW_MINUTES],
+            List.of(), List.of());
+    private final Map<Integer, Memo> payloads = new ConcurrentHashMap<>();
+
+    // 統計數據
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong lateEvents = new AtomicLong();
+    private final AtomicLong persistedHours = new AtomicLong();
+    private final AtomicLong droppedHours = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+
+    /**
+     * 查詢用的不可變結果
+     * @param perMinute [類型][分鐘]，由舊到新
+     */
+    private record View(long version, long updatedAt, long[] totals, long[][] perMinute,
+                        List<Ranked> trending, List<SlidingCoinCounter.Count> favorited) {
+    }
+
+    /**
+     * 熱門幣種（依瀏覽次數排序，附帶同一時間窗內加入收藏的次數）
+     */
+    private record Ranked(String coinId, long views, long favorites, boolean approximate) {
+    }
+
+    private record Memo(long version, long snapshotVersion, CachedPayload payload) {
+    }
+
+    /**
+     * 一次擷取的結果；id 在重試時不變，資料庫以此覆蓋而不是累加
+     */
+    private record Segment(String id, List<ActivityHourlyDTO> rows) {
+    }
+
+    @PostConstruct
+    void init() {
+        views = new SlidingCoinCounter(WINDOW_MINUTES, trackedCoins);
+        favorites = new SlidingCoinCounter(WINDOW_MINUTES, trackedCoins);
+        Arrays.fill(bucketMinutes, -1);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        synchronized (this) {
+            if (currentMinute >= 0) {
+                capture(currentMinute / 60);  // 目前這一小時已有的部分（重啟後的其餘部分另寫一個 segment，查詢時加總）
+            }
+        }
+        flush();
+    }
+
+    // ========== 更新（寫入執行緒） ==========
+
+    /**
+     * 加入一批事件
+     */
+    public void accept(List<UserActivity> activities) {
+        synchronized (this) {
+            for (UserActivity activity : activities) {
+                long minute = activity.createdAt() / MINUTE;
+                if (minute > currentMinute) {
+                    advance(minute);
+                }
+                int bucket = (int) (minute % WINDOW_MINUTES);
+                if (bucketMinutes[bucket] != minute) {
+                    lateEvents.incrementAndGet();  // 早於時間窗（或重設前）的事件
+                    continue;
+                }
+                int type = activity.type().ordinal();
+                typeCounts[type][bucket]++;
+                typeTotals[type]++;
+                if (activity.coinId() != null) {
+                    if (activity.type() == UserActivity.Type.VIEW_COIN) {
+                        views.add(activity.coinId(), bucket);
+                    } else if (activity.type() == UserActivity.Type.ADD_FAVORITE) {
+                        favorites.add(activity.coinId(), bucket);
+                    }
+                }
+            }
+            dirty = true;
+        }
+        events.addAndGet(activities.size());
+    }
+
+    /**
+     * 把時間窗推進到 minute（呼叫端持有鎖）；跨過整點時先保存上一小時
+     */
+    private void advance(long minute) {
+        dirty = true;
+        if (currentMinute < 0 || minute - currentMinute >= WINDOW_MINUTES) {
+            if (currentMinute >= 0) {
+                capture(currentMinute / 60);  // 上一次整點之後的部分
+            }
+            for (int bucket = 0; bucket < WINDOW_MINUTES; bucket++) {
+                expire(bucket);
+                bucketMinutes[bucket] = -1;
+            }
+            currentMinute = minute;
+            bucketMinutes[(int) (minute % WINDOW_MINUTES)] = minute;
+            return;
+        }
+        while (currentMinute < minute) {
+            long next = currentMinute + 1;
+            if (next % 60 == 0) {
+                capture(currentMinute / 60);
+            }
+            int bucket = (int) (next % WINDOW_MINUTES);
+            expire(bucket);
+            bucketMinutes[bucket] = next;
+            currentMinute = next;
+        }
+    }
+
+    private void expire(int bucket) {
+        for (int type = 0; type < TYPES.length; type++) {
+            typeTotals[type] -= typeCounts[type][bucket];
+            typeCounts[type][bucket] = 0;
+        }
+        views.expire(bucket);
+        favorites.expire(bucket);
+    }
+
+    /**
+     * 保存某一小時仍在時間窗內的桶（呼叫端持有鎖）
+     */
+    private void capture(long hour) {
+        boolean[] selected = new boolean[WINDOW_MINUTES];
+        boolean any = false;
+        for (int bucket = 0; bucket < WINDOW_MINUTES; bucket++) {
+            selected[bucket] = bucketMinutes[bucket] >= 0 && bucketMinutes[bucket] / 60 == hour;
+            any |= selected[bucket];
+        }
+        if (!any) {
+            return;
+        }
+        LocalDateTime hourStart = LocalDateTime.ofInstant(Instant.ofEpochMilli(hour * 60 * MINUTE), ZoneId.systemDefault());
+        List<ActivityHourlyDTO> rows = new ArrayList<>();
+        for (int type = 0; type < TYPES.length; type++) {
+            long count = 0;
+            for (int bucket = 0; bucket < WINDOW_MINUTES; bucket++) {
+                if (selected[bucket]) {
+                    count += typeCounts[type][bucket];
+                }
+            }
+            if (count > 0) {
+                rows.add(new ActivityHourlyDTO(hourStart, TYPES[type].getCode(), null, count, false));
+            }
+        }
+        addCoinRows(rows, hourStart, UserActivity.Type.VIEW_COIN, views.top(selected, PERSISTED_COINS));
+        addCoinRows(rows, hourStart, UserActivity.Type.ADD_FAVORITE, favorites.top(selected, PERSISTED_COINS));
+        if (rows.isEmpty()) {
+            return;
+        }
+        unflushed.addLast(new Segment(instanceId + "-" + (++segments), rows));
+        while (unflushed.size() > MAX_UNFLUSHED_HOURS) {
+            unflushed.pollFirst();  // 資料庫長時間無法寫入，只保留最近的
+            droppedHours.incrementAndGet();
+        }
+    }
+
+    private static void addCoinRows(List<ActivityHourlyDTO> rows, LocalDateTime hourStart, UserActivity.Type type,
+                                    List<SlidingCoinCounter.Count> counts) {
+        for (SlidingCoinCounter.Count count : counts) {
+            rows.add(new ActivityHourlyDTO(hourStart, type.getCode(), count.coinId(), count.count(), count.approximate()));
+        }
+    }
+
+    /**
+     * 推進時間窗（沒有事件時也要讓舊的桶過期），有變動時重新產生 View
+     */
+    @Scheduled(fixedDelayString = "${activity.rollup.publish-ms:5000}")
+    public void publish() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (currentMinute >= 0 && now / MINUTE > currentMinute) {
+                advance(now / MINUTE);
+            }
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+
+            long[][] perMinute = new long[TYPES.length][WINDOW_MINUTES];
+            for (int i = 0; i < WINDOW_MINUTES; i++) {
+                // 由舊到新：最後一格是目前這一分鐘
+                long minute = currentMinute - (WINDOW_MINUTES - 1) + i;
+                int bucket = (int) Math.floorMod(minute, (long) WINDOW_MINUTES);
+                if (bucketMinutes[bucket] == minute) {
+                    for (int type = 0; type < TYPES.length; type++) {
+                        perMinute[type][i] = typeCounts[type][bucket];
+                    }
+                }
+            }
+            List<Ranked> trending = new ArrayList<>();
+            for (SlidingCoinCounter.Count count : views.top(MAX_LIMIT)) {
+                trending.add(new Ranked(count.coinId(), count.count(), favorites.count(count.coinId()),
+                        count.approximate()));
+            }
+            view = new View(view.version() + 1, now, typeTotals.clone(), perMinute, List.copyOf(trending),
+                    List.copyOf(favorites.top(MAX_LIMIT)));
+        }
+    }
+
+    /**
+     * 寫入已結束的小時；失敗的留到下一次
+     */
+    @Scheduled(fixedDelayString = "${activity.rollup.flush-ms:60000}", initialDelayString = "${activity.rollup.flush-ms:60000}")
+    public void flush() {
+        while (true) {
+            Segment segment;
+            synchronized (this) {
+                segment = unflushed.pollFirst();
+            }
+            if (segment == null) {
+                return;
+            }
+            try {
+                rollupRepository.upsertAll(segment.id(), segment.rows());
+                persistedHours.incrementAndGet();
+            } catch (Exception e) {
+                // 可能已部分寫入或已提交但未收到回應；以同一個 segment 重試會覆蓋，不會重複計數
+                failedFlushes.incrementAndGet();
+                log.warn("Failed to write activity rollup for {}: {}", segment.rows().get(0).getHourStart(), e.getMessage());
+                synchronized (this) {
+                    unflushed.addFirst(segment);
+                }
+                return;
+            }
+        }
+    }
+
+    // ========== 查詢 ==========
+
+    /**
+     * 站內最近一小時最多人瀏覽的幣種（/api/coins/trending/internal）
+     * 格式：{"windowMinutes":60,"updatedAt":...,"coins":[{"id","views","favorites","approximate","coin":市場快照列或 null}]}
+     */
+    public CachedPayload getTrending(Integer limit) {
+        int size = limit == null ? DEFAULT_LIMIT : limit;
+        if (size < 1 || size > MAX_LIMIT) {
+            throw new ValidationException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        View current = view;
+        MarketSnapshot snapshot = marketSnapshotService.getFreshSnapshot();
+        long snapshotVersion = snapshot == null ? 0 : snapshot.getVersion();
+
+        Memo memo = payloads.get(size);
+        if (memo != null && memo.version() == current.version() && memo.snapshotVersion() == snapshotVersion) {
+            return memo.payload();
+        }
+        CachedPayload payload = CachedPayload.of(toJson(current, snapshot, size));
+        payloads.put(size, new Memo(current.version(), snapshotVersion, payload));
+        return payload;
+    }
+
+    private byte[] toJson(View current, MarketSnapshot snapshot, int size) {
+        List<Ranked> trending = current.trending();
+        int count = Math.min(size, trending.size());
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128 + count * 360);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeNumberField("windowMinutes", WINDOW_MINUTES);
+            generator.writeNumberField("updatedAt", current.updatedAt());
+            generator.writeArrayFieldStart("coins");
+            for (int i = 0; i < count; i++) {
+                Ranked ranked = trending.get(i);
+                generator.writeStartObject();
+                generator.writeStringField("id", ranked.coinId());
+                generator.writeNumberField("views", ranked.views());
+                generator.writeNumberField("favorites", ranked.favorites());
+                generator.writeBooleanField("approximate", ranked.approximate());
+                generator.writeFieldName("coin");
+                int row = snapshot == null ? -1 : snapshot.indexOf(ranked.coinId());
+                if (row >= 0) {
+                    String json = snapshot.rowsAsJson(new int[]{row}, 0, 1);
+                    generator.writeRawValue(json.substring(1, json.length() - 1));
+                } else {
+                    generator.writeNull();
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 最近一小時的行為統計（管理後台）
+     */
+    public Map<String, Object> getAnalytics(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ValidationException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        View current = view;
+        Map<String, Object> totals = new LinkedHashMap<>();
+        Map<String, Object> perMinute = new LinkedHashMap<>();
+        for (int type = 0; type < TYPES.length; type++) {
+            totals.put(TYPES[type].getCode(), current.totals()[type]);
+            perMinute.put(TYPES[type].getCode(), current.perMinute()[type]);
+        }
+        List<Map<String, Object>> viewed = new ArrayList<>();
+        for (Ranked ranked : current.trending().subList(0, Math.min(limit, current.trending().size()))) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("coinId", ranked.coinId());
+            row.put("views", ranked.views());
+            row.put("favorites", ranked.favorites());
+            row.put("approximate", ranked.approximate());
+            viewed.add(row);
+        }
+        List<Map<String, Object>> favorited = new ArrayList<>();
+        for (SlidingCoinCounter.Count count : current.favorited().subList(0, Math.min(limit, current.favorited().size()))) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("coinId", count.coinId());
+            row.put("favorites", count.count());
+            row.put("approximate", count.approximate());
+            favorited.add(row);
+        }
+
+        Map<String, Object> analytics = new LinkedHashMap<>();
+        analytics.put("windowMinutes", WINDOW_MINUTES);
+        analytics.put("updatedAt", current.updatedAt());
+        analytics.put("totals", totals);
+        analytics.put("perMinute", perMinute);
+        analytics.put("topViewed", viewed);
+        analytics.put("topFavorited", favorited);
+        return analytics;
+    }
+
+    /**
+     * 最近 hours 小時（已保存）的每小時合計與期間內最多人瀏覽的幣種
+     */
+    public Map<String, Object> getHistory(int hours, int limit) {
+        if (hours < 1 || hours > MAX_HISTORY_HOURS) {
+            throw new ValidationException("hours must be between 1 and " + MAX_HISTORY_HOURS);
+        }
+        if (limit < 1 || limit > PERSISTED_COINS) {
+            throw new ValidationException("limit must be between 1 and " + PERSISTED_COINS);
+        }
+        LocalDateTime from = LocalDateTime.now().withMinute(0).withSecond(0).withNano(0).minusHours(hours);
+        Map<String, Object> history = new LinkedHashMap<>();
+        history.put("from", from);
+        history.put("hourly", rollupRepository.findTotalsFrom(from));
+        history.put("topViewed", rollupRepository.findTopCoins(UserActivity.Type.VIEW_COIN.getCode(), from, limit));
+        return history;
+    }
+
+    /**
+     * 取得彙總統計（供管理員監控使用）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("trackedViewedCoins", views.trackedCoins());
+            stats.put("tailViewCandidates", views.tailCandidates());
+            stats.put("tailViewEvents", views.tailEvents());
+            stats.put("unflushedHours", unflushed.size());
+        }
+        stats.put("events", events.get());
+        stats.put("lateEvents", lateEvents.get());
+        stats.put("persistedHours", persistedHours.get());
+        stats.put("droppedHours", droppedHours.get());
+        stats.put("failedFlushes", failedFlushes.get());
+        return stats;
+    }
+}
@@ -1,14 +1,26 @@
 package com.crypto.dashboard.service;
 
+import com.crypto.dashboard.dto.response.AdminDailyStatsDTO;
 import com.crypto.dashboard.dto.response.AdminStatsResponse;
+import com.crypto.dashboard.dto.response.UserPageResponse;
 import com.crypto.dashboard.dto.response.UserSummaryDTO;
-import com.crypto.dashboard.repository.CoinFavoriteRepository;
+import com.crypto.dashboard.exception.ValidationException;
+import com.crypto.dashboard.repository.AdminUserRepository;
 import com.crypto.dashboard.repository.UserRepository;
+import com.crypto.dashboard.util.JwtPrincipalCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,32 +30,89 @@ public class AdminService {
     private UserRepository userRepository;
 
     @Autowired
-    private CoinFavoriteRepository coinFavoriteRepository;
+    private AdminUserRepository adminUserRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UpstreamRequestCoalescer upstreamRequestCoalescer;
+
+    @Autowired
+    private MarketDataRefreshScheduler marketDataRefreshScheduler;
+
+    @Autowired
+    private MarketSnapshotService marketSnapshotService;
+
+    @Autowired
+    private UpstreamHttpClient upstreamHttpClient;
+
+    @Autowired
+    private UpstreamQuotaGovernor upstreamQuotaGovernor;
+
+    @Autowired
+    private UpstreamCircuitBreaker upstreamCircuitBreaker;
+
+    @Autowired
+    private DiskPayloadStore diskPayloadStore;
+
+    @Autowired
+    private MarketChartService marketChartService;
+
+    @Autowired
+    private CandleService candleService;
+
+    @Autowired
+    private PriceAlertEngine priceAlertEngine;
+
+    @Autowired
+    private MarketStreamService marketStreamService;
+
+    @Autowired
+    private MarketChangeLog marketChangeLog;
+
+    @Autowired
+    private ComparisonService comparisonService;
+
+    @Autowired
+    private CoinCatalogService coinCatalogService;
+
+    @Autowired
+    private FxRateService fxRateService;
+
+    @Autowired
+    private FavoriteLeaderboard favoriteLeaderboard;
+
+    @Autowired
+    private AdminStatsMaterializer adminStatsMaterializer;
+
+    @Autowired
+    private UserActivityRecorder userActivityRecorder;
+
+    @Autowired
+    private ActivityRollup activityRollup;
+
+    @Autowired
+    private JwtPrincipalCache jwtPrincipalCache;
 
     // 取得統計數據
     public AdminStatsResponse getStats() {
-        // 總用戶數
-        Long totalUsers = userRepository.count();
-
-        // 活躍用戶數（7 天內登入）
-        LocalDateTime sevenDaysAgo = LocalDateTime.now().minusDays(7);
-        Long activeUsers = userRepository.countByLastLoginAtAfter(sevenDaysAgo);
-
-        // 總收藏數
-        Long totalFavorites = coinFavoriteRepository.count();
-
-        // 最多收藏的幣種排行（Top 10）
-        List<Object[]> topCoinsRaw = coinFavoriteRepository.findTopFavoriteCoins();
-        List<AdminStatsResponse.CoinRankDTO> topCoins = topCoinsRaw.stream()
-            .map(row -> new AdminStatsResponse.CoinRankDTO(
-                (String) row[0],  // coinId
-                ((Number) row[1]).longValue()  // count
-            ))
-            .collect(Collectors.toList());
+        // 總用戶數、活躍用戶數（7 天內登入）：由物化統計提供，不查詢 users
+        Long totalUsers = adminStatsMaterializer.getTotalUsers();
+        Long activeUsers = adminStatsMaterializer.getActiveUsers();
+
+        // 總收藏數、最多收藏的幣種排行（Top 10）：由記憶體中的收藏排行提供，不查詢 coin_favorites
+        Long totalFavorites = favoriteLeaderboard.getTotalFavorites();
+        List<AdminStatsResponse.CoinRankDTO> topCoins = favoriteLeaderboard.getTopCoins(10);
 
         return new AdminStatsResponse(totalUsers, activeUsers, totalFavorites, topCoins);
     }
 
+    // 取得每日統計（註冊人數、活躍人數趨勢）
+    public List<AdminDailyStatsDTO> getStatsHistory(int days) {
+        return adminStatsMaterializer.getHistory(days);
+    }
+
     // 取得所有用戶列表（含收藏數）
     public List<UserSummaryDTO> getAllUsers() {
         List<Object[]> usersWithFavCount = userRepository.findAllUsersWithFavoriteCount();
@@ -66,4 +135,142 @@ public class AdminService {
             })
             .collect(Collectors.toList());
     }
+
+    // 分頁取得用戶列表（keyset 分頁，游標由上一頁的 nextCursor 取得）
+    public UserPageResponse getUsersPage(String sort, String order, String query, String cursor, int size) {
+        if (size < 1 || size > 200) {
+            throw new ValidationException("size must be between 1 and 200");
+        }
+        AdminUserRepository.SortField sortField = parseSort(sort);
+        boolean descending = parseDescending(order);
+        String prefix = normalizeQuery(query);
+
+        Object afterValue = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            // 游標格式：{sort}|{排序欄位值}|{id}（base64url），排序方式不同的游標不能沿用
+            String decoded;
+            try {
+                decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Invalid cursor");
+            }
+            int first = decoded.indexOf('|');
+            int last = decoded.lastIndexOf('|');
+            if (first < 0 || first == last || !decoded.substring(0, first).equals(sortField.name())) {
+                throw new ValidationException("Invalid cursor");
+            }
+            String value = decoded.substring(first + 1, last);
+            try {
+                afterValue = sortField == AdminUserRepository.SortField.JOIN_DATE ? LocalDateTime.parse(value) : value;
+                afterId = Long.parseLong(decoded.substring(last + 1));
+            } catch (RuntimeException e) {
+                throw new ValidationException("Invalid cursor");
+            }
+        }
+
+        // 多取一筆判斷是否還有下一頁
+        List<UserSummaryDTO> rows = adminUserRepository.findPage(sortField, descending, prefix, afterValue, afterId, size + 1);
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            UserSummaryDTO last = rows.get(size - 1);
+            String value = sortField == AdminUserRepository.SortField.JOIN_DATE
+                    ? String.valueOf(last.getJoinDate()) : last.getUsername();
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (sortField.name() + "|" + value + "|" + last.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+        return new UserPageResponse(rows, nextCursor);
+    }
+
+    // 匯出用戶（CSV / NDJSON）：逐列讀取、逐列寫出，記憶體用量與用戶數無關
+    public void exportUsers(String format, String query, OutputStream out) {
+        String prefix = normalizeQuery(query);
+        try (UserExportWriter writer = UserExportWriter.of(format, objectMapper.getFactory(), out)) {
+            adminUserRepository.streamAll(prefix, rs -> {
+                try {
+                    writer.write(AdminUserRepository.toDto(rs));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);  // 用戶端中斷下載時停止讀取
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 匯出格式對應的 Content-Type（格式不支援時拋出 ValidationException）
+    public static String exportContentType(String format) {
+        if (!UserExportWriter.CSV.equals(format) && !UserExportWriter.NDJSON.equals(format)) {
+            throw new ValidationException("format must be csv or ndjson");
+        }
+        return UserExportWriter.contentType(format);
+    }
+
+    private static AdminUserRepository.SortField parseSort(String sort) {
+        if (sort == null || sort.equals("joinDate")) {
+            return AdminUserRepository.SortField.JOIN_DATE;
+        }
+        if (sort.equals("username")) {
+            return AdminUserRepository.SortField.USERNAME;
+        }
+        throw new ValidationException("sort must be joinDate or username");
+    }
+
+    private static boolean parseDescending(String order) {
+        if (order == null || order.equalsIgnoreCase("desc")) {
+            return true;
+        }
+        if (order.equalsIgnoreCase("asc")) {
+            return false;
+        }
+        throw new ValidationException("order must be asc or desc");
+    }
+
+    private static String normalizeQuery(String query) {
+        if (query == null || query.isBlank()) {
+            return null;
+        }
+        String trimmed = query.trim();
+        if (trimmed.length() > 100) {
+            throw new ValidationException("Query must be at most 100 characters");
+        }
+        return trimmed;
+    }
+
+    // 最近一小時的用戶行為統計（記憶體中的彙總）
+    public Map<String, Object> getActivityAnalytics(int limit) {
+        return activityRollup.getAnalytics(limit);
+    }
+
+    // 已保存的每小時用戶行為統計
+    public Map<String, Object> getActivityHistory(int hours, int limit) {
+        return activityRollup.getHistory(hours, limit);
+    }
+
+    // 取得上游（CoinGecko）呼叫統計
+    public Map<String, Object> getUpstreamStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("http", upstreamHttpClient.getStats());
+        stats.put("circuitBreaker", upstreamCircuitBreaker.getStats());
+        stats.put("quota", upstreamQuotaGovernor.getStats());
+        stats.put("coalescer", upstreamRequestCoalescer.getStats());
+        stats.put("refreshAhead", marketDataRefreshScheduler.getStats());
+        stats.put("marketSnapshot", marketSnapshotService.getStats());
+        stats.put("diskCache", diskPayloadStore.getStats());
+        stats.put("marketChart", marketChartService.getStats());
+        stats.put("candles", candleService.getStats());
+        stats.put("priceAlerts", priceAlertEngine.getStats());
+        stats.put("marketStream", marketStreamService.getStats());
+        stats.put("marketChanges", marketChangeLog.getStats());
+        stats.put("compare", comparisonService.getStats());
+        stats.put("coinCatalog", coinCatalogService.getStats());
+        stats.put("fx", fxRateService.getStats());
+        stats.put("favoriteLeaderboard", favoriteLeaderboard.getStats());
+        stats.put("adminStats", adminStatsMaterializer.getStats());
+        stats.put("userActivities", userActivityRecorder.getStats());
+        stats.put("activityRollup", activityRollup.getStats());
+        stats.put("jwtPrincipals", jwtPrincipalCache.getStats());
+        return stats;
+    }
 }
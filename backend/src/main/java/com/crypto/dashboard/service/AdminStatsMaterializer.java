@@ -0,0 +1,255 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.dto.response.AdminDailyStatsDTO;
+import com.crypto.dashboard.event.UserLoggedInEvent;
+import com.crypto.dashboard.event.UserRegisteredEvent;
+import com.crypto.dashboard.exception.ValidationException;
+import com.crypto.dashboard.repository.AdminDailyStatsRepository;
+import com.crypto.dashboard.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 管理後台統計（物化）
+ * 作用：總用戶數、7 天內活躍用戶數改由記憶體中的計數提供，不再每次載入後台都 count 整張 users；
+ *      另外每天一列寫入 admin_daily_stats（註冊人數、當天活躍人數、總數），供趨勢圖使用
+ *
+ * 活躍用戶以「最後登入日期」分組計數：登入時把該用戶從舊日期移到今天，
+ * 7 天內活躍 = 最近 7 個日曆天（含今天）的計數總和；今天的計數同時就是今天的不重複登入人數
+ *
+ * - 註冊、登入在交易提交後依事件增量更新
+ * - 啟動時與每天凌晨由 users 重新計算（安全網，修正漏掉或重複的事件）
+ * - 每分鐘把今天的數字寫入資料表；跨日時先保存前一天的最終數字，寫入失敗的下一次再試
+ */
+@Component
+@RequiredArgsConstructor
+public class AdminStatsMaterializer {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminStatsMaterializer.class);
+
+    public static final int ACTIVE_DAYS = 7;
+    public static final int MAX_HISTORY_DAYS = 365;
+
+    private final AdminDailyStatsRepository statsRepository;
+    private final UserRepository userRepository;
+    private final FavoriteLeaderboard favoriteLeaderboard;
+
+    // 以下欄位由 this 同步
+    private LocalDate today = LocalDate.now();
+    private long totalUsers;
+    private long signupsToday;
+    private final TreeMap<LocalDate, Long> lastLoginDays = new TreeMap<>();  // 最後登入日期 → 用戶數
+    private final Deque<AdminDailyStatsDTO> unflushed = new ArrayDeque<>();  // 已結束、尚未寫入的日子
+
+    // 統計數據
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong recomputes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        recompute();
+        log.info("Admin stats loaded: {} users, {} active in {} days", getTotalUsers(), getActiveUsers(), ACTIVE_DAYS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserRegistered(UserRegisteredEvent event) {
+        events.incrementAndGet();
+        synchronized (this) {
+            roll();
+            totalUsers++;
+            if (event.joinedAt().toLocalDate().equals(today)) {
+                signupsToday++;
+            }
+            moveLogin(null, event.joinedAt());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserLoggedIn(UserLoggedInEvent event) {
+        events.incrementAndGet();
+        synchronized (this) {
+            roll();
+            moveLogin(event.previousLoginAt(), event.loginAt());
+        }
+    }
+
+    /**
+     * 把用戶從舊的最後登入日期移到新的日期（呼叫端持有鎖）
+     */
+    private void moveLogin(LocalDateTime previous, LocalDateTime current) {
+        if (previous != null) {
+            LocalDate day = previous.toLocalDate();
+            Long count = lastLoginDays.get(day);
+            if (count != null) {
+                if (count <= 1) {
+                    lastLoginDays.remove(day);
+                } else {
+                    lastLoginDays.put(day, count - 1);
+                }
+            }
+        }
+        lastLoginDays.merge(current.toLocalDate(), 1L, Long::sum);
+    }
+
+    /**
+     * 跨日處理（呼叫端持有鎖）：在套用新一天的任何異動之前保存前一天的最終數字
+     */
+    private void roll() {
+        LocalDate now = LocalDate.now();
+        if (now.equals(today)) {
+            return;
+        }
+        unflushed.addLast(row(today));
+        today = now;
+        signupsToday = 0;
+        lastLoginDays.headMap(today.minusDays(ACTIVE_DAYS - 1)).clear();
+    }
+
+    private AdminDailyStatsDTO row(LocalDate day) {
+        return new AdminDailyStatsDTO(day, signupsToday, lastLoginDays.getOrDefault(day, 0L), totalUsers,
+                favoriteLeaderboard.getTotalFavorites());
+    }
+
+    /**
+     * 寫入已結束的日子與今天目前的數字
+     */
+    @Scheduled(fixedDelayString = "${admin.stats.flush-ms:60000}", initialDelayString = "${admin.stats.flush-ms:60000}")
+    public void flush() {
+        List<AdminDailyStatsDTO> finished;
+        AdminDailyStatsDTO current;
+        synchronized (this) {
+            roll();
+            finished = new ArrayList<>(unflushed);
+            unflushed.clear();
+            current = row(today);
+        }
+        for (int i = 0; i < finished.size(); i++) {
+            try {
+                statsRepository.upsert(finished.get(i));
+            } catch (Exception e) {
+                failedFlushes.incrementAndGet();
+                log.warn("Failed to write admin daily stats for {}: {}", finished.get(i).getDate(), e.getMessage());
+                synchronized (this) {
+                    List<AdminDailyStatsDTO> retry = finished.subList(i, finished.size());
+                    for (int j = retry.size() - 1; j >= 0; j--) {
+                        unflushed.addFirst(retry.get(j));
+                    }
+                }
+                return;
+            }
+        }
+        try {
+            statsRepository.upsert(current);
+        } catch (Exception e) {
+            failedFlushes.incrementAndGet();
+            log.warn("Failed to write admin daily stats for {}: {}", current.getDate(), e.getMessage());
+        }
+    }
+
+    /**
+     * 由 users 重新計算（總用戶數、最近 7 天的最後登入分布、昨天與今天的註冊人數）
+     * 查詢與同時提交的事件之間可能短暫不一致，下一次重新計算會修正
+     */
+    @Scheduled(cron = "${admin.stats.recompute-cron:0 10 0 * * *}")
+    public void recompute() {
+        flush();  // 先保存跨日前的數字，避免之後覆寫重新計算的結果
+        LocalDate now = LocalDate.now();
+        LocalDate yesterday = now.minusDays(1);
+        try {
+            long users = userRepository.count();
+            Map<LocalDate, Long> logins = statsRepository.countByLastLoginDate(now.minusDays(ACTIVE_DAYS - 1).atStartOfDay());
+            Map<LocalDate, Long> signups = statsRepository.countByJoinDate(yesterday.atStartOfDay());
+
+            synchronized (this) {
+                roll();
+                totalUsers = users;
+                lastLoginDays.clear();
+                lastLoginDays.putAll(logins);
+                signupsToday = signups.getOrDefault(today, 0L);
+            }
+            statsRepository.upsertSignups(yesterday, signups.getOrDefault(yesterday, 0L));
+            recomputes.incrementAndGet();
+        } catch (Exception e) {
+            log.warn("Admin stats recompute failed: {}", e.getMessage());
+        }
+    }
+
+    // ========== 查詢 ==========
+
+    public synchronized long getTotalUsers() {
+        return totalUsers;
+    }
+
+    /**
+     * 最近 7 個日曆天（含今天）登入過的用戶數
+     */
+    public synchronized long getActiveUsers() {
+        roll();
+        long active = 0;
+        for (long count : lastLoginDays.tailMap(today.minusDays(ACTIVE_DAYS - 1)).values()) {
+            active += count;
+        }
+        return active;
+    }
+
+    /**
+     * 最近 days 天的每日統計（由舊到新；今天與尚未寫入的日子取記憶體中的數字）
+     */
+    public List<AdminDailyStatsDTO> getHistory(int days) {
+        if (days < 1 || days > MAX_HISTORY_DAYS) {
+            throw new ValidationException("days must be between 1 and " + MAX_HISTORY_DAYS);
+        }
+        List<AdminDailyStatsDTO> pending;
+        AdminDailyStatsDTO current;
+        synchronized (this) {
+            roll();
+            pending = new ArrayList<>(unflushed);
+            current = row(today);
+        }
+        LocalDate from = current.getDate().minusDays(days - 1);
+        TreeMap<LocalDate, AdminDailyStatsDTO> byDate = new TreeMap<>();
+        for (AdminDailyStatsDTO stats : statsRepository.findFrom(from)) {
+            byDate.put(stats.getDate(), stats);
+        }
+        for (AdminDailyStatsDTO stats : pending) {
+            if (!stats.getDate().isBefore(from)) {
+                byDate.put(stats.getDate(), stats);
+            }
+        }
+        byDate.put(current.getDate(), current);
+        return new ArrayList<>(byDate.values());
+    }
+
+    /**
+     * 取得統計物化狀態（供管理員監控使用）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("unflushedDays", unflushed.size());
+        }
+        stats.put("events", events.get());
+        stats.put("recomputes", recomputes.get());
+        stats.put("failedFlushes", failedFlushes.get());
+        return stats;
+    }
+}
@@ -5,12 +5,16 @@ import com.crypto.dashboard.dto.request.RegisterRequest;
 import com.crypto.dashboard.dto.response.AuthResponse;
 import com.crypto.dashboard.entity.AuthToken;
 import com.crypto.dashboard.entity.User;
+import com.crypto.dashboard.event.UserLoggedInEvent;
+import com.crypto.dashboard.event.UserRegisteredEvent;
 import com.crypto.dashboard.exception.InvalidCredentialsException;
 import com.crypto.dashboard.exception.ValidationException;
 import com.crypto.dashboard.repository.AuthTokenRepository;
 import com.crypto.dashboard.repository.UserRepository;
+import com.crypto.dashboard.util.JwtPrincipalCache;
 import com.crypto.dashboard.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,6 +33,8 @@ public class AuthService {
     private final AuthTokenRepository authTokenRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final JwtPrincipalCache principalCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public AuthResponse register(RegisterRequest request) {
@@ -45,10 +51,12 @@ public class AuthService {
         user.setPasswordHash(passwordEncoder.encode(request.getPassword()));
         user.setRole(User.Role.user);
         user.setStatus(User.Status.active);
-        user.setJoinDate(LocalDateTime.now());
-        user.setLastLoginAt(LocalDateTime.now()); // 註冊時設定登入時間（註冊等於自動登入）
+        LocalDateTime now = LocalDateTime.now();
+        user.setJoinDate(now);
+        user.setLastLoginAt(now); // 註冊時設定登入時間（註冊等於自動登入）
 
         user = userRepository.save(user);
+        eventPublisher.publishEvent(new UserRegisteredEvent(user.getId(), now));
 
         String token = issueToken(user);
         return new AuthResponse(token, toSafeUser(user));
@@ -65,8 +73,10 @@ public class AuthService {
             throw new InvalidCredentialsException("Invalid email or password");
         }
 
+        LocalDateTime previousLoginAt = user.getLastLoginAt();
         user.setLastLoginAt(LocalDateTime.now());
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserLoggedInEvent(user.getId(), previousLoginAt, user.getLastLoginAt()));
 
         // remove old tokens for this user
         authTokenRepository.deleteByUser_Id(user.getId());
@@ -98,6 +108,7 @@ public class AuthService {
     @Transactional
     public void logout(String token) {
         authTokenRepository.deleteByToken(token);
+        principalCache.invalidate(token);
     }
 
     private User toSafeUser(User user) {
@@ -0,0 +1,129 @@
+package com.crypto.dashboard.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 預先編碼的 JSON 回應內容（不可變）
+ * 作用：上游資料只在寫入快取時編碼一次（UTF-8 原文 + gzip），
+ *      之後每次命中都直接寫出位元組，並以內容雜湊作為強 ETag 支援 304 Not Modified
+ */
+public final class CachedPayload {
+
+    private static final int ETAG_HASH_BYTES = 16;
+
+    private final byte[] identity;
+    private final byte[] gzip;
+    private final String etag;
+    private final long createdAt;
+    private final boolean stale;
+
+    private CachedPayload(byte[] identity, byte[] gzip, String etag, long createdAt, boolean stale) {
+        this.identity = identity;
+        this.gzip = gzip;
+        this.etag = etag;
+        this.createdAt = createdAt;
+        this.stale = stale;
+    }
+
+    public static CachedPayload of(String json) {
+        return of(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CachedPayload of(byte[] json) {
+        return of(json, System.currentTimeMillis());
+    }
+
+    /**
+     * 還原先前保存的內容（保留原本的取得時間）
+     */
+    public static CachedPayload of(byte[] json, long createdAt) {
+        return new CachedPayload(json, gzip(json), etag(json), createdAt, false);
+    }
+
+    /**
+     * UTF-8 原文（呼叫端不可修改）
+     */
+    public byte[] getIdentity() {
+        return identity;
+    }
+
+    /**
+     * gzip 壓縮後的內容（呼叫端不可修改）
+     */
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    /**
+     * 強 ETag（含雙引號），例如 "q1w2e3..."；這是原文（identity）的 ETag
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * gzip 版本的 ETag：同一份內容的不同 content-coding 必須使用不同的強 ETag（RFC 9110 8.8.3），
+     * 避免共用快取拿一種編碼的位元組回應另一種編碼的驗證
+     * @param etag 原文的 ETag（含雙引號）
+     */
+    public static String gzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gz\"";
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * 是否為上游失敗時的備援舊資料
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * 標記為舊資料的副本（共用同一份位元組，不重新編碼）
+     */
+    public CachedPayload asStale() {
+        return stale ? this : new CachedPayload(identity, gzip, etag, createdAt, true);
+    }
+
+    /**
+     * 佔用的記憶體（位元組，供快取以容量而非筆數限制大小）
+     */
+    public int weight() {
+        return identity.length + gzip.length + etag.length() + 64;
+    }
+
+    public String asString() {
+        return new String(identity, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String etag(byte[] data) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(data);
+            byte[] prefix = new byte[ETAG_HASH_BYTES];
+            System.arraycopy(hash, 0, prefix, 0, ETAG_HASH_BYTES);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(prefix) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
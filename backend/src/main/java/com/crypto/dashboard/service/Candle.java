@@ -0,0 +1,9 @@
+package com.crypto.dashboard.service;
+
+/**
+ * 一根 K 線
+ * volume 為 K 線收盤時 CoinGecko 回報的 24 小時滾動成交量（快照只有這個數值，無法得到區間成交量）
+ */
+public record Candle(String coinId, CandleTimeframe timeframe, long openTime,
+                     double open, double high, double low, double close, double volume) {
+}
@@ -0,0 +1,281 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.event.MarketSnapshotUpdatedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * K 線彙總器
+ * 作用：每次市場快照更新時，把每個幣種的價格當作一個 tick 併入 1m K 線；
+ *      1m 收盤後併入 5m，5m 收盤後併入 1h，1h 收盤後併入 1d（逐層 roll-up）
+ *
+ * 尚未收盤的 K 線以「每個週期一組原始型別陣列、每個幣種一個欄位（slot）」保存；
+ * 收盤的 K 線放進待寫入佇列，由 CandleService 批次寫入 MySQL
+ *
+ * - 不在這次快照中的幣種（掉出前 N 大或價格為 null），所在區間已經過去的 K 線照樣收盤，不會永遠停在未收盤
+ * - 關閉時由 CandleService 把未收盤的 K 線當作部分資料寫入（upsert 保留先寫入的開盤價並合併高低價），
+ *   重啟後同一根 K 線的其餘部分寫入時會合併上去
+ */
+@Component
+public class CandleAggregator {
+
+    private static final CandleTimeframe[] TIMEFRAMES = CandleTimeframe.values();
+
+    /**
+     * 待寫入佇列上限（資料庫無法寫入時丟棄最舊的）
+     */
+    @Value("${market.candles.max-pending:200000}")
+    private int maxPending;
+
+    // 以下欄位由 this 同步保護
+    private final Map<String, Integer> slots = new HashMap<>();
+    private String[] coinIds = new String[0];
+    private int coinCount;
+    private final OpenCandles[] open = new OpenCandles[TIMEFRAMES.length];
+    private final ArrayDeque<Candle> pending = new ArrayDeque<>();
+    private long lastTick;
+    private long droppedCandles;
+
+    public CandleAggregator() {
+        for (int i = 0; i < open.length; i++) {
+            open[i] = new OpenCandles(0);
+        }
+    }
+
+    @EventListener
+    public void onSnapshotUpdated(MarketSnapshotUpdatedEvent event) {
+        MarketSnapshot snapshot = event.snapshot();
+        long timestamp = snapshot.getCreatedAt();
+        synchronized (this) {
+            boolean[] ticked = new boolean[coinCount + snapshot.size()];
+            for (int row = 0; row < snapshot.size(); row++) {
+                double price = snapshot.price(row);
+                if (Double.isNaN(price)) {
+                    continue;
+                }
+                int slot = slotFor(snapshot.id(row));
+                fold(0, slot, TIMEFRAMES[0].bucket(timestamp), price, price, price, price, snapshot.volume(row));
+                ticked[slot] = true;
+            }
+            for (int slot = 0; slot < coinCount; slot++) {
+                if (!ticked[slot]) {
+                    closePassed(slot, timestamp);
+                }
+            }
+            lastTick = timestamp;
+        }
+    }
+
+    /**
+     * 沒有新價格的幣種：區間已經過去的 K 線收盤（由小到大，收盤的併入上一層後再檢查上一層）
+     */
+    private void closePassed(int slot, long time) {
+        for (int level = 0; level < TIMEFRAMES.length; level++) {
+            OpenCandles candles = open[level];
+            if (candles.start[slot] == 0 || TIMEFRAMES[level].bucket(time) <= candles.start[slot]) {
+                continue;
+            }
+            Candle finished = candles.toCandle(coinIds[slot], TIMEFRAMES[level], slot);
+            enqueue(finished);
+            candles.start[slot] = 0;
+            if (level + 1 < TIMEFRAMES.length) {
+                fold(level + 1, slot, finished.openTime(), finished.open(), finished.high(),
+                        finished.low(), finished.close(), finished.volume());
+            }
+        }
+    }
+
+    /**
+     * 把一根（較小週期的）K 線併入第 level 層
+     * 所在區間與目前未收盤的 K 線不同時，先把舊的收盤並往上一層彙總
+     */
+    private void fold(int level, int slot, long time, double o, double h, double l, double c, double v) {
+        CandleTimeframe timeframe = TIMEFRAMES[level];
+        OpenCandles candles = open[level];
+        long bucket = timeframe.bucket(time);
+
+        if (candles.start[slot] != 0 && candles.start[slot] != bucket) {
+            if (bucket < candles.start[slot]) {
+                return;  // 時間倒退（不應發生），忽略
+            }
+            Candle finished = candles.toCandle(coinIds[slot], timeframe, slot);
+            enqueue(finished);
+            candles.start[slot] = 0;
+            if (level + 1 < TIMEFRAMES.length) {
+                fold(level + 1, slot, finished.openTime(), finished.open(), finished.high(),
+                        finished.low(), finished.close(), finished.volume());
+            }
+        }
+
+        if (candles.start[slot] == 0) {
+            candles.start[slot] = bucket;
+            candles.open[slot] = o;
+            candles.high[slot] = h;
+            candles.low[slot] = l;
+        } else {
+            candles.high[slot] = Math.max(candles.high[slot], h);
+            candles.low[slot] = Math.min(candles.low[slot], l);
+        }
+        candles.close[slot] = c;
+        candles.volume[slot] = v;
+    }
+
+    private void enqueue(Candle candle) {
+        if (pending.size() >= maxPending) {
+            pending.pollFirst();
+            droppedCandles++;
+        }
+        pending.addLast(candle);
+    }
+
+    private int slotFor(String coinId) {
+        Integer slot = slots.get(coinId);
+        if (slot != null) {
+            return slot;
+        }
+        int next = coinCount++;
+        if (next >= coinIds.length) {
+            int capacity = Math.max(64, next * 2);
+            coinIds = Arrays.copyOf(coinIds, capacity);
+            for (OpenCandles candles : open) {
+                candles.grow(capacity);
+            }
+        }
+        coinIds[next] = coinId;
+        slots.put(coinId, next);
+        return next;
+    }
+
+    /**
+     * 取出所有待寫入的已收盤 K 線
+     */
+    public synchronized List<Candle> drainFinished() {
+        List<Candle> drained = new ArrayList<>(pending);
+        pending.clear();
+        return drained;
+    }
+
+    /**
+     * 寫入失敗時放回佇列，下次再試
+     */
+    public synchronized void requeue(List<Candle> candles) {
+        // 由新到舊放回佇列前端，空間不足時捨棄最舊的
+        int kept = 0;
+        for (int i = candles.size() - 1; i >= 0 && pending.size() < maxPending; i--) {
+            pending.addFirst(candles.get(i));
+            kept++;
+        }
+        droppedCandles += candles.size() - kept;
+    }
+
+    /**
+     * 取得尚未寫入資料庫的 K 線（已收盤但還在佇列中，加上目前這一根未收盤的）
+     * 未收盤的 K 線由各層尚未往上彙總的部分合併而成
+     */
+    public synchronized List<Candle> unflushed(String coinId, CandleTimeframe timeframe) {
+        Integer slot = slots.get(coinId);
+        if (slot == null) {
+            return List.of();
+        }
+        List<Candle> result = new ArrayList<>();
+        for (Candle candle : pending) {
+            if (candle.timeframe() == timeframe && candle.coinId().equals(coinId)) {
+                result.add(candle);
+            }
+        }
+        Candle current = current(slot, timeframe);
+        if (current != null) {
+            result.add(current);
+        }
+        return result;
+    }
+
+    private Candle current(int slot, CandleTimeframe timeframe) {
+        long bucket = timeframe.bucket(lastTick);
+        Candle merged = null;
+        // 由大到小：較大週期未收盤的部分是較早的資料，較小週期是最新的資料
+        for (int level = timeframe.ordinal(); level >= 0; level--) {
+            OpenCandles candles = open[level];
+            if (candles.start[slot] == 0 || timeframe.bucket(candles.start[slot]) != bucket) {
+                continue;
+            }
+            Candle part = candles.toCandle(coinIds[slot], timeframe, slot);
+            merged = merged == null
+                    ? new Candle(part.coinId(), timeframe, bucket, part.open(), part.high(), part.low(), part.close(), part.volume())
+                    : new Candle(merged.coinId(), timeframe, bucket, merged.open(),
+                            Math.max(merged.high(), part.high()), Math.min(merged.low(), part.low()),
+                            part.close(), part.volume());
+        }
+        return merged;
+    }
+
+    /**
+     * 所有幣種、所有週期目前未收盤的 K 線（關閉前當作部分資料寫入）
+     */
+    public synchronized List<Candle> openCandles() {
+        List<Candle> result = new ArrayList<>();
+        for (int slot = 0; slot < coinCount; slot++) {
+            for (CandleTimeframe timeframe : TIMEFRAMES) {
+                Candle current = current(slot, timeframe);
+                if (current != null) {
+                    result.add(current);
+                }
+            }
+        }
+        return result;
+    }
+
+    public synchronized int trackedCoins() {
+        return coinCount;
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    public synchronized long droppedCount() {
+        return droppedCandles;
+    }
+
+    /**
+     * 某一週期所有幣種未收盤的 K 線（欄位式，start = 0 表示沒有）
+     */
+    private static final class OpenCandles {
+        long[] start;
+        double[] open;
+        double[] high;
+        double[] low;
+        double[] close;
+        double[] volume;
+
+        OpenCandles(int capacity) {
+            start = new long[capacity];
+            open = new double[capacity];
+            high = new double[capacity];
+            low = new double[capacity];
+            close = new double[capacity];
+            volume = new double[capacity];
+        }
+
+        void grow(int capacity) {
+            start = Arrays.copyOf(start, capacity);
+            open = Arrays.copyOf(open, capacity);
+            high = Arrays.copyOf(high, capacity);
+            low = Arrays.copyOf(low, capacity);
+            close = Arrays.copyOf(close, capacity);
+            volume = Arrays.copyOf(volume, capacity);
+        }
+
+        Candle toCandle(String coinId, CandleTimeframe timeframe, int slot) {
+            return new Candle(coinId, timeframe, start[slot], open[slot], high[slot], low[slot], close[slot], volume[slot]);
+        }
+    }
+}
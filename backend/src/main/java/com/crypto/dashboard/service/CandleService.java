@@ -0,0 +1,171 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.exception.ValidationException;
+import com.crypto.dashboard.repository.CoinCandleRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * K 線服務
+ * - 定期把 CandleAggregator 已收盤的 K 線批次寫入 coin_candles
+ * - 每天清除超過保存期限的小週期 K 線（1d 永久保存）
+ * - 查詢 K 線：資料庫 + 尚未寫入的部分 + 目前未收盤的一根，完全不呼叫 CoinGecko
+ */
+@Service
+@RequiredArgsConstructor
+public class CandleService {
+
+    private static final Logger log = LoggerFactory.getLogger(CandleService.class);
+
+    public static final int DEFAULT_LIMIT = 300;
+    public static final int MAX_LIMIT = 1000;
+
+    private final CandleAggregator aggregator;
+    private final CoinCandleRepository candleRepository;
+
+    @Value("${market.candles.batch-size:500}")
+    private int batchSize;
+
+    @Value("${market.candles.retention.1m-days:2}")
+    private int oneMinuteRetentionDays;
+
+    @Value("${market.candles.retention.5m-days:14}")
+    private int fiveMinutesRetentionDays;
+
+    @Value("${market.candles.retention.1h-days:180}")
+    private int oneHourRetentionDays;
+
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+
+    @Scheduled(fixedDelayString = "${market.candles.flush-interval-ms:30000}",
+               initialDelayString = "${market.candles.flush-interval-ms:30000}")
+    public void flush() {
+        List<Candle> candles = aggregator.drainFinished();
+        if (candles.isEmpty()) {
+            return;
+        }
+        try {
+            candleRepository.upsertAll(candles, batchSize);
+            flushed.addAndGet(candles.size());
+        } catch (Exception e) {
+            failedFlushes.incrementAndGet();
+            aggregator.requeue(candles);
+            log.warn("Failed to flush {} candles: {}", candles.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 關閉前寫入已收盤的 K 線，以及未收盤 K 線目前為止的部分
+     * （重啟後記憶體中的 K 線從第一個新價格開始，寫入時與這裡的部分資料合併，開盤價與高低價不會遺失）
+     */
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+        List<Candle> open = aggregator.openCandles();
+        if (open.isEmpty()) {
+            return;
+        }
+        try {
+            candleRepository.upsertAll(open, batchSize);
+            log.info("Saved {} open candles before shutdown", open.size());
+        } catch (Exception e) {
+            log.warn("Failed to save {} open candles: {}", open.size(), e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${market.candles.prune-cron:0 30 3 * * *}")
+    public void prune() {
+        long now = System.currentTimeMillis();
+        int deleted = candleRepository.deleteOlderThan(CandleTimeframe.ONE_MINUTE, now - TimeUnit.DAYS.toMillis(oneMinuteRetentionDays))
+                + candleRepository.deleteOlderThan(CandleTimeframe.FIVE_MINUTES, now - TimeUnit.DAYS.toMillis(fiveMinutesRetentionDays))
+                + candleRepository.deleteOlderThan(CandleTimeframe.ONE_HOUR, now - TimeUnit.DAYS.toMillis(oneHourRetentionDays));
+        log.info("Pruned {} expired candles", deleted);
+    }
+
+    /**
+     * 查詢 K 線（依時間由舊到新）
+     * @param interval 1m / 5m / 1h / 1d
+     * @param from 起始時間（epoch ms，可為 null：依 limit 往回推）
+     * @param to 結束時間（epoch ms，可為 null：現在）
+     * @param limit 最多幾根（取區間內最新的）
+     */
+    public CachedPayload getCandles(String coinId, String interval, Long from, Long to, Integer limit) {
+        CandleTimeframe timeframe = CandleTimeframe.fromCode(interval);
+        int size = limit == null ? DEFAULT_LIMIT : limit;
+        if (size < 1 || size > MAX_LIMIT) {
+            throw new ValidationException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        long end = to == null ? System.currentTimeMillis() : to;
+        long start = from == null ? end - size * timeframe.getMillis() : from;
+        if (start > end) {
+            throw new ValidationException("from must not be after to");
+        }
+
+        // 依開始時間合併；資料庫已有同一根時（例如重啟前寫入的部分 K 線）與寫入時的 upsert 相同：
+        // 保留資料庫的開盤價、合併高低價，收盤價與成交量取較新的記憶體資料
+        TreeMap<Long, Candle> merged = new TreeMap<>();
+        for (Candle candle : candleRepository.findLatest(coinId, timeframe, start, end, size)) {
+            merged.put(candle.openTime(), candle);
+        }
+        for (Candle candle : aggregator.unflushed(coinId, timeframe)) {
+            if (candle.openTime() >= start && candle.openTime() <= end) {
+                merged.merge(candle.openTime(), candle, (stored, latest) -> new Candle(stored.coinId(), timeframe,
+                        stored.openTime(), stored.open(), Math.max(stored.high(), latest.high()),
+                        Math.min(stored.low(), latest.low()), latest.close(), latest.volume()));
+            }
+        }
+        while (merged.size() > size) {
+            merged.pollFirstEntry();
+        }
+        return CachedPayload.of(toJson(merged.values()));
+    }
+
+    /**
+     * 輸出格式：[[openTime, open, high, low, close, volume24h], ...]
+     */
+    private static String toJson(Iterable<Candle> candles) {
+        StringBuilder json = new StringBuilder(4096);
+        json.append('[');
+        boolean first = true;
+        for (Candle candle : candles) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append('[').append(candle.openTime())
+                    .append(',').append(candle.open())
+                    .append(',').append(candle.high())
+                    .append(',').append(candle.low())
+                    .append(',').append(candle.close())
+                    .append(',').append(Double.isNaN(candle.volume()) ? "null" : String.valueOf(candle.volume()))
+                    .append(']');
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * 取得 K 線統計（供管理員監控使用）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedCoins", aggregator.trackedCoins());
+        stats.put("pending", aggregator.pendingCount());
+        stats.put("dropped", aggregator.droppedCount());
+        stats.put("flushed", flushed.get());
+        stats.put("failedFlushes", failedFlushes.get());
+        return stats;
+    }
+}
@@ -0,0 +1,45 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.exception.ValidationException;
+
+/**
+ * K 線週期（由小到大排列，較大的週期由前一個週期彙總而來）
+ */
+public enum CandleTimeframe {
+    ONE_MINUTE("1m", 60_000L),
+    FIVE_MINUTES("5m", 5 * 60_000L),
+    ONE_HOUR("1h", 60 * 60_000L),
+    ONE_DAY("1d", 24 * 60 * 60_000L);
+
+    private final String code;
+    private final long millis;
+
+    CandleTimeframe(String code, long millis) {
+        this.code = code;
+        this.millis = millis;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * 時間戳所在 K 線的開始時間（UTC 對齊）
+     */
+    public long bucket(long timestamp) {
+        return Math.floorDiv(timestamp, millis) * millis;
+    }
+
+    public static CandleTimeframe fromCode(String code) {
+        for (CandleTimeframe timeframe : values()) {
+            if (timeframe.code.equals(code)) {
+                return timeframe;
+            }
+        }
+        throw new ValidationException("interval must be one of 1m, 5m, 1h, 1d");
+    }
+}
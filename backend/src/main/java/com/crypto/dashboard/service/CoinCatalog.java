@@ -0,0 +1,232 @@
+package com.crypto.dashboard.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * 幣種目錄索引（不可變，整份替換）
+ *
+ * - 前綴索引：所有搜尋詞（代號、id、名稱、名稱中的每個單字）排序後存成平行陣列，
+ *   以二分搜尋找到起點後往後掃描，相當於攤平的 trie
+ * - 模糊索引：名稱與代號的三字元組（trigram）→ 幣種編號的 posting list（int[]），
+ *   前綴結果不足時依共同 trigram 數量補上拼錯或中間字串的結果
+ *
+ * 排序：完全符合 > 前綴 > 模糊，同一級距內市值排名越前面越優先
+ */
+final class CoinCatalog {
+
+    // 符合程度（分數越高越前面）
+    private static final int EXACT_SYMBOL = 6000;
+    private static final int EXACT_NAME = 5000;
+    private static final int PREFIX_SYMBOL = 4000;
+    private static final int PREFIX_NAME = 3000;
+    private static final int PREFIX_WORD = 2000;
+    private static final int FUZZY = 1000;
+    private static final int UNRANKED = 100_000;
+
+    private static final int SYMBOL = 0;
+    private static final int NAME = 1;
+    private static final int WORD = 2;
+
+    private final String[] ids;
+    private final String[] symbols;
+    private final String[] names;
+    private final long builtAt;
+
+    // 前綴索引（依 terms 排序的平行陣列）
+    private final String[] terms;
+    private final int[] termCoins;
+    private final byte[] termKinds;
+
+    // 模糊索引
+    private final Map<Integer, int[]> trigrams;
+    private final int[] trigramCounts;  // 每個幣種有幾個不同的 trigram
+
+    private CoinCatalog(String[] ids, String[] symbols, String[] names, long builtAt) {
+        this.ids = ids;
+        this.symbols = symbols;
+        this.names = names;
+        this.builtAt = builtAt;
+
+        // ========== 前綴索引 ==========
+        List<Object[]> entries = new ArrayList<>(ids.length * 3);
+        for (int i = 0; i < ids.length; i++) {
+            String symbol = normalize(symbols[i]);
+            String name = normalize(names[i]);
+            if (!symbol.isEmpty()) {
+                entries.add(new Object[]{symbol, i, SYMBOL});
+            }
+            if (!name.isEmpty()) {
+                entries.add(new Object[]{name, i, NAME});
+            }
+            if (!ids[i].equals(name)) {
+                entries.add(new Object[]{ids[i], i, NAME});
+            }
+            String[] words = name.split(" ");
+            for (int w = 1; w < words.length; w++) {
+                if (!words[w].isEmpty()) {
+                    entries.add(new Object[]{words[w], i, WORD});
+                }
+            }
+        }
+        entries.sort((a, b) -> ((String) a[0]).compareTo((String) b[0]));
+        this.terms = new String[entries.size()];
+        this.termCoins = new int[entries.size()];
+        this.termKinds = new byte[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            terms[i] = (String) entries.get(i)[0];
+            termCoins[i] = (Integer) entries.get(i)[1];
+            termKinds[i] = ((Integer) entries.get(i)[2]).byteValue();
+        }
+
+        // ========== 模糊索引 ==========
+        Map<Integer, List<Integer>> postings = new HashMap<>();
+        this.trigramCounts = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            int[] grams = trigramsOf(normalize(names[i]) + " " + normalize(symbols[i]));
+            trigramCounts[i] = grams.length;
+            for (int gram : grams) {
+                postings.computeIfAbsent(gram, k -> new ArrayList<>()).add(i);
+            }
+        }
+        this.trigrams = new HashMap<>(postings.size() * 2);
+        postings.forEach((gram, list) -> trigrams.put(gram, list.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * @param builtAt 目錄資料的取得時間（由磁碟還原時為原本的取得時間）
+     */
+    static CoinCatalog build(String[] ids, String[] symbols, String[] names, long builtAt) {
+        return new CoinCatalog(ids, symbols, names, builtAt);
+    }
+
+    /**
+     * 搜尋
+     * @param rankOf 取得市值排名（0 表示無排名）
+     * @return 依分數排序的幣種編號
+     */
+    int[] search(String query, int limit, ToIntFunction<String> rankOf) {
+        String q = normalize(query);
+        if (q.isEmpty()) {
+            return new int[0];
+        }
+        Map<Integer, Integer> scores = new HashMap<>();
+
+        // 前綴：terms 中以 q 開頭的連續區段
+        for (int t = lowerBound(q); t < terms.length && terms[t].startsWith(q); t++) {
+            boolean exact = terms[t].length() == q.length();
+            int score = switch (termKinds[t]) {
+                case SYMBOL -> exact ? EXACT_SYMBOL : PREFIX_SYMBOL;
+                case NAME -> exact ? EXACT_NAME : PREFIX_NAME;
+                default -> PREFIX_WORD;
+            };
+            scores.merge(termCoins[t], score, Math::max);
+        }
+
+        // 模糊：前綴結果不足時，以共同 trigram 比例補上
+        if (scores.size() < limit && q.length() >= 3) {
+            int[] grams = trigramsOf(q);
+            Map<Integer, Integer> hits = new HashMap<>();
+            for (int gram : grams) {
+                int[] coins = trigrams.get(gram);
+                if (coins != null) {
+                    for (int coin : coins) {
+                        hits.merge(coin, 1, Integer::sum);
+                    }
+                }
+            }
+            int minHits = Math.max(1, (grams.length + 1) / 2);
+            hits.forEach((coin, count) -> {
+                if (count >= minHits) {
+                    int similarity = count * 900 / Math.max(grams.length, trigramCounts[coin]);
+                    scores.merge(coin, FUZZY + similarity, Math::max);
+                }
+            });
+        }
+
+        return scores.entrySet().stream()
+                .sorted((a, b) -> {
+                    int byScore = Integer.compare(b.getValue(), a.getValue());
+                    if (byScore != 0) {
+                        return byScore;
+                    }
+                    return Integer.compare(effectiveRank(rankOf, a.getKey()), effectiveRank(rankOf, b.getKey()));
+                })
+                .limit(limit)
+                .mapToInt(Map.Entry::getKey)
+                .toArray();
+    }
+
+    private int effectiveRank(ToIntFunction<String> rankOf, int coin) {
+        int rank = rankOf.applyAsInt(ids[coin]);
+        return rank == 0 ? UNRANKED : rank;
+    }
+
+    private int lowerBound(String q) {
+        int lo = 0;
+        int hi = terms.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (terms[mid].compareTo(q) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    String id(int coin) {
+        return ids[coin];
+    }
+
+    String symbol(int coin) {
+        return symbols[coin];
+    }
+
+    String name(int coin) {
+        return names[coin];
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    long builtAt() {
+        return builtAt;
+    }
+
+    int termCount() {
+        return terms.length;
+    }
+
+    int trigramCount() {
+        return trigrams.size();
+    }
+
+    /**
+     * 小寫、去除前後空白、連續空白合併為一個
+     */
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * 不重複的三字元組（以字串 hashCode 當作 key，碰撞只會多出少數候選）
+     */
+    private static int[] trigramsOf(String text) {
+        if (text.length() < 3) {
+            return new int[0];
+        }
+        int[] grams = new int[text.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = text.substring(i, i + 3).hashCode();
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+}
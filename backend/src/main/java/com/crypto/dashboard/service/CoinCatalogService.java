@@ -0,0 +1,232 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.exception.ExternalApiException;
+import com.crypto.dashboard.exception.ServiceNotReadyException;
+import com.crypto.dashboard.exception.ValidationException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 幣種目錄與搜尋服務（/api/coins/search）
+ * 作用：每天從 CoinGecko /coins/list 取得全部幣種（id、代號、名稱）建立 CoinCatalog 索引，
+ *      搜尋與自動完成完全在本地完成，不再每次按鍵都打上游
+ *
+ * - 啟動時先由磁碟快取還原上一次的目錄，上游被限流時搜尋仍可使用
+ * - 排名取自市場快照（市值前 N 大）；在快照中的幣種直接回傳快照列（含價格），其餘只有基本欄位
+ * - 同一個查詢字串短時間內只計算一次
+ */
+@Service
+@RequiredArgsConstructor
+public class CoinCatalogService {
+
+    private static final Logger log = LoggerFactory.getLogger(CoinCatalogService.class);
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+    public static final int MAX_QUERY_LENGTH = 64;
+
+    private final CoinGeckoClient coinGeckoClient;
+    private final DiskPayloadStore diskStore;
+    private final MarketSnapshotService marketSnapshotService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 目錄多久重新抓一次
+     */
+    @Value("${coins.catalog.refresh-ms:86400000}")
+    private long refreshMillis;
+
+    /**
+     * 啟動時可接受的磁碟目錄最長年齡
+     */
+    @Value("${coins.catalog.max-disk-age-hours:168}")
+    private long maxDiskAgeHours;
+
+    private volatile CoinCatalog catalog;
+    private final Cache<String, CachedPayload> results = Caffeine.newBuilder()
+            .maximumSize(5000)
+            .expireAfterWrite(Duration.ofSeconds(30))  // 結果含快照價格，不宜保存太久
+            .recordStats()
+            .build();
+
+    // 統計數據
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong failedRefreshes = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        CaffeineCacheMetrics.monitor(meterRegistry, results, "coinSearch");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        if (catalog != null) {
+            return;
+        }
+        CachedPayload payload = diskStore.get(MarketDataHotKeys.COINS_CATALOG_KEY, TimeUnit.HOURS.toMillis(maxDiskAgeHours));
+        if (payload != null) {
+            try {
+                install(payload);
+                log.info("Coin catalog restored from disk with {} coins", catalog.size());
+            } catch (IOException e) {
+                log.warn("Failed to restore coin catalog from disk: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 定期檢查：沒有目錄或目錄已超過 refresh-ms 才打上游（失敗時下一次檢查再試）
+     * 啟動時磁碟索引可能還沒還原完成，沒有目錄時先再試一次磁碟
+     */
+    @Scheduled(fixedDelayString = "${coins.catalog.check-interval-ms:600000}",
+               initialDelayString = "${coins.catalog.initial-delay-ms:10000}")
+    public void refreshIfStale() {
+        restore();
+        CoinCatalog current = catalog;
+        if (current != null && System.currentTimeMillis() - current.builtAt() < refreshMillis) {
+            return;
+        }
+        try {
+            install(coinGeckoClient.fetchCoinsCatalog());
+            log.info("Coin catalog refreshed with {} coins", catalog.size());
+        } catch (ExternalApiException | IOException e) {
+            failedRefreshes.incrementAndGet();
+            log.warn("Coin catalog refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private void install(CachedPayload payload) throws IOException {
+        List<String> ids = new ArrayList<>();
+        List<String> symbols = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(payload.getIdentity())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Unexpected coins list response");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String id = null;
+                String symbol = null;
+                String name = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "id" -> id = parser.getValueAsString();
+                        case "symbol" -> symbol = parser.getValueAsString();
+                        case "name" -> name = parser.getValueAsString();
+                        default -> parser.skipChildren();
+                    }
+                }
+                if (id != null && !id.isEmpty()) {
+                    ids.add(id);
+                    symbols.add(symbol == null ? "" : symbol);
+                    names.add(name == null ? id : name);
+                }
+            }
+        }
+        catalog = CoinCatalog.build(ids.toArray(new String[0]), symbols.toArray(new String[0]),
+                names.toArray(new String[0]), payload.getCreatedAt());
+        results.invalidateAll();
+    }
+
+    /**
+     * 搜尋幣種（代號 / 名稱 / id 的前綴，以及拼字相近的模糊比對）
+     * 輸出格式與 /coins/markets 相同；不在市場快照中的幣種只有 id、symbol、name、market_cap_rank
+     */
+    public CachedPayload search(String query, Integer limit) {
+        int size = limit == null ? DEFAULT_LIMIT : limit;
+        if (size < 1 || size > MAX_LIMIT) {
+            throw new ValidationException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        String q = query == null ? "" : query.trim();
+        if (q.length() > MAX_QUERY_LENGTH) {
+            throw new ValidationException("Query must be at most " + MAX_QUERY_LENGTH + " characters");
+        }
+        CoinCatalog current = catalog;
+        if (current == null) {
+            throw new ServiceNotReadyException("Coin catalog is not available yet");
+        }
+        searches.incrementAndGet();
+        return results.get(q.toLowerCase() + "|" + size, k -> CachedPayload.of(toJson(current, q, size)));
+    }
+
+    private byte[] toJson(CoinCatalog current, String q, int size) {
+        MarketSnapshot snapshot = marketSnapshotService.getFreshSnapshot();
+        int[] hits = current.search(q, size, id -> rankOf(snapshot, id));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 + hits.length * 256);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            for (int coin : hits) {
+                int row = snapshot == null ? -1 : snapshot.indexOf(current.id(coin));
+                if (row >= 0) {
+                    // 快照列本身是 JSON 陣列中的一個元素，直接寫出原始位元組
+                    String json = snapshot.rowsAsJson(new int[]{row}, 0, 1);
+                    generator.writeRawValue(json.substring(1, json.length() - 1));
+                    continue;
+                }
+                generator.writeStartObject();
+                generator.writeStringField("id", current.id(coin));
+                generator.writeStringField("symbol", current.symbol(coin));
+                generator.writeStringField("name", current.name(coin));
+                generator.writeNullField("market_cap_rank");
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static int rankOf(MarketSnapshot snapshot, String coinId) {
+        if (snapshot == null) {
+            return 0;
+        }
+        int row = snapshot.indexOf(coinId);
+        return row < 0 ? 0 : snapshot.rank(row);
+    }
+
+    /**
+     * 取得目錄統計（供管理員監控使用）
+     */
+    public Map<String, Object> getStats() {
+        CoinCatalog current = catalog;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("coins", current == null ? 0 : current.size());
+        stats.put("terms", current == null ? 0 : current.termCount());
+        stats.put("trigrams", current == null ? 0 : current.trigramCount());
+        stats.put("ageMillis", current == null ? null : System.currentTimeMillis() - current.builtAt());
+        stats.put("searches", searches.get());
+        stats.put("cachedResults", results.estimatedSize());
+        stats.put("failedRefreshes", failedRefreshes.get());
+        return stats;
+    }
+}
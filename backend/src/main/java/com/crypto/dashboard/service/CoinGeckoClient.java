@@ -0,0 +1,304 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.exception.ExternalApiException;
+import com.crypto.dashboard.exception.UpstreamQuotaExceededException;
+import com.crypto.dashboard.exception.UpstreamStatusException;
+import com.crypto.dashboard.exception.UpstreamUnavailableException;
+import com.crypto.dashboard.util.JsonProjection;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CoinGecko API 客戶端（含 Caffeine 快取，快取內容為預先編碼的 CachedPayload）
+ * get* 方法：快取命中直接回傳，miss 先查本地磁碟快取（L2），仍然沒有才打上游
+ * refresh* 方法：一律打上游並覆寫快取（供背景預先刷新使用，刷新期間讀者仍拿到舊值）
+ */
+@Component
+@RequiredArgsConstructor
+public class CoinGeckoClient {
+
+    /**
+     * /coins/{id} 保留的欄位（前端顯示用到的部分）
+     * 原始回應含多國語言描述、連結、各國貨幣報價等，常達數百 KB；價格類欄位只保留美元
+     */
+    private static final JsonProjection COIN_DETAIL_FIELDS = JsonProjection.of(
+            "id", "symbol", "name", "web_slug", "categories", "image", "genesis_date",
+            "market_cap_rank", "last_updated",
+            "market_data.current_price.usd",
+            "market_data.market_cap.usd",
+            "market_data.fully_diluted_valuation.usd",
+            "market_data.total_volume.usd",
+            "market_data.high_24h.usd",
+            "market_data.low_24h.usd",
+            "market_data.ath.usd",
+            "market_data.ath_date.usd",
+            "market_data.atl.usd",
+            "market_data.atl_date.usd",
+            "market_data.price_change_24h",
+            "market_data.price_change_percentage_24h",
+            "market_data.price_change_percentage_7d",
+            "market_data.price_change_percentage_30d",
+            "market_data.price_change_percentage_1y",
+            "market_data.market_cap_change_24h",
+            "market_data.market_cap_change_percentage_24h",
+            "market_data.market_cap_rank",
+            "market_data.circulating_supply",
+            "market_data.total_supply",
+            "market_data.max_supply",
+            "market_data.last_updated");
+
+    private final UpstreamHttpClient upstreamHttpClient;
+    private final UpstreamRequestCoalescer coalescer;
+    private final MarketDataHotKeys hotKeys;
+    private final UpstreamQuotaGovernor quotaGovernor;
+    private final UpstreamCircuitBreaker circuitBreaker;
+    private final LastKnownGoodStore lastKnownGood;
+    private final DiskPayloadStore diskStore;
+    private final ObjectMapper objectMapper;
+    private final UpstreamMetrics metrics;
+
+    @Value("${coingecko.api.key}")
+    private String apiKey;
+
+    /**
+     * CoinGecko API 位址（測試時可指向本地 stub server）
+     */
+    @Value("${coingecko.api.base-url:https://api.coingecko.com/api/v3}")
+    private String baseUrl;
+
+    /**
+     * 磁碟快取的資料在多久內可以直接當作新資料使用（重啟後該 key 第一次 L1 miss 時）
+     * 不應超過 L1 的 expireAfterWrite：磁碟資料寫進 L1 後還會再保存一個 TTL
+     */
+    @Value("${coingecko.disk-cache.fresh-ms:300000}")
+    private long diskFreshMillis;
+
+    /**
+     * 啟動後已經由磁碟回應過的 key：磁碟只用於暖機，同一個 key 之後的 miss 一律打上游
+     * （只記錄磁碟命中的 key，數量不會超過磁碟快取的 key 數）
+     */
+    private final Set<String> warmedFromDisk = ConcurrentHashMap.newKeySet();
+
+    @Cacheable(value = "coinsList", key = "#page + '-' + #perPage + '-' + #orderBy")
+    public CachedPayload getCoinsList(int page, int perPage, String orderBy) {
+        return fetchCoinsList(page, perPage, orderBy, UpstreamPriority.USER);
+    }
+
+    @CachePut(value = "coinsList", key = "#page + '-' + #perPage + '-' + #orderBy")
+    public CachedPayload refreshCoinsList(int page, int perPage, String orderBy) {
+        return fetchCoinsList(page, perPage, orderBy, UpstreamPriority.BACKGROUND);
+    }
+
+    /**
+     * 抓取市值排行的一頁（不經過快取，供 MarketSnapshotService 使用）
+     */
+    public CachedPayload fetchMarketPage(int page, int perPage) {
+        return fetchCoinsList(page, perPage, "market_cap_desc", UpstreamPriority.BACKGROUND);
+    }
+
+    private CachedPayload fetchCoinsList(int page, int perPage, String orderBy, UpstreamPriority priority) {
+        String url = UriComponentsBuilder.fromHttpUrl(baseUrl + "/coins/markets")
+                .queryParam("vs_currency", "usd")
+                .queryParam("order", orderBy)
+                .queryParam("per_page", perPage)
+                .queryParam("page", page)
+                .queryParam("sparkline", false)
+                .queryParam("x_cg_demo_api_key", apiKey)
+                .toUriString();
+
+        return fetch(MarketDataHotKeys.coinsListKey(page, perPage, orderBy), "/coins/markets", url, priority,
+                "Failed to fetch coins list from CoinGecko");
+    }
+
+    @Cacheable(value = "coinDetail", key = "#coinId")
+    public CachedPayload getCoinDetail(String coinId) {
+        return fetchCoinDetail(coinId, UpstreamPriority.USER);
+    }
+
+    @CachePut(value = "coinDetail", key = "#coinId")
+    public CachedPayload refreshCoinDetail(String coinId) {
+        return fetchCoinDetail(coinId, UpstreamPriority.BACKGROUND);
+    }
+
+    private CachedPayload fetchCoinDetail(String coinId, UpstreamPriority priority) {
+        String url = UriComponentsBuilder.fromHttpUrl(baseUrl + "/coins/" + coinId)
+                .queryParam("localization", false)
+                .queryParam("tickers", false)
+                .queryParam("community_data", false)
+                .queryParam("developer_data", false)
+                .queryParam("x_cg_demo_api_key", apiKey)
+                .toUriString();
+
+        return fetch(MarketDataHotKeys.coinDetailKey(coinId), "/coins/{id}", url, priority,
+                "Failed to fetch coin detail from CoinGecko", COIN_DETAIL_FIELDS);
+    }
+
+    @Cacheable(value = "globalData")
+    public CachedPayload getGlobalData() {
+        return fetchGlobalData(UpstreamPriority.USER);
+    }
+
+    @CachePut(value = "globalData")
+    public CachedPayload refreshGlobalData() {
+        return fetchGlobalData(UpstreamPriority.BACKGROUND);
+    }
+
+    private CachedPayload fetchGlobalData(UpstreamPriority priority) {
+        String url = UriComponentsBuilder.fromHttpUrl(baseUrl + "/global")
+                .queryParam("x_cg_demo_api_key", apiKey)
+                .toUriString();
+
+        return fetch(MarketDataHotKeys.GLOBAL_DATA_KEY, "/global", url, priority,
+                "Failed to fetch global data from CoinGecko");
+    }
+
+    /**
+     * 抓取全部幣種目錄（/coins/list，不經過快取，供 CoinCatalogService 每天刷新使用）
+     */
+    public CachedPayload fetchCoinsCatalog() {
+        String url = UriComponentsBuilder.fromHttpUrl(baseUrl + "/coins/list")
+                .queryParam("x_cg_demo_api_key", apiKey)
+                .toUriString();
+
+        return fetch(MarketDataHotKeys.COINS_CATALOG_KEY, "/coins/list", url, UpstreamPriority.BACKGROUND,
+                "Failed to fetch coins catalog from CoinGecko");
+    }
+
+    /**
+     * 抓取匯率表（/exchange_rates，以 BTC 為基準，不經過快取，供 FxRateService 定期刷新使用）
+     */
+    public CachedPayload fetchExchangeRates() {
+        String url = UriComponentsBuilder.fromHttpUrl(baseUrl + "/exchange_rates")
+                .queryParam("x_cg_demo_api_key", apiKey)
+                .toUriString();
+
+        return fetch(MarketDataHotKeys.EXCHANGE_RATES_KEY, "/exchange_rates", url, UpstreamPriority.BACKGROUND,
+                "Failed to fetch exchange rates from CoinGecko");
+    }
+
+    /**
+     * 抓取價格走勢（/coins/{id}/market_chart，不經過快取，供 MarketChartService 使用）
+     * @param days 往回幾天（CoinGecko 依天數決定資料間隔：1 天內 5 分鐘、90 天內每小時、其餘每天）
+     */
+    public byte[] fetchMarketChart(String coinId, int days) {
+        String url = UriComponentsBuilder.fromHttpUrl(baseUrl + "/coins/" + coinId + "/market_chart")
+                .queryParam("vs_currency", "usd")
+                .queryParam("days", days)
+                .queryParam("x_cg_demo_api_key", apiKey)
+                .toUriString();
+
+        return coalescer.execute("marketChart:" + coinId + ":" + days,
+                () -> call("/coins/{id}/market_chart", url, UpstreamPriority.USER,
+                        "Failed to fetch market chart from CoinGecko"));
+    }
+
+    /**
+     * 抓取指定時間區間的價格走勢（/coins/{id}/market_chart/range，供增量補齊最新資料）
+     * @param fromSeconds 起始時間（Unix 秒）
+     * @param toSeconds 結束時間（Unix 秒）
+     */
+    public byte[] fetchMarketChartRange(String coinId, long fromSeconds, long toSeconds) {
+        String url = UriComponentsBuilder.fromHttpUrl(baseUrl + "/coins/" + coinId + "/market_chart/range")
+                .queryParam("vs_currency", "usd")
+                .queryParam("from", fromSeconds)
+                .queryParam("to", toSeconds)
+                .queryParam("x_cg_demo_api_key", apiKey)
+                .toUriString();
+
+        return coalescer.execute("marketChartRange:" + coinId + ":" + fromSeconds,
+                () -> call("/coins/{id}/market_chart/range", url, UpstreamPriority.USER,
+                        "Failed to fetch market chart from CoinGecko"));
+    }
+
+    private CachedPayload fetch(String key, String endpoint, String url, UpstreamPriority priority,
+                                String errorMessage) {
+        return fetch(key, endpoint, url, priority, errorMessage, null);
+    }
+
+    /**
+     * 呼叫 CoinGecko 並寫入各層快取
+     * 使用者請求在重啟後第一次 miss 時先查磁碟快取（暖機）；之後的 miss 與背景刷新一律打上游
+     * 同一個 key 同時只會有一個請求打到上游
+     * @param endpoint 上游路徑樣板（指標的 endpoint 標籤，不含幣種 id 以免標籤數量無上限）
+     * @param projection 只保留的欄位（null 表示保留完整回應）；各層快取存的都是投影後的內容
+     */
+    private CachedPayload fetch(String key, String endpoint, String url, UpstreamPriority priority,
+                                String errorMessage, JsonProjection projection) {
+        if (priority == UpstreamPriority.USER && !warmedFromDisk.contains(key)) {
+            CachedPayload fromDisk = diskStore.get(key, diskFreshMillis);
+            if (fromDisk != null && warmedFromDisk.add(key)) {
+                // 以磁碟資料原本的取得時間記錄，預先刷新排程依實際資料年齡決定何時以上游資料取代
+                hotKeys.recordFetch(key, fromDisk.getCreatedAt());
+                return fromDisk;
+            }
+        }
+        return coalescer.execute(key, () -> {
+            byte[] body = project(call(endpoint, url, priority, errorMessage), projection, errorMessage);
+            hotKeys.recordFetch(key);  // 記錄快取寫入時間，作為預先刷新的依據
+
+            CachedPayload payload = CachedPayload.of(body);  // 只在寫入快取時編碼一次
+            lastKnownGood.put(key, payload);
+            diskStore.put(key, payload);
+            return payload;
+        });
+    }
+
+    private byte[] project(byte[] body, JsonProjection projection, String errorMessage) {
+        if (projection == null) {
+            return body;
+        }
+        try {
+            return projection.apply(objectMapper.getFactory(), body);
+        } catch (IOException e) {
+            throw new ExternalApiException(errorMessage, e);
+        }
+    }
+
+    /**
+     * 實際送出請求
+     * 斷路器開啟時直接失敗（不佔用額度與執行緒），否則必須先取得呼叫額度才送出請求，結果回報給斷路器
+     * 每次呼叫依結果記錄到 coingecko.requests 指標
+     */
+    private byte[] call(String endpoint, String url, UpstreamPriority priority, String errorMessage) {
+        try {
+            circuitBreaker.acquirePermission();  // 斷路器開啟時丟出 UpstreamUnavailableException
+        } catch (UpstreamUnavailableException e) {
+            metrics.rejected(endpoint, UpstreamMetrics.CIRCUIT_OPEN);
+            throw e;
+        }
+        try {
+            quotaGovernor.acquire(priority);  // 額度不足時丟出 UpstreamQuotaExceededException
+        } catch (UpstreamQuotaExceededException e) {
+            circuitBreaker.onIgnored();
+            metrics.rejected(endpoint, UpstreamMetrics.QUOTA_EXCEEDED);
+            throw e;
+        }
+
+        long start = metrics.start();
+        try {
+            byte[] body = upstreamHttpClient.get(url);
+            circuitBreaker.onSuccess(metrics.finish(endpoint, start, UpstreamMetrics.SUCCESS));
+            return body;
+        } catch (UpstreamStatusException e) {
+            // 4xx（例如幣種不存在）代表上游正常運作，不計入斷路器失敗
+            if (e.isUpstreamFault()) {
+                circuitBreaker.onError(metrics.finish(endpoint, start, UpstreamMetrics.SERVER_ERROR));
+            } else {
+                circuitBreaker.onSuccess(metrics.finish(endpoint, start, UpstreamMetrics.CLIENT_ERROR));
+            }
+            throw new ExternalApiException(errorMessage, e);
+        } catch (Exception e) {
+            circuitBreaker.onError(metrics.finish(endpoint, start, UpstreamMetrics.ERROR));
+            throw new ExternalApiException(errorMessage, e);
+        }
+    }
+}
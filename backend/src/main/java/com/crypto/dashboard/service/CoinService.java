@@ -2,68 +2,65 @@ package com.crypto.dashboard.service;
 
 import com.crypto.dashboard.exception.ExternalApiException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * 幣種服務（CoinController 的入口）
+ * 幣種列表優先由市場快照提供；其餘記錄每個 key 的讀取熱度後交給 CoinGeckoClient（快取 + 上游）處理
+ */
 @Service
 @RequiredArgsConstructor
 public class CoinService {
 
-    private final RestTemplate restTemplate;
-
-    @Value("${coingecko.api.key}")
-    private String apiKey;
+    private final CoinGeckoClient coinGeckoClient;
+    private final MarketDataHotKeys hotKeys;
+    private final MarketSnapshotService marketSnapshotService;
+    private final LastKnownGoodStore lastKnownGood;
 
-    private static final String BASE_URL = "https://api.coingecko.com/api/v3";
-
-    @Cacheable(value = "coinsList", key = "#page + '-' + #perPage + '-' + #orderBy")
-    public String getCoinsList(int page, int perPage, String orderBy) {
-        String url = UriComponentsBuilder.fromHttpUrl(BASE_URL + "/coins/markets")
-                .queryParam("vs_currency", "usd")
-                .queryParam("order", orderBy)
-                .queryParam("per_page", perPage)
-                .queryParam("page", page)
-                .queryParam("sparkline", false)
-                .queryParam("x_cg_demo_api_key", apiKey)
-                .toUriString();
+    public CachedPayload getCoinsList(int page, int perPage, String orderBy) {
+        Optional<CachedPayload> fromSnapshot = marketSnapshotService.getCoinsList(page, perPage, orderBy);
+        if (fromSnapshot.isPresent()) {
+            return fromSnapshot.get();
+        }
 
+        String key = MarketDataHotKeys.coinsListKey(page, perPage, orderBy);
+        hotKeys.recordHit(key);
         try {
-            return restTemplate.getForObject(url, String.class);
-        } catch (Exception e) {
-            throw new ExternalApiException("Failed to fetch coins list from CoinGecko", e);
+            return withFallback(key, () -> coinGeckoClient.getCoinsList(page, perPage, orderBy));
+        } catch (ExternalApiException e) {
+            // 沒有這個 key 的舊資料時，退而求其次用過舊的快照
+            return marketSnapshotService.getStaleCoinsList(page, perPage, orderBy).orElseThrow(() -> e);
         }
     }
 
-    @Cacheable(value = "coinDetail", key = "#coinId")
-    public String getCoinDetail(String coinId) {
-        String url = UriComponentsBuilder.fromHttpUrl(BASE_URL + "/coins/" + coinId)
-                .queryParam("localization", false)
-                .queryParam("tickers", false)
-                .queryParam("community_data", false)
-                .queryParam("developer_data", false)
-                .queryParam("x_cg_demo_api_key", apiKey)
-                .toUriString();
-
-        try {
-            return restTemplate.getForObject(url, String.class);
-        } catch (Exception e) {
-            throw new ExternalApiException("Failed to fetch coin detail from CoinGecko", e);
-        }
+    public CachedPayload getCoinDetail(String coinId) {
+        String key = MarketDataHotKeys.coinDetailKey(coinId);
+        hotKeys.recordHit(key);
+        return withFallback(key, () -> coinGeckoClient.getCoinDetail(coinId));
     }
 
-    @Cacheable(value = "globalData")
-    public String getGlobalData() {
-        String url = UriComponentsBuilder.fromHttpUrl(BASE_URL + "/global")
-                .queryParam("x_cg_demo_api_key", apiKey)
-                .toUriString();
+    public CachedPayload getGlobalData() {
+        String key = MarketDataHotKeys.GLOBAL_DATA_KEY;
+        hotKeys.recordHit(key);
+        return withFallback(key, coinGeckoClient::getGlobalData);
+    }
 
+    /**
+     * 上游無法使用（斷路器開啟、額度用盡、超時、5xx）時，改用最後一次成功取得的資料並標記為舊資料
+     * 沒有舊資料才把錯誤丟給使用者
+     */
+    private CachedPayload withFallback(String key, Supplier<CachedPayload> loader) {
         try {
-            return restTemplate.getForObject(url, String.class);
-        } catch (Exception e) {
-            throw new ExternalApiException("Failed to fetch global data from CoinGecko", e);
+            return loader.get();
+        } catch (ExternalApiException e) {
+            CachedPayload last = lastKnownGood.get(key);
+            if (last == null) {
+                throw e;
+            }
+            return last.asStale();
         }
     }
 }
@@ -0,0 +1,255 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.dto.request.ComparisonRequest;
+import com.crypto.dashboard.dto.response.ComparisonResponse;
+import com.crypto.dashboard.entity.CoinComparison;
+import com.crypto.dashboard.entity.User;
+import com.crypto.dashboard.exception.ExternalApiException;
+import com.crypto.dashboard.exception.ResourceNotFoundException;
+import com.crypto.dashboard.exception.ValidationException;
+import com.crypto.dashboard.repository.CoinComparisonRepository;
+import com.crypto.dashboard.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 幣種比較服務（/api/compare）
+ * 作用：取代前端逐一抓取每個幣種的走勢；後端以有上限的執行緒池平行取得各幣種序列
+ *      （與 /api/coins/{id}/chart 共用 MarketChartService 的快取），對齊時間後計算
+ *      標準化報酬、波動度與兩兩相關係數
+ *
+ * 相同幣種組合 + 天數共用一個 ComparisonWindow：之後的請求只把新出現的時間格併入累加器，
+ * 已儲存的比較（coin_comparisons）也是透過同一份快取取得結果
+ */
+@Service
+@RequiredArgsConstructor
+public class ComparisonService {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long YEAR = 365 * DAY;
+
+    public static final int MIN_COINS = 2;
+    public static final int MIN_WIDTH = 10;
+    public static final int MAX_WIDTH = 2000;
+
+    private final MarketChartService marketChartService;
+    private final CoinComparisonRepository comparisonRepository;
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${compare.max-coins:10}")
+    private int maxCoins;
+
+    @Value("${compare.fetch-threads:4}")
+    private int fetchThreads;
+
+    @Value("${compare.max-windows:500}")
+    private long maxWindows;
+
+    private ExecutorService fetchers;
+    private Cache<String, ComparisonWindow> windows;
+
+    // 統計數據
+    private final LongAdder comparisons = new LongAdder();
+    private final LongAdder windowsBuilt = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        AtomicInteger counter = new AtomicInteger();
+        fetchers = Executors.newFixedThreadPool(fetchThreads, r -> {
+            Thread t = new Thread(r, "compare-fetch-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        windows = Caffeine.newBuilder()
+                .maximumSize(maxWindows)
+                .expireAfterAccess(Duration.ofDays(1))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, windows, "compareWindows");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fetchers.shutdownNow();
+    }
+
+    /**
+     * 比較多個幣種最近 days 天的走勢
+     * @param width 回傳的價格點數上限（統計值一律以完整資料計算）
+     */
+    public ComparisonResponse compare(List<String> coinIds, int days, int width) {
+        List<String> ids = normalize(coinIds);
+        if (width < MIN_WIDTH || width > MAX_WIDTH) {
+            throw new ValidationException("width must be between " + MIN_WIDTH + " and " + MAX_WIDTH);
+        }
+        PriceSeries.Slice[] slices = fetchAll(ids, days);
+
+        long step = MarketChartService.stepFor(days);
+        long from = System.currentTimeMillis() - days * DAY;
+        int capacity = (int) (days * DAY / step) + 2;
+        ComparisonWindow window = windows.get(String.join(",", ids) + ":" + days, k -> {
+            windowsBuilt.increment();
+            return new ComparisonWindow(ids.size(), capacity, step);
+        });
+
+        comparisons.increment();
+        synchronized (window) {
+            window.advance(slices, from);
+            return toResponse(ids, days, step, window, width);
+        }
+    }
+
+    /**
+     * 平行取得各幣種序列（執行緒池大小即為同時向上游要資料的上限）
+     */
+    private PriceSeries.Slice[] fetchAll(List<String> ids, int days) {
+        List<CompletableFuture<PriceSeries.Slice>> futures = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            futures.add(CompletableFuture.supplyAsync(() -> marketChartService.getSlice(id, days), fetchers));
+        }
+        PriceSeries.Slice[] slices = new PriceSeries.Slice[ids.size()];
+        for (int i = 0; i < slices.length; i++) {
+            try {
+                slices[i] = futures.get(i).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new ExternalApiException("Failed to fetch market chart for " + ids.get(i), e.getCause());
+            }
+        }
+        return slices;
+    }
+
+    private static ComparisonResponse toResponse(List<String> ids, int days, long step,
+                                                 ComparisonWindow window, int width) {
+        int k = ids.size();
+        int size = window.size();
+
+        // 等距抽樣到 width 個點以內（保留最後一點）
+        int stride = Math.max(1, (size - 1 + width - 2) / (width - 1));
+        int points = size == 0 ? 0 : (size - 1) / stride + 1 + ((size - 1) % stride == 0 ? 0 : 1);
+        long[] timestamps = new long[points];
+        double[][] prices = new double[k][points];
+        double[][] normalized = new double[k][points];
+        for (int p = 0; p < points; p++) {
+            int index = Math.min(p * stride, size - 1);
+            timestamps[p] = window.time(index);
+            for (int c = 0; c < k; c++) {
+                double price = window.price(index, c);
+                prices[c][p] = price;
+                normalized[c][p] = (price / window.price(0, c) - 1) * 100;
+            }
+        }
+
+        double annualize = Math.sqrt((double) YEAR / step) * 100;
+        Double[] totalReturn = new Double[k];
+        Double[] volatility = new Double[k];
+        Double[][] correlation = new Double[k][k];
+        for (int i = 0; i < k; i++) {
+            totalReturn[i] = size < 2 ? null : (window.price(size - 1, i) / window.price(0, i) - 1) * 100;
+            volatility[i] = finiteOrNull(window.stdDev(i) * annualize);
+            for (int j = 0; j < k; j++) {
+                correlation[i][j] = finiteOrNull(window.correlation(i, j));
+            }
+        }
+        return new ComparisonResponse(ids, days, step, window.returns(), timestamps, prices, normalized,
+                totalReturn, volatility, correlation);
+    }
+
+    private static Double finiteOrNull(double value) {
+        return Double.isFinite(value) ? value : null;
+    }
+
+    /**
+     * 幣種 id 轉小寫、去除重複並排序（相同組合共用同一個視窗）
+     */
+    private List<String> normalize(List<String> coinIds) {
+        TreeSet<String> ids = new TreeSet<>();
+        if (coinIds != null) {
+            for (String id : coinIds) {
+                if (id != null && !id.isBlank()) {
+                    String trimmed = id.trim().toLowerCase();
+                    if (trimmed.length() > 64) {
+                        throw new ValidationException("Coin id must be at most 64 characters");
+                    }
+                    ids.add(trimmed);
+                }
+            }
+        }
+        if (ids.size() < MIN_COINS || ids.size() > maxCoins) {
+            throw new ValidationException("Compare between " + MIN_COINS + " and " + maxCoins + " coins");
+        }
+        return new ArrayList<>(ids);
+    }
+
+    // ========== 已儲存的比較 ==========
+
+    public List<CoinComparison> getSavedComparisons(Long userId) {
+        return comparisonRepository.findByUser_IdAndIsSavedTrueOrderByCreatedAtDesc(userId);
+    }
+
+    @Transactional
+    public CoinComparison saveComparison(Long userId, ComparisonRequest request) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+        CoinComparison comparison = new CoinComparison();
+        comparison.setUser(user);
+        comparison.setComparisonName(request.getComparisonName());
+        comparison.setCoinIds(normalize(request.getCoinIds()));
+        comparison.setIsSaved(true);
+        return comparisonRepository.save(comparison);
+    }
+
+    @Transactional
+    public void deleteComparison(Long userId, Long comparisonId) {
+        comparisonRepository.delete(findComparison(userId, comparisonId));
+    }
+
+    /**
+     * 取得已儲存比較的結果（與臨時比較共用快取，只補算新的時間格）
+     */
+    public ComparisonResponse compareSaved(Long userId, Long comparisonId, int days, int width) {
+        return compare(findComparison(userId, comparisonId).getCoinIds(), days, width);
+    }
+
+    private CoinComparison findComparison(Long userId, Long comparisonId) {
+        return comparisonRepository.findByIdAndUser_Id(comparisonId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Comparison not found with id: " + comparisonId));
+    }
+
+    /**
+     * 取得比較服務統計（供管理員監控使用）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("windows", windows.estimatedSize());
+        stats.put("windowsBuilt", windowsBuilt.sum());
+        stats.put("comparisons", comparisons.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,233 @@
+package com.crypto.dashboard.service;
+
+import java.util.Arrays;
+
+/**
+ * 多幣種比較的滑動視窗
+ * 以固定間隔的時間格（grid）對齊各幣種價格（取每一格當下或之前最後一個價格），
+ * 對齊後的價格列放在原始型別的環狀緩衝區；同時維護對數報酬的累加器
+ * （各幣種的 Σr、Σr²，以及兩兩之間的 Σrᵢrⱼ），新的一格加入、最舊的一格移出時只做 O(k²) 的更新，
+ * 波動度與相關係數矩陣直接由累加器算出，不必每次重掃整個視窗
+ *
+ * 非執行緒安全，由呼叫端同步
+ */
+final class ComparisonWindow {
+
+    private final int coins;
+    private final long step;
+    private final long[] times;
+    private final double[] prices;   // capacity × coins，列優先
+    private int head;
+    private int size;
+
+    // 報酬累加器（只涵蓋視窗內相鄰兩格之間的報酬）
+    private final double[] sum;
+    private final double[] sumSq;
+    private final double[] cross;    // coins × coins，只使用 i < j 的部分
+
+    ComparisonWindow(int coins, int capacity, long step) {
+        this.coins = coins;
+        this.step = step;
+        this.times = new long[capacity];
+        this.prices = new double[capacity * coins];
+        this.sum = new double[coins];
+        this.sumSq = new double[coins];
+        this.cross = new double[coins * coins];
+    }
+
+    /**
+     * 把各幣種序列中新出現的格子併入視窗，並移出早於 from 的格子
+     * @param series 各幣種的序列（順序與建立視窗時相同，時間戳遞增）
+     */
+    void advance(PriceSeries.Slice[] series, long from) {
+        long end = Long.MAX_VALUE;
+        long start = Long.MIN_VALUE;
+        for (PriceSeries.Slice slice : series) {
+            if (slice.length() == 0) {
+                return;
+            }
+            end = Math.min(end, slice.timestamps()[slice.length() - 1]);
+            start = Math.max(start, slice.timestamps()[0]);
+        }
+        end = Math.floorDiv(end, step) * step;
+
+        long next;
+        if (size > 0 && end - lastTime() <= (long) times.length * step) {
+            next = lastTime() + step;
+        } else {
+            // 第一次建立，或中斷太久（整個視窗都會被換掉）：從頭對齊
+            clear();
+            next = Math.floorDiv(Math.max(start, from) + step - 1, step) * step;
+        }
+        if (next > end) {
+            evictBefore(from);
+            return;
+        }
+
+        // 每個序列一個指標，依格子時間往前推進（as-of join）
+        int[] cursor = new int[coins];
+        for (int c = 0; c < coins; c++) {
+            cursor[c] = lastAtOrBefore(series[c].timestamps(), next);
+        }
+        double[] row = new double[coins];
+        for (long t = next; t <= end; t += step) {
+            boolean complete = true;
+            for (int c = 0; c < coins; c++) {
+                long[] ts = series[c].timestamps();
+                int i = cursor[c];
+                while (i + 1 < ts.length && ts[i + 1] <= t) {
+                    i++;
+                }
+                cursor[c] = i;
+                if (i < 0 || ts[i] > t) {
+                    complete = false;
+                } else {
+                    row[c] = series[c].prices()[i];
+                }
+            }
+            if (complete) {
+                append(t, row);
+            }
+        }
+        evictBefore(from);
+    }
+
+    private void append(long time, double[] row) {
+        if (size == times.length) {
+            evictOldest();
+        }
+        if (size > 0) {
+            accumulate(physical(size - 1), row, 1);
+        }
+        int slot = physical(size);
+        times[slot] = time;
+        System.arraycopy(row, 0, prices, slot * coins, coins);
+        size++;
+    }
+
+    private void evictBefore(long from) {
+        while (size > 0 && times[head] < from) {
+            evictOldest();
+        }
+    }
+
+    private void evictOldest() {
+        if (size >= 2) {
+            int second = physical(1);
+            double[] row = new double[coins];
+            System.arraycopy(prices, second * coins, row, 0, coins);
+            accumulate(head, row, -1);
+        }
+        head = (head + 1) % times.length;
+        size--;
+        if (size <= 1) {
+            resetAccumulators();  // 沒有報酬時歸零，順便消除累加的浮點誤差
+        }
+    }
+
+    /**
+     * 加入（sign = 1）或移出（sign = -1）前一格 → row 的對數報酬
+     */
+    private void accumulate(int previousSlot, double[] row, int sign) {
+        double[] r = new double[coins];
+        for (int c = 0; c < coins; c++) {
+            r[c] = Math.log(row[c] / prices[previousSlot * coins + c]);
+            sum[c] += sign * r[c];
+            sumSq[c] += sign * r[c] * r[c];
+        }
+        for (int i = 0; i < coins; i++) {
+            for (int j = i + 1; j < coins; j++) {
+                cross[i * coins + j] += sign * r[i] * r[j];
+            }
+        }
+    }
+
+    private void clear() {
+        head = 0;
+        size = 0;
+        resetAccumulators();
+    }
+
+    private void resetAccumulators() {
+        Arrays.fill(sum, 0);
+        Arrays.fill(sumSq, 0);
+        Arrays.fill(cross, 0);
+    }
+
+    // ========== 查詢 ==========
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 視窗內的報酬筆數
+     */
+    int returns() {
+        return Math.max(0, size - 1);
+    }
+
+    long time(int index) {
+        return times[physical(index)];
+    }
+
+    double price(int index, int coin) {
+        return prices[physical(index) * coins + coin];
+    }
+
+    /**
+     * 每格報酬的標準差（樣本數不足時為 NaN）
+     */
+    double stdDev(int coin) {
+        int n = returns();
+        if (n < 2) {
+            return Double.NaN;
+        }
+        double variance = (sumSq[coin] - sum[coin] * sum[coin] / n) / (n - 1);
+        return Math.sqrt(Math.max(0, variance));
+    }
+
+    /**
+     * 兩個幣種報酬的相關係數（無法計算時為 NaN）
+     */
+    double correlation(int a, int b) {
+        if (a == b) {
+            return returns() < 2 ? Double.NaN : 1.0;
+        }
+        int i = Math.min(a, b);
+        int j = Math.max(a, b);
+        int n = returns();
+        double sdI = stdDev(i);
+        double sdJ = stdDev(j);
+        if (n < 2 || !(sdI > 0) || !(sdJ > 0)) {
+            return Double.NaN;
+        }
+        double covariance = (cross[i * coins + j] - sum[i] * sum[j] / n) / (n - 1);
+        return Math.max(-1, Math.min(1, covariance / (sdI * sdJ)));
+    }
+
+    private long lastTime() {
+        return times[physical(size - 1)];
+    }
+
+    private int physical(int logical) {
+        return (head + logical) % times.length;
+    }
+
+    /**
+     * 最後一個 <= t 的位置（沒有則為 -1）
+     */
+    private static int lastAtOrBefore(long[] ts, long t) {
+        int lo = 0;
+        int hi = ts.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ts[mid] <= t) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo - 1;
+    }
+}
@@ -0,0 +1,444 @@
+package com.crypto.dashboard.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * 上游資料的本地磁碟快取（L2，位於 Caffeine L1 之下）
+ * 作用：重啟後 L1 是空的，熱門幣種仍可在開機幾秒內由本地檔案回應，不必全部重新打 CoinGecko
+ *
+ * 檔案格式（append-only，同一個 key 以最後一筆為準）：
+ *   [int magic][int keyLength][int valueLength][long createdAt][int crc32][key UTF-8][value]
+ *
+ * - 讀取：以記憶體中的索引（key → offset）直接定位，用 FileChannel 的定位讀取（pread）複製出 value；
+ *   不使用 mmap：每次追加都得重新映射，舊映射要等 GC 才解除，位址空間與映射數量會隨寫入量增加
+ * - 寫入：由單一背景執行緒追加到檔尾，不佔用請求執行緒
+ * - 啟動：背景掃描檔案重建索引，掃描完成前一律視為 miss；CRC 不符或不完整的尾端會被截掉
+ * - 壓縮：定期只保留每個 key 的最新一筆，超過 max-bytes 時從最舊的開始丟棄
+ */
+@Component
+public class DiskPayloadStore {
+
+    private static final Logger log = LoggerFactory.getLogger(DiskPayloadStore.class);
+
+    private static final int MAGIC = 0x43475031;  // "CGP1"
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 4;
+    private static final String FILE_NAME = "market-payloads.log";
+
+    @Value("${coingecko.disk-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${coingecko.disk-cache.dir:./data/market-cache}")
+    private String directory;
+
+    /**
+     * 檔案大小上限（壓縮後仍超過就丟棄最舊的資料）
+     */
+    @Value("${coingecko.disk-cache.max-bytes:268435456}")
+    private long maxBytes;
+
+    /**
+     * 資料最長保存時間，超過即在壓縮時丟棄
+     */
+    @Value("${coingecko.disk-cache.max-age-hours:24}")
+    private long maxAgeHours;
+
+    /**
+     * 寫入佇列長度（滿了就放棄這次寫入）
+     */
+    @Value("${coingecko.disk-cache.write-queue:256}")
+    private int writeQueue;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ConcurrentHashMap<String, Location> index = new ConcurrentHashMap<>();
+
+    // 以下欄位由 lock 保護（寫鎖：追加、壓縮時替換檔案；讀鎖：讀取，FileChannel 的定位讀取可同時進行）
+    private Path file;
+    private FileChannel channel;
+    private volatile long fileLength;
+
+    private volatile boolean ready;
+    private ExecutorService writer;
+
+    // 統計數據
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder droppedWrites = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(writeQueue),
+                r -> {
+                    Thread t = new Thread(r, "disk-payload-store");
+                    t.setDaemon(true);
+                    return t;
+                },
+                (r, executor) -> droppedWrites.increment());
+        // 索引在背景重建，不拖慢啟動
+        writer.execute(this::restore);
+    }
+
+    @PreDestroy
+    void shutdown() throws Exception {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+        lock.writeLock().lock();
+        try {
+            if (channel != null) {
+                channel.force(false);
+                channel.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 讀取資料
+     * @param maxAgeMillis 資料最多可以是多久以前寫入的
+     * @return 找不到、過舊或索引尚未重建完成時回傳 null
+     */
+    public CachedPayload get(String key, long maxAgeMillis) {
+        Location location = ready ? index.get(key) : null;
+        if (location == null || System.currentTimeMillis() - location.createdAt > maxAgeMillis) {
+            misses.increment();
+            return null;
+        }
+
+        byte[] value = new byte[location.valueLength];
+        lock.readLock().lock();
+        try {
+            if (index.get(key) != location) {
+                misses.increment();
+                return null;  // 剛好被壓縮或覆寫
+            }
+            readFully(location.valueOffset, ByteBuffer.wrap(value));
+        } catch (IOException e) {
+            log.warn("Disk payload store read failed for {}: {}", key, e.getMessage());
+            misses.increment();
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+        hits.increment();
+        return CachedPayload.of(value, location.createdAt);
+    }
+
+    /**
+     * 非同步寫入（佇列滿或尚未啟用時直接放棄）
+     */
+    public void put(String key, CachedPayload payload) {
+        if (writer == null) {
+            return;
+        }
+        writer.execute(() -> append(key, payload.getIdentity(), payload.getCreatedAt()));
+    }
+
+    /**
+     * 定期壓縮：只保留每個 key 的最新一筆，並套用保存時間與大小上限
+     */
+    @Scheduled(fixedDelayString = "${coingecko.disk-cache.compact-interval-ms:600000}",
+            initialDelayString = "${coingecko.disk-cache.compact-interval-ms:600000}")
+    public void compactIfNeeded() {
+        if (writer == null || !ready) {
+            return;
+        }
+        writer.execute(() -> {
+            long live = liveBytes();
+            if (fileLength > live * 2 || fileLength > maxBytes || hasExpired()) {
+                compact();
+            }
+        });
+    }
+
+    // ========== 寫入執行緒 ==========
+
+    private void restore() {
+        lock.writeLock().lock();
+        try {
+            Path dir = Paths.get(directory);
+            Files.createDirectories(dir);
+            file = dir.resolve(FILE_NAME);
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            fileLength = channel.size();
+
+            long position = 0;
+            int restored = 0;
+            while (position + HEADER_BYTES <= fileLength) {
+                Location location = readRecord(position);
+                if (location == null) {
+                    break;
+                }
+                index.put(location.key, location);
+                position = location.valueOffset + location.valueLength;
+                restored++;
+            }
+            if (position < fileLength) {
+                log.warn("Disk payload store truncated {} corrupt bytes at offset {}", fileLength - position, position);
+                channel.truncate(position);
+                fileLength = position;
+            }
+            ready = true;
+            log.info("Disk payload store restored {} records ({} keys, {} bytes)", restored, index.size(), fileLength);
+        } catch (IOException e) {
+            log.warn("Disk payload store disabled: {}", e.getMessage());
+            writer.shutdown();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void append(String key, byte[] value, long createdAt) {
+        if (!ready) {
+            return;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + keyBytes.length + value.length);
+        record.putInt(MAGIC)
+                .putInt(keyBytes.length)
+                .putInt(value.length)
+                .putLong(createdAt)
+                .putInt(crc(keyBytes, value))
+                .put(keyBytes)
+                .put(value)
+                .flip();
+
+        lock.writeLock().lock();
+        try {
+            long position = fileLength;
+            while (record.hasRemaining()) {
+                channel.write(record, position + record.position());
+            }
+            fileLength += record.limit();
+            index.put(key, new Location(key, position + HEADER_BYTES + keyBytes.length, value.length, createdAt));
+            writes.increment();
+        } catch (IOException e) {
+            log.warn("Disk payload store write failed: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (fileLength > maxBytes) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(maxAgeHours);
+        // 由新到舊保留，壓縮後最多使用 max-bytes 的 3/4，留空間給之後的追加
+        long budget = maxBytes / 4 * 3;
+        Path temp = file.resolveSibling(FILE_NAME + ".compact");
+        lock.writeLock().lock();
+        try {
+            // 在寫鎖內取得快照：之後才追加的資料不會被 index.clear() 丟掉
+            List<Location> live = new ArrayList<>(index.values());
+            live.removeIf(location -> location.createdAt < cutoff);
+            live.sort(Comparator.comparingLong((Location location) -> location.createdAt).reversed());
+
+            Map<String, Location> compacted = new LinkedHashMap<>();
+            long position = 0;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (Location location : live) {
+                    byte[] keyBytes = location.key.getBytes(StandardCharsets.UTF_8);
+                    int recordBytes = HEADER_BYTES + keyBytes.length + location.valueLength;
+                    if (position + recordBytes > budget) {
+                        break;
+                    }
+                    byte[] value = new byte[location.valueLength];
+                    readFully(location.valueOffset, ByteBuffer.wrap(value));
+                    ByteBuffer record = ByteBuffer.allocate(recordBytes);
+                    record.putInt(MAGIC)
+                            .putInt(keyBytes.length)
+                            .putInt(value.length)
+                            .putLong(location.createdAt)
+                            .putInt(crc(keyBytes, value))
+                            .put(keyBytes)
+                            .put(value)
+                            .flip();
+                    while (record.hasRemaining()) {
+                        out.write(record, position + record.position());
+                    }
+                    compacted.put(location.key, new Location(location.key,
+                            position + HEADER_BYTES + keyBytes.length, location.valueLength, location.createdAt));
+                    position += recordBytes;
+                }
+                out.force(false);
+            } catch (IOException e) {
+                log.warn("Disk payload store compaction failed: {}", e.getMessage());
+                deleteQuietly(temp);
+                return;  // 原檔與索引都沒有變動
+            }
+
+            // 替換檔案：不論成功與否都要重新開啟 channel，否則之後的讀寫全部 ClosedChannelException
+            boolean moved = false;
+            try {
+                channel.close();
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                moved = true;
+            } catch (IOException e) {
+                log.warn("Disk payload store compaction could not replace the file, keeping the old one: {}", e.getMessage());
+                deleteQuietly(temp);
+            } finally {
+                reopen();
+            }
+            if (moved) {
+                fileLength = position;
+                index.clear();
+                index.putAll(compacted);
+                compactions.increment();
+                log.info("Disk payload store compacted to {} keys ({} bytes)", compacted.size(), position);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 重新開啟目前的檔案（呼叫端持有寫鎖）；失敗時停用磁碟快取（之後一律視為 miss、不再寫入）
+     */
+    private void reopen() {
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            log.warn("Disk payload store disabled, cannot reopen {}: {}", file, e.getMessage());
+            ready = false;
+            index.clear();
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * 讀取 position 開始的一筆記錄（不完整或 CRC 不符回傳 null）
+     */
+    private Location readRecord(long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(position, header);
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            return null;
+        }
+        int keyLength = header.getInt();
+        int valueLength = header.getInt();
+        long createdAt = header.getLong();
+        int crc = header.getInt();
+        if (keyLength < 0 || valueLength < 0 || position + HEADER_BYTES + keyLength + valueLength > fileLength) {
+            return null;
+        }
+
+        byte[] keyBytes = new byte[keyLength];
+        byte[] value = new byte[valueLength];
+        readFully(position + HEADER_BYTES, ByteBuffer.wrap(keyBytes));
+        readFully(position + HEADER_BYTES + keyLength, ByteBuffer.wrap(value));
+        if (crc(keyBytes, value) != crc) {
+            return null;
+        }
+        return new Location(new String(keyBytes, StandardCharsets.UTF_8),
+                position + HEADER_BYTES + keyLength, valueLength, createdAt);
+    }
+
+    /**
+     * 從 position 開始讀滿 target（定位讀取，不移動 channel 的位置，可多執行緒同時呼叫）
+     */
+    private void readFully(long position, ByteBuffer target) throws IOException {
+        long start = position - target.position();
+        while (target.hasRemaining()) {
+            if (channel.read(target, start + target.position()) < 0) {
+                throw new EOFException("Unexpected end of disk payload store at " + (start + target.position()));
+            }
+        }
+    }
+
+    private long liveBytes() {
+        long bytes = 0;
+        for (Location location : index.values()) {
+            bytes += HEADER_BYTES + location.key.length() + location.valueLength;
+        }
+        return bytes;
+    }
+
+    private boolean hasExpired() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(maxAgeHours);
+        for (Location location : index.values()) {
+            if (location.createdAt < cutoff) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int crc(byte[] key, byte[] value) {
+        CRC32 crc = new CRC32();
+        crc.update(key);
+        crc.update(value);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * 取得磁碟快取統計（供管理員監控使用）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", ready);
+        stats.put("keys", index.size());
+        stats.put("fileBytes", fileLength);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("writes", writes.sum());
+        stats.put("droppedWrites", droppedWrites.sum());
+        stats.put("compactions", compactions.sum());
+        return stats;
+    }
+
+    /**
+     * 索引項目：value 在檔案中的位置
+     */
+    private record Location(String key, long valueOffset, int valueLength, long createdAt) {
+    }
+}
@@ -0,0 +1,276 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.dto.response.AdminStatsResponse;
+import com.crypto.dashboard.event.FavoriteChangedEvent;
+import com.crypto.dashboard.exception.ValidationException;
+import com.crypto.dashboard.repository.CoinFavoriteRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 收藏排行（記憶體中增量維護）
+ * 作用：取代每次載入管理後台都對整個 coin_favorites 做 GROUP BY；
+ *      每個幣種一個計數，另以 TreeSet 依收藏數排序，收藏異動時只移動一個元素（O(log n)），
+ *      前 K 名在每次異動後重建成不可變清單，讀取時直接回傳（O(K)）
+ *
+ * - 啟動完成後由資料表載入一次，之後在交易提交後依 FavoriteChangedEvent 增減
+ * - 定期與資料表校正（涵蓋不經過 FavoriteService 的異動，例如刪除用戶時的連鎖刪除）；
+ *   校正查詢與同時提交的異動之間可能短暫不一致，下一次校正會修正
+ */
+@Component
+@RequiredArgsConstructor
+public class FavoriteLeaderboard {
+
+    private static final Logger log = LoggerFactory.getLogger(FavoriteLeaderboard.class);
+
+    public static final int DEFAULT_LIMIT = 10;
+
+    private static final Comparator<Entry> BY_COUNT = Comparator
+            .comparingLong(Entry::count).reversed()
+            .thenComparing(Entry::coinId);
+
+    private final CoinFavoriteRepository favoriteRepository;
+    private final MarketSnapshotService marketSnapshotService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 保留的排行名次（最多可查詢的筆數）
+     */
+    @Value("${favorites.leaderboard.top-k:50}")
+    private int topK;
+
+    // 以下三個欄位由 this 同步
+    private final Map<String, Long> counts = new HashMap<>();
+    private final TreeSet<Entry> ranking = new TreeSet<>(BY_COUNT);
+    private long total;
+
+    private volatile Top top = new Top(List.of(), 0, 0);
+    private volatile boolean loaded;
+    private final Map<Integer, Memo> payloads = new ConcurrentHashMap<>();
+
+    // 統計數據
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong reconciliations = new AtomicLong();
+    private final AtomicLong corrections = new AtomicLong();
+
+    private record Entry(String coinId, long count) {
+    }
+
+    /**
+     * 前 K 名（不可變）
+     * @param version 每次異動加一，作為輸出內容的快取依據
+     */
+    private record Top(List<Entry> entries, long total, long version) {
+    }
+
+    private record Memo(long version, long snapshotVersion, CachedPayload payload) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reconcile();
+        loaded = true;
+        log.info("Favorite leaderboard loaded with {} favorites", top.total());
+    }
+
+    /**
+     * 收藏異動（交易提交後）
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onFavoriteChanged(FavoriteChangedEvent event) {
+        events.incrementAndGet();
+        synchronized (this) {
+            long current = counts.getOrDefault(event.coinId(), 0L);
+            set(event.coinId(), current, Math.max(0, current + event.delta()));
+            total = Math.max(0, total + event.delta());
+            publish();
+        }
+    }
+
+    /**
+     * 與資料表校正：以 GROUP BY 結果為準，差異筆數計入 corrections
+     */
+    @Scheduled(fixedDelayString = "${favorites.leaderboard.reconcile-ms:600000}",
+               initialDelayString = "${favorites.leaderboard.reconcile-ms:600000}")
+    public void reconcile() {
+        List<Object[]> rows;
+        try {
+            rows = favoriteRepository.countFavoritesByCoin();
+        } catch (Exception e) {
+            log.warn("Favorite leaderboard reconciliation failed: {}", e.getMessage());
+            return;
+        }
+        Map<String, Long> actual = new HashMap<>(rows.size() * 2);
+        long actualTotal = 0;
+        for (Object[] row : rows) {
+            long count = ((Number) row[1]).longValue();
+            actual.put((String) row[0], count);
+            actualTotal += count;
+        }
+
+        synchronized (this) {
+            int changed = 0;
+            for (Map.Entry<String, Long> entry : actual.entrySet()) {
+                long current = counts.getOrDefault(entry.getKey(), 0L);
+                if (current != entry.getValue()) {
+                    set(entry.getKey(), current, entry.getValue());
+                    changed++;
+                }
+            }
+            for (Map.Entry<String, Long> entry : new ArrayList<>(counts.entrySet())) {
+                if (!actual.containsKey(entry.getKey())) {
+                    set(entry.getKey(), entry.getValue(), 0);
+                    changed++;
+                }
+            }
+            total = actualTotal;
+            reconciliations.incrementAndGet();
+            if (changed > 0) {
+                if (loaded) {
+                    corrections.addAndGet(changed);
+                }
+                publish();
+            }
+        }
+    }
+
+    /**
+     * 更新單一幣種的計數（呼叫端持有鎖）
+     */
+    private void set(String coinId, long previous, long next) {
+        if (previous > 0) {
+            ranking.remove(new Entry(coinId, previous));
+        }
+        if (next > 0) {
+            counts.put(coinId, next);
+            ranking.add(new Entry(coinId, next));
+        } else {
+            counts.remove(coinId);
+        }
+    }
+
+    /**
+     * 重建前 K 名（呼叫端持有鎖）
+     */
+    private void publish() {
+        List<Entry> entries = new ArrayList<>(Math.min(topK, ranking.size()));
+        for (Entry entry : ranking) {
+            if (entries.size() == topK) {
+                break;
+            }
+            entries.add(entry);
+        }
+        top = new Top(List.copyOf(entries), total, top.version() + 1);
+    }
+
+    // ========== 查詢 ==========
+
+    /**
+     * 收藏總數
+     */
+    public long getTotalFavorites() {
+        return top.total();
+    }
+
+    /**
+     * 收藏數最多的幣種（管理後台）
+     */
+    public List<AdminStatsResponse.CoinRankDTO> getTopCoins(int limit) {
+        List<Entry> entries = top.entries();
+        List<AdminStatsResponse.CoinRankDTO> result = new ArrayList<>(Math.min(limit, entries.size()));
+        for (int i = 0; i < limit && i < entries.size(); i++) {
+            result.add(new AdminStatsResponse.CoinRankDTO(entries.get(i).coinId(), entries.get(i).count()));
+        }
+        return result;
+    }
+
+    /**
+     * 最多人收藏的幣種（/api/coins/most-watched）
+     * 格式：[{"id": "bitcoin", "watchers": 12, "coin": 市場快照列或 null}, ...]
+     * 排行或市場快照有變動時才重新產生內容
+     */
+    public CachedPayload getMostWatched(Integer limit) {
+        int size = limit == null ? DEFAULT_LIMIT : limit;
+        if (size < 1 || size > topK) {
+            throw new ValidationException("limit must be between 1 and " + topK);
+        }
+        Top current = top;
+        MarketSnapshot snapshot = marketSnapshotService.getFreshSnapshot();
+        long snapshotVersion = snapshot == null ? 0 : snapshot.getVersion();
+
+        Memo memo = payloads.get(size);
+        if (memo != null && memo.version() == current.version() && memo.snapshotVersion() == snapshotVersion) {
+            return memo.payload();
+        }
+        CachedPayload payload = CachedPayload.of(toJson(current, snapshot, size));
+        payloads.put(size, new Memo(current.version(), snapshotVersion, payload));
+        return payload;
+    }
+
+    private byte[] toJson(Top current, MarketSnapshot snapshot, int size) {
+        List<Entry> entries = current.entries();
+        int count = Math.min(size, entries.size());
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + count * 320);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            for (int i = 0; i < count; i++) {
+                Entry entry = entries.get(i);
+                generator.writeStartObject();
+                generator.writeStringField("id", entry.coinId());
+                generator.writeNumberField("watchers", entry.count());
+                generator.writeFieldName("coin");
+                int row = snapshot == null ? -1 : snapshot.indexOf(entry.coinId());
+                if (row >= 0) {
+                    // 快照列本身是 JSON 陣列中的一個元素，直接寫出原始位元組
+                    String json = snapshot.rowsAsJson(new int[]{row}, 0, 1);
+                    generator.writeRawValue(json.substring(1, json.length() - 1));
+                } else {
+                    generator.writeNull();
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 取得收藏排行統計（供管理員監控使用）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("coins", counts.size());
+        }
+        stats.put("favorites", top.total());
+        stats.put("events", events.get());
+        stats.put("reconciliations", reconciliations.get());
+        stats.put("corrections", corrections.get());
+        return stats;
+    }
+}
@@ -2,22 +2,29 @@ package com.crypto.dashboard.service;
 
 import com.crypto.dashboard.entity.CoinFavorite;
 import com.crypto.dashboard.entity.User;
+import com.crypto.dashboard.event.FavoriteChangedEvent;
 import com.crypto.dashboard.exception.ResourceNotFoundException;
 import com.crypto.dashboard.exception.ValidationException;
 import com.crypto.dashboard.repository.CoinFavoriteRepository;
 import com.crypto.dashboard.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
+/**
+ * 收藏服務
+ * 每次新增、移除都發佈 FavoriteChangedEvent，由 FavoriteLeaderboard 在交易提交後更新排行
+ */
 @Service
 @RequiredArgsConstructor
 public class FavoriteService {
 
     private final CoinFavoriteRepository favoriteRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<CoinFavorite> getUserFavorites(Long userId) {
         return favoriteRepository.findByUser_Id(userId);
@@ -39,11 +46,21 @@ public class FavoriteService {
         favorite.setUser(user);
         favorite.setCoinId(coinId);
         // createdAt 由 @CreatedDate 自動處理
-        return favoriteRepository.save(favorite);
+        CoinFavorite saved = favoriteRepository.save(favorite);
+        eventPublisher.publishEvent(new FavoriteChangedEvent(coinId, 1));
+        return saved;
     }
 
+    /**
+     * 移除收藏
+     * @return 是否真的刪除了收藏（原本就沒有收藏時為 false）
+     */
     @Transactional
-    public void removeFavorite(Long userId, String coinId) {
-        favoriteRepository.deleteByUser_IdAndCoinId(userId, coinId);
+    public boolean removeFavorite(Long userId, String coinId) {
+        long deleted = favoriteRepository.deleteByUser_IdAndCoinId(userId, coinId);
+        if (deleted > 0) {
+            eventPublisher.publishEvent(new FavoriteChangedEvent(coinId, -deleted));
+        }
+        return deleted > 0;
     }
 }
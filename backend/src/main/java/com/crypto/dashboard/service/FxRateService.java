@@ -0,0 +1,272 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.exception.ExternalApiException;
+import com.crypto.dashboard.exception.ServiceNotReadyException;
+import com.crypto.dashboard.exception.ValidationException;
+import com.crypto.dashboard.util.JsonCurrencyConverter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 匯率服務（多幣別報價）
+ * 作用：市場資料只向上游要一份美元報價（快取與快照都只有一份），
+ *      其他貨幣在輸出時依匯率表以串流方式換算，不增加上游呼叫也不增加快取副本
+ *
+ * - 匯率表來自 CoinGecko /exchange_rates（以 BTC 為基準），定期刷新；啟動時先由磁碟快取還原
+ * - 換算後的 ETag 由原內容 ETag + 貨幣 + 匯率表版本組成，304 判斷不需要先換算
+ */
+@Service
+@RequiredArgsConstructor
+public class FxRateService {
+
+    private static final Logger log = LoggerFactory.getLogger(FxRateService.class);
+
+    public static final String BASE_CURRENCY = "usd";
+
+    /**
+     * 以美元計價的欄位（/coins/markets 的列、/coins/{id} 的 market_data）
+     */
+    private static final JsonCurrencyConverter CONVERTER = JsonCurrencyConverter.of(
+            Set.of("current_price", "market_cap", "fully_diluted_valuation", "total_volume",
+                    "high_24h", "low_24h", "price_change_24h", "market_cap_change_24h",
+                    "ath", "ath_date", "atl", "atl_date"),
+            Set.of("prices", "market_caps", "total_volumes"));
+
+    private final CoinGeckoClient coinGeckoClient;
+    private final DiskPayloadStore diskStore;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 匯率表多久重新抓一次
+     */
+    @Value("${fx.refresh-ms:600000}")
+    private long refreshMillis;
+
+    /**
+     * 啟動時可接受的磁碟匯率表最長年齡
+     */
+    @Value("${fx.max-disk-age-hours:24}")
+    private long maxDiskAgeHours;
+
+    private volatile Rates rates;
+
+    // 統計數據
+    private final LongAdder conversions = new LongAdder();
+    private final AtomicLong failedRefreshes = new AtomicLong();
+
+    /**
+     * 單一貨幣的換算資訊
+     * @param rate 1 美元可換多少該貨幣
+     */
+    public record Rate(String currency, double rate, String version) {
+
+        /**
+         * 換算後內容的 ETag（不必先換算就能判斷 304）
+         */
+        public String etag(String sourceEtag) {
+            return sourceEtag.substring(0, sourceEtag.length() - 1) + "-" + currency + "-" + version + "\"";
+        }
+    }
+
+    private record Rates(Map<String, Double> usdRates, long updatedAt, String version, CachedPayload currencies) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        if (rates != null) {
+            return;
+        }
+        CachedPayload payload = diskStore.get(MarketDataHotKeys.EXCHANGE_RATES_KEY, TimeUnit.HOURS.toMillis(maxDiskAgeHours));
+        if (payload != null) {
+            try {
+                install(payload);
+                log.info("Exchange rates restored from disk with {} currencies", rates.usdRates().size());
+            } catch (IOException e) {
+                log.warn("Failed to restore exchange rates from disk: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fx.refresh-ms:600000}", initialDelayString = "${fx.initial-delay-ms:5000}")
+    public void refresh() {
+        restore();
+        Rates current = rates;
+        if (current != null && System.currentTimeMillis() - current.updatedAt() < refreshMillis) {
+            return;  // 剛由磁碟還原的匯率表還夠新
+        }
+        try {
+            install(coinGeckoClient.fetchExchangeRates());
+        } catch (ExternalApiException | IOException e) {
+            failedRefreshes.incrementAndGet();
+            log.warn("Exchange rate refresh failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 解析 {"rates":{"btc":{"name","unit","value","type"},"usd":{...},...}}，換算成以美元為基準
+     */
+    private void install(CachedPayload payload) throws IOException {
+        Map<String, Double> btcRates = new TreeMap<>();
+        Map<String, String[]> labels = new TreeMap<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(payload.getIdentity())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected exchange rates response");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                if (parser.nextToken() != JsonToken.START_OBJECT || !"rates".equals(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String currency = parser.getCurrentName().toLowerCase();
+                    parser.nextToken();
+                    String name = null;
+                    String unit = null;
+                    double value = Double.NaN;
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String property = parser.getCurrentName();
+                        parser.nextToken();
+                        switch (property) {
+                            case "name" -> name = parser.getValueAsString();
+                            case "unit" -> unit = parser.getValueAsString();
+                            case "value" -> value = parser.getValueAsDouble(Double.NaN);
+                            default -> parser.skipChildren();
+                        }
+                    }
+                    if (value > 0 && Double.isFinite(value)) {
+                        btcRates.put(currency, value);
+                        labels.put(currency, new String[]{name, unit});
+                    }
+                }
+            }
+        }
+        Double usd = btcRates.get(BASE_CURRENCY);
+        if (usd == null) {
+            throw new IOException("Exchange rates response has no " + BASE_CURRENCY + " rate");
+        }
+        Map<String, Double> usdRates = new TreeMap<>();
+        btcRates.forEach((currency, value) -> usdRates.put(currency, value / usd));
+
+        long updatedAt = payload.getCreatedAt();
+        rates = new Rates(Collections.unmodifiableMap(usdRates), updatedAt, Long.toString(updatedAt, 36),
+                CachedPayload.of(currenciesJson(usdRates, labels, updatedAt), updatedAt));
+    }
+
+    private byte[] currenciesJson(Map<String, Double> usdRates, Map<String, String[]> labels, long updatedAt) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("base", BASE_CURRENCY);
+            generator.writeNumberField("updatedAt", updatedAt);
+            generator.writeArrayFieldStart("currencies");
+            for (Map.Entry<String, Double> entry : usdRates.entrySet()) {
+                String[] label = labels.get(entry.getKey());
+                generator.writeStartObject();
+                generator.writeStringField("code", entry.getKey());
+                generator.writeStringField("name", label[0]);
+                generator.writeStringField("unit", label[1]);
+                generator.writeNumberField("rate", entry.getValue());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 支援的貨幣與匯率（1 美元可換多少）
+     */
+    public CachedPayload getCurrencies() {
+        Rates current = rates;
+        if (current == null) {
+            throw new ServiceNotReadyException("Exchange rates are not available yet");
+        }
+        return current.currencies();
+    }
+
+    /**
+     * 取得換算資訊
+     * @return 美元（或未指定）時為 null，表示直接輸出原內容
+     */
+    public Rate rateFor(String currency) {
+        if (currency == null || currency.isBlank()) {
+            return null;
+        }
+        String code = currency.trim().toLowerCase();
+        if (BASE_CURRENCY.equals(code)) {
+            return null;
+        }
+        Rates current = rates;
+        if (current == null) {
+            throw new ServiceNotReadyException("Exchange rates are not available yet");
+        }
+        Double rate = current.usdRates().get(code);
+        if (rate == null) {
+            throw new ValidationException("Unsupported currency: " + currency);
+        }
+        return new Rate(code, rate, current.version());
+    }
+
+    /**
+     * 把美元計價的內容換算成指定貨幣
+     * @param gzip 是否輸出 gzip 壓縮後的內容
+     */
+    public byte[] convert(CachedPayload payload, Rate rate, boolean gzip) {
+        conversions.increment();
+        byte[] source = payload.getIdentity();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(gzip ? source.length / 4 : source.length + 256);
+        try {
+            if (gzip) {
+                try (OutputStream compressed = new GZIPOutputStream(out)) {
+                    CONVERTER.convert(objectMapper.getFactory(), source, rate.currency(), rate.rate(), compressed);
+                }
+            } else {
+                CONVERTER.convert(objectMapper.getFactory(), source, rate.currency(), rate.rate(), out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 取得匯率服務統計（供管理員監控使用）
+     */
+    public Map<String, Object> getStats() {
+        Rates current = rates;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("currencies", current == null ? 0 : current.usdRates().size());
+        stats.put("ageMillis", current == null ? null : System.currentTimeMillis() - current.updatedAt());
+        stats.put("conversions", conversions.sum());
+        stats.put("failedRefreshes", failedRefreshes.get());
+        return stats;
+    }
+}
@@ -0,0 +1,61 @@
+package com.crypto.dashboard.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 最後一次成功的上游資料（Last-known-good）
+ * 與一般快取分開、保存時間長得多；上游無法使用時（斷路器開啟、額度用盡、超時等）用來回應使用者
+ * 記憶體中沒有時再查磁碟快取，重啟後遇到上游故障也有舊資料可用
+ * key 格式與 MarketDataHotKeys 相同
+ */
+@Component
+@RequiredArgsConstructor
+public class LastKnownGoodStore {
+
+    private final DiskPayloadStore diskStore;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${coingecko.last-known-good.max-entries:2000}")
+    private long maxEntries;
+
+    @Value("${coingecko.last-known-good.max-age-hours:24}")
+    private long maxAgeHours;
+
+    private Cache<String, CachedPayload> store;
+
+    @PostConstruct
+    void init() {
+        store = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofHours(maxAgeHours))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, store, "lastKnownGood");
+    }
+
+    public void put(String key, CachedPayload payload) {
+        store.put(key, payload);
+    }
+
+    public CachedPayload get(String key) {
+        CachedPayload payload = store.getIfPresent(key);
+        if (payload == null) {
+            payload = diskStore.get(key, TimeUnit.HOURS.toMillis(maxAgeHours));
+        }
+        return payload;
+    }
+
+    public long size() {
+        return store.estimatedSize();
+    }
+}
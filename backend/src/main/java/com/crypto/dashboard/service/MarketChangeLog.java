@@ -0,0 +1,184 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.event.MarketSnapshotUpdatedEvent;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 市場快照變動紀錄
+ * 作用：保存最近 N 次快照更新各自變動了哪些幣種，讓輪詢的用戶端以
+ *      /api/coins/changes?since=版本 只取回變動的列，不必每次重抓整份列表
+ *
+ * - 「變動」指追蹤的數值欄位（價格、市值、成交量、24h 漲跌、排名）不同，或新進入 / 離開快照
+ * - since 早於保存範圍、不是這個程序發出的版本（例如重啟前），或 since = 0 時回傳完整快照
+ * - 同一個 since 在同一版本內只組一次（輪詢的用戶端大多停在上一版）
+ */
+@Component
+public class MarketChangeLog {
+
+    private static final int MAX_MEMOIZED = 64;
+
+    /**
+     * 保存最近幾次更新的變動（快照每分鐘更新一次時約等於可落後的分鐘數）
+     */
+    @Value("${market.changes.history:60}")
+    private int history;
+
+    private final MarketSnapshotService marketSnapshotService;
+
+    private final ArrayDeque<Change> changes = new ArrayDeque<>();  // 由 this 同步保護
+    private volatile Latest latest;
+
+    private final AtomicLong deltaResponses = new AtomicLong();
+    private final AtomicLong fullResponses = new AtomicLong();
+
+    public MarketChangeLog(MarketSnapshotService marketSnapshotService) {
+        this.marketSnapshotService = marketSnapshotService;
+    }
+
+    @EventListener
+    public void onSnapshotUpdated(MarketSnapshotUpdatedEvent event) {
+        MarketSnapshot current = event.snapshot();
+        synchronized (this) {
+            Latest previous = latest;
+            if (previous != null) {
+                MarketSnapshot before = previous.snapshot();
+                changes.addLast(new Change(before.getVersion(), current.getVersion(), changedIds(before, current)));
+                while (changes.size() > history) {
+                    changes.removeFirst();
+                }
+            }
+            latest = new Latest(current, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * 取得 since 之後的變動
+     * 格式：{"version":n,"full":false,"coins":[變動的完整列...],"removed":["id", ...]}
+     *      full = true 時 coins 為整份快照（依市值排序），用戶端應直接替換
+     * @return 快照不可用時回傳 null
+     */
+    public CachedPayload getChanges(long since) {
+        Latest state = latest;
+        if (state == null || marketSnapshotService.getFreshSnapshot() == null) {
+            return null;
+        }
+        MarketSnapshot snapshot = state.snapshot();
+        Map<Long, CachedPayload> cache = state.memoized();
+        CachedPayload payload = cache.get(since);
+        if (payload != null) {
+            return payload;
+        }
+
+        Set<String> changed = collect(since, snapshot.getVersion());
+        if (changed == null) {
+            fullResponses.incrementAndGet();
+            payload = CachedPayload.of(full(snapshot));
+        } else {
+            deltaResponses.incrementAndGet();
+            payload = CachedPayload.of(delta(snapshot, changed));
+        }
+        if (cache.size() < MAX_MEMOIZED) {
+            cache.putIfAbsent(since, payload);
+        }
+        return payload;
+    }
+
+    /**
+     * 合併 (since, version] 之間所有更新變動的幣種；無法由變動紀錄得出時回傳 null
+     */
+    private synchronized Set<String> collect(long since, long version) {
+        if (since == version) {
+            return Set.of();
+        }
+        if (since > version || changes.isEmpty() || since < changes.peekFirst().baseVersion()
+                || changes.peekLast().version() != version) {
+            return null;
+        }
+        Set<String> ids = new TreeSet<>();
+        Iterator<Change> it = changes.descendingIterator();
+        while (it.hasNext()) {
+            Change change = it.next();
+            if (change.version() <= since) {
+                break;
+            }
+            ids.addAll(List.of(change.ids()));
+        }
+        return ids;
+    }
+
+    private static String[] changedIds(MarketSnapshot before, MarketSnapshot after) {
+        List<String> ids = new ArrayList<>();
+        for (int row = 0; row < after.size(); row++) {
+            int old = before.indexOf(after.id(row));
+            if (old < 0 || !after.sameValues(row, before, old)) {
+                ids.add(after.id(row));
+            }
+        }
+        for (int row = 0; row < before.size(); row++) {
+            if (after.indexOf(before.id(row)) < 0) {
+                ids.add(before.id(row));  // 離開快照
+            }
+        }
+        return ids.toArray(new String[0]);
+    }
+
+    private static String full(MarketSnapshot snapshot) {
+        return "{\"version\":" + snapshot.getVersion() + ",\"full\":true,\"coins\":"
+                + snapshot.page(1, snapshot.size(), MarketSnapshot.MARKET_CAP_DESC) + ",\"removed\":[]}";
+    }
+
+    private static String delta(MarketSnapshot snapshot, Set<String> changed) {
+        int[] rows = new int[changed.size()];
+        int count = 0;
+        StringBuilder removed = new StringBuilder();
+        for (String id : changed) {
+            int row = snapshot.indexOf(id);
+            if (row >= 0) {
+                rows[count++] = row;
+            } else {
+                removed.append(removed.isEmpty() ? "\"" : ",\"")
+                        .append(JsonStringEncoder.getInstance().quoteAsString(id)).append('"');
+            }
+        }
+        return "{\"version\":" + snapshot.getVersion() + ",\"full\":false,\"coins\":"
+                + snapshot.rowsAsJson(rows, 0, count) + ",\"removed\":[" + removed + "]}";
+    }
+
+    /**
+     * 取得變動紀錄統計（供管理員監控使用）
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("history", changes.size());
+        stats.put("oldestVersion", changes.isEmpty() ? null : changes.peekFirst().baseVersion());
+        stats.put("deltaResponses", deltaResponses.get());
+        stats.put("fullResponses", fullResponses.get());
+        return stats;
+    }
+
+    /**
+     * 最新一版快照與該版已組好的回應（隨新版本一起替換）
+     */
+    private record Latest(MarketSnapshot snapshot, Map<Long, CachedPayload> memoized) {
+    }
+
+    /**
+     * 一次快照更新（baseVersion → version）變動的幣種
+     */
+    private record Change(long baseVersion, long version, String[] ids) {
+    }
+}
@@ -0,0 +1,303 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.exception.ExternalApiException;
+import com.crypto.dashboard.exception.ValidationException;
+import com.crypto.dashboard.util.LttbDownsampler;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 價格走勢服務（/api/coins/{id}/chart）
+ * 作用：取代前端直接呼叫 CoinGecko market_chart；每個幣種依資料間隔分成三個序列（PriceSeries），
+ *      第一次讀取時抓完整區間，之後只用 market_chart/range 補上最新的資料，
+ *      回應前以 LTTB 降採樣到圖表寬度
+ *
+ * 降採樣後的內容依 (幣種, 天數, 寬度) 保存：序列沒有新資料、時間窗起點也沒有移動時，
+ * 直接回傳同一份 CachedPayload，不重新降採樣、編碼、gzip 與計算 ETag
+ *
+ * 資料間隔與 CoinGecko 相同：1 天內每 5 分鐘、90 天內每小時、其餘每天
+ */
+@Service
+@RequiredArgsConstructor
+public class MarketChartService {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketChartService.class);
+
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+
+    public static final int MAX_DAYS = 365;
+    public static final int MIN_WIDTH = 10;
+    public static final int MAX_WIDTH = 2000;
+
+    /**
+     * 序列的資料間隔
+     */
+    enum Tier {
+        FIVE_MINUTE(1, 5 * MINUTE, 5 * MINUTE),
+        HOURLY(90, HOUR, 30 * MINUTE),
+        DAILY(MAX_DAYS, DAY, 6 * HOUR);
+
+        final int maxDays;          // 向上游抓取完整區間時的天數
+        final long step;            // 資料間隔
+        final long refreshAfter;    // 多久之後補抓最新資料
+
+        Tier(int maxDays, long step, long refreshAfter) {
+            this.maxDays = maxDays;
+            this.step = step;
+            this.refreshAfter = refreshAfter;
+        }
+
+        int capacity() {
+            // 多留一週的空間，完整區間不會因為持續追加而太快被擠掉
+            return (int) ((maxDays + 7) * DAY / step) + 1;
+        }
+
+        static Tier forDays(int days) {
+            return days <= FIVE_MINUTE.maxDays ? FIVE_MINUTE : days <= HOURLY.maxDays ? HOURLY : DAILY;
+        }
+    }
+
+    private final CoinGeckoClient coinGeckoClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 最多保存幾個序列（幣種 × 資料間隔）
+     */
+    @Value("${market.chart.max-series:1500}")
+    private long maxSeries;
+
+    /**
+     * 最多保存幾份降採樣後的回應（幣種 × 天數 × 寬度）
+     */
+    @Value("${market.chart.max-payloads:5000}")
+    private long maxPayloads;
+
+    private Cache<String, PriceSeries> series;
+    private Cache<String, Memo> payloads;
+
+    /**
+     * 降採樣後的回應，以及產生時的序列位置
+     */
+    private record Memo(PriceSeries.Position position, CachedPayload payload) {
+    }
+
+    // 統計數據
+    private final LongAdder served = new LongAdder();
+    private final LongAdder memoHits = new LongAdder();
+    private final LongAdder fullFetches = new LongAdder();
+    private final LongAdder incrementalFetches = new LongAdder();
+    private final LongAdder failedFetches = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        series = Caffeine.newBuilder()
+                .maximumSize(maxSeries)
+                .expireAfterAccess(Duration.ofDays(1))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, series, "marketChart");
+        payloads = Caffeine.newBuilder()
+                .maximumSize(maxPayloads)
+                .expireAfterAccess(Duration.ofHours(1))
+                .build();
+    }
+
+    /**
+     * 取得價格走勢（格式與 CoinGecko market_chart 的 prices 相同：{"prices":[[timestamp, price], ...]}）
+     * @param days 往回幾天（1 ~ 365）
+     * @param width 最多回傳幾個點（通常為圖表的像素寬度）
+     */
+    public CachedPayload getChart(String coinId, int days, int width) {
+        if (width < MIN_WIDTH || width > MAX_WIDTH) {
+            throw new ValidationException("width must be between " + MIN_WIDTH + " and " + MAX_WIDTH);
+        }
+        long from = System.currentTimeMillis() - days * DAY;
+        PriceSeries prices = getSeries(coinId, days, from);
+        served.increment();
+
+        String key = coinId + ":" + days + ":" + width;
+        PriceSeries.Position position = prices.position(from);
+        Memo memo = payloads.getIfPresent(key);
+        if (memo != null && memo.position().equals(position)) {
+            memoHits.increment();
+            return memo.payload();
+        }
+
+        // 取得位置與複製片段之間若剛好有新資料，這份內容比 position 新，下一次請求會重新產生
+        PriceSeries.Slice slice = prices.sliceFrom(from);
+        int[] selected = LttbDownsampler.select(slice.timestamps(), slice.prices(), slice.length(), width);
+        CachedPayload payload = CachedPayload.of(toJson(slice, selected));
+        payloads.put(key, new Memo(position, payload));
+        return payload;
+    }
+
+    /**
+     * 取得最近 days 天的原始序列（未降採樣，與 getChart 共用同一份快取）
+     */
+    PriceSeries.Slice getSlice(String coinId, int days) {
+        long from = System.currentTimeMillis() - days * DAY;
+        return getSeries(coinId, days, from).sliceFrom(from);
+    }
+
+    /**
+     * 取得涵蓋 from 之後資料的序列（必要時向上游抓取）
+     */
+    private PriceSeries getSeries(String coinId, int days, long from) {
+        if (days < 1 || days > MAX_DAYS) {
+            throw new ValidationException("days must be between 1 and " + MAX_DAYS);
+        }
+        Tier tier = Tier.forDays(days);
+        String key = coinId + ":" + tier;
+        PriceSeries prices = series.get(key, k -> new PriceSeries(tier.capacity(), tier.step));
+        try {
+            ensureFresh(coinId, tier, prices, from, System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            // 第一次抓取就失敗（例如不存在的幣種）：移除空序列，避免無效 id 佔滿快取、擠掉真正的序列
+            if (prices.size() == 0) {
+                series.asMap().remove(key, prices);
+            }
+            throw e;
+        }
+        return prices;
+    }
+
+    /**
+     * days 天的序列使用的資料間隔（毫秒）
+     */
+    static long stepFor(int days) {
+        return Tier.forDays(days).step;
+    }
+
+    /**
+     * 序列不夠長就抓完整區間；太久沒更新就只補抓最後一點之後的資料
+     * 補抓失敗時沿用現有資料，沒有任何資料才把錯誤丟給使用者
+     */
+    private void ensureFresh(String coinId, Tier tier, PriceSeries prices, long from, long now) {
+        boolean covered = prices.size() > 0 && prices.firstTimestamp() <= from + tier.step;
+        if (covered && now - prices.fetchedAt() < tier.refreshAfter) {
+            return;
+        }
+
+        try {
+            if (!covered) {
+                Points points = parse(coinGeckoClient.fetchMarketChart(coinId, tier.maxDays));
+                prices.replace(points.timestamps, points.prices, points.count, now);
+                fullFetches.increment();
+            } else {
+                long fromSeconds = TimeUnit.MILLISECONDS.toSeconds(prices.lastTimestamp());
+                Points points = parse(coinGeckoClient.fetchMarketChartRange(coinId, fromSeconds,
+                        TimeUnit.MILLISECONDS.toSeconds(now)));
+                prices.merge(points.timestamps, points.prices, points.count, now);
+                incrementalFetches.increment();
+            }
+        } catch (ExternalApiException e) {
+            failedFetches.increment();
+            if (prices.size() == 0) {
+                throw e;
+            }
+            log.debug("Serving cached chart for {} after refresh failure: {}", coinId, e.getMessage());
+        }
+    }
+
+    /**
+     * 以串流方式只讀取 prices 陣列，直接寫入原始型別陣列
+     */
+    private Points parse(byte[] body) {
+        Points points = new Points();
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new ExternalApiException("Unexpected market chart response");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (!"prices".equals(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_ARRAY) {
+                    parser.nextToken();
+                    long ts = parser.getLongValue();
+                    parser.nextToken();
+                    double price = parser.currentToken() == JsonToken.VALUE_NULL ? Double.NaN : parser.getDoubleValue();
+                    parser.nextToken();  // END_ARRAY
+                    if (!Double.isNaN(price)) {
+                        points.add(ts, price);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new ExternalApiException("Failed to parse market chart response", e);
+        }
+        return points;
+    }
+
+    private static String toJson(PriceSeries.Slice slice, int[] selected) {
+        StringBuilder json = new StringBuilder(16 + selected.length * 32);
+        json.append("{\"prices\":[");
+        for (int i = 0; i < selected.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            int row = selected[i];
+            json.append('[').append(slice.timestamps()[row]).append(',').append(slice.prices()[row]).append(']');
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * 取得走勢服務統計（供管理員監控使用）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("series", series.estimatedSize());
+        stats.put("served", served.sum());
+        stats.put("memoHits", memoHits.sum());
+        stats.put("memoizedPayloads", payloads.estimatedSize());
+        stats.put("fullFetches", fullFetches.sum());
+        stats.put("incrementalFetches", incrementalFetches.sum());
+        stats.put("failedFetches", failedFetches.sum());
+        return stats;
+    }
+
+    /**
+     * 解析中的點（可自動擴充的原始型別陣列）
+     */
+    private static final class Points {
+        private long[] timestamps = new long[512];
+        private double[] prices = new double[512];
+        private int count;
+
+        void add(long ts, double price) {
+            if (count == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, count * 2);
+                prices = Arrays.copyOf(prices, count * 2);
+            }
+            timestamps[count] = ts;
+            prices[count] = price;
+            count++;
+        }
+    }
+}
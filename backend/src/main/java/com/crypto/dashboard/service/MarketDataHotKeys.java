@@ -0,0 +1,149 @@
+package com.crypto.dashboard.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 市場資料熱門 key 追蹤器
+ * 作用：記錄每個快取 key 最近的命中次數與最後一次從上游寫入的時間，
+ *      供 MarketDataRefreshScheduler 挑選「熱門且快過期」的 key 預先刷新
+ *
+ * key 格式（與 UpstreamRequestCoalescer 共用）：
+ * - coinsList:{page}-{perPage}-{orderBy}
+ * - coinDetail:{coinId}
+ * - globalData
+ * - coinsCatalog（/coins/list，只由 CoinCatalogService 每天刷新，不追蹤熱度）
+ * - exchangeRates（/exchange_rates，只由 FxRateService 定期刷新，不追蹤熱度）
+ */
+@Component
+public class MarketDataHotKeys {
+
+    public static final String COINS_LIST_PREFIX = "coinsList:";
+    public static final String COIN_DETAIL_PREFIX = "coinDetail:";
+    public static final String GLOBAL_DATA_KEY = "globalData";
+    public static final String COINS_CATALOG_KEY = "coinsCatalog";
+    public static final String EXCHANGE_RATES_KEY = "exchangeRates";
+
+    private static final long MAX_BACKOFF_MS = 3_600_000;
+
+    private final ConcurrentHashMap<String, KeyStats> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 最多追蹤的 key 數量（避免被隨機 coinId 灌爆記憶體）
+     */
+    @Value("${coingecko.refresh.max-tracked-keys:5000}")
+    private int maxTrackedKeys;
+
+    public static String coinsListKey(int page, int perPage, String orderBy) {
+        return COINS_LIST_PREFIX + page + "-" + perPage + "-" + orderBy;
+    }
+
+    public static String coinDetailKey(String coinId) {
+        return COIN_DETAIL_PREFIX + coinId;
+    }
+
+    /**
+     * 記錄一次讀取（不論快取是否命中）
+     */
+    public void recordHit(String key) {
+        KeyStats entry = entries.get(key);
+        if (entry == null) {
+            if (entries.size() >= maxTrackedKeys) {
+                return;
+            }
+            entry = entries.computeIfAbsent(key, k -> new KeyStats());
+        }
+        entry.hits.increment();
+    }
+
+    /**
+     * 記錄一次上游寫入快取
+     */
+    public void recordFetch(String key) {
+        recordFetch(key, System.currentTimeMillis());
+    }
+
+    /**
+     * 記錄一次快取寫入
+     * @param fetchedAt 資料實際從上游取得的時間（由磁碟快取回應時早於現在）
+     */
+    public void recordFetch(String key, long fetchedAt) {
+        KeyStats entry = entries.get(key);
+        if (entry != null) {
+            entry.fetchedAt = fetchedAt;
+            entry.failures = 0;
+            entry.retryAt = 0;
+        }
+    }
+
+    /**
+     * 記錄一次預先刷新失敗：之後 refresh-after × 2^失敗次數 內不再挑選（最多 MAX_BACKOFF_MS）
+     * 避免已下架的幣種或持續失敗的 key 每個週期都佔用刷新額度
+     */
+    public void recordFailure(String key, long refreshAfterMillis) {
+        KeyStats entry = entries.get(key);
+        if (entry != null) {
+            int failures = Math.min(entry.failures + 1, 16);
+            entry.failures = failures;
+            long backoff = Math.min(MAX_BACKOFF_MS, refreshAfterMillis << Math.min(failures - 1, 10));
+            entry.retryAt = System.currentTimeMillis() + backoff;
+        }
+    }
+
+    /**
+     * 衰減命中分數：score = score / 2 + 本週期命中數
+     * 分數歸零的 key 代表最近沒人讀取，直接移除
+     */
+    public void decay() {
+        entries.entrySet().removeIf(e -> {
+            KeyStats entry = e.getValue();
+            entry.score = entry.score / 2 + entry.hits.sumThenReset();
+            return entry.score == 0;
+        });
+    }
+
+    /**
+     * 挑選需要預先刷新的 key（依熱門程度由高到低）
+     * 從未成功寫入過快取的 key（例如不存在的 coinId）不預先刷新，交給正常 miss 流程；
+     * 最近刷新失敗、仍在退避中的 key 也略過
+     * @param refreshAfterMillis 快取寫入超過多久才需要刷新
+     * @param limit 最多回傳幾個
+     */
+    public List<String> refreshCandidates(long refreshAfterMillis, int limit) {
+        long now = System.currentTimeMillis();
+        List<Map.Entry<String, KeyStats>> due = new ArrayList<>();
+        for (Map.Entry<String, KeyStats> e : entries.entrySet()) {
+            KeyStats entry = e.getValue();
+            if (entry.score > 0 && entry.fetchedAt > 0
+                    && now - entry.fetchedAt >= refreshAfterMillis && now >= entry.retryAt) {
+                due.add(e);
+            }
+        }
+        due.sort(Comparator.comparingLong((Map.Entry<String, KeyStats> e) -> e.getValue().score).reversed());
+
+        List<String> keys = new ArrayList<>(Math.min(limit, due.size()));
+        for (int i = 0; i < due.size() && i < limit; i++) {
+            keys.add(due.get(i).getKey());
+        }
+        return keys;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class KeyStats {
+        private final LongAdder hits = new LongAdder();
+        private volatile long score;
+        private volatile long fetchedAt;  // 0 = 尚未記錄到上游寫入
+        private volatile int failures;    // 連續刷新失敗次數
+        private volatile long retryAt;    // 退避結束時間
+    }
+}
@@ -0,0 +1,91 @@
+package com.crypto.dashboard.service;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 市場資料預先刷新排程（refresh-ahead / stale-while-revalidate）
+ * 作用：在快取過期前，於背景重新抓取熱門 key 並覆寫快取
+ *      刷新進行中，使用者仍讀到舊值，不必在請求執行緒上等待 CoinGecko
+ *
+ * 每個週期：
+ * 1. 衰減各 key 的命中分數（只保留最近仍有人讀的 key）
+ * 2. 挑出寫入時間超過 refresh-after-ms 的熱門 key（刷新失敗的 key 依連續失敗次數退避）
+ * 3. 依熱門程度刷新，最多 budget-per-cycle 次上游呼叫
+ */
+@Component
+@RequiredArgsConstructor
+public class MarketDataRefreshScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketDataRefreshScheduler.class);
+
+    private final MarketDataHotKeys hotKeys;
+    private final CoinGeckoClient coinGeckoClient;
+
+    /**
+     * 快取寫入超過多久就預先刷新（需小於 Caffeine 的 expireAfterWrite，預設 4 分鐘）
+     */
+    @Value("${coingecko.refresh.refresh-after-ms:240000}")
+    private long refreshAfterMillis;
+
+    /**
+     * 每個週期最多允許的上游呼叫次數
+     */
+    @Value("${coingecko.refresh.budget-per-cycle:5}")
+    private int budgetPerCycle;
+
+    private final AtomicLong refreshed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @Scheduled(fixedDelayString = "${coingecko.refresh.interval-ms:30000}",
+               initialDelayString = "${coingecko.refresh.interval-ms:30000}")
+    public void refreshHotKeys() {
+        hotKeys.decay();
+
+        List<String> keys = hotKeys.refreshCandidates(refreshAfterMillis, budgetPerCycle);
+        for (String key : keys) {
+            try {
+                refresh(key);
+                refreshed.incrementAndGet();
+            } catch (Exception e) {
+                // 刷新失敗不影響使用者：舊值仍在快取中，過期後由正常 miss 流程處理
+                failed.incrementAndGet();
+                hotKeys.recordFailure(key, refreshAfterMillis);
+                log.warn("Refresh-ahead failed for {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    private void refresh(String key) {
+        if (key.startsWith(MarketDataHotKeys.COINS_LIST_PREFIX)) {
+            // coinsList:{page}-{perPage}-{orderBy}（只切前兩段，其餘都是 orderBy）
+            String[] parts = key.substring(MarketDataHotKeys.COINS_LIST_PREFIX.length()).split("-", 3);
+            coinGeckoClient.refreshCoinsList(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), parts[2]);
+        } else if (key.startsWith(MarketDataHotKeys.COIN_DETAIL_PREFIX)) {
+            coinGeckoClient.refreshCoinDetail(key.substring(MarketDataHotKeys.COIN_DETAIL_PREFIX.length()));
+        } else if (MarketDataHotKeys.GLOBAL_DATA_KEY.equals(key)) {
+            coinGeckoClient.refreshGlobalData();
+        }
+    }
+
+    /**
+     * 取得刷新統計（供管理員監控使用）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedKeys", hotKeys.size());
+        stats.put("refreshed", refreshed.get());
+        stats.put("failed", failed.get());
+        stats.put("budgetPerCycle", budgetPerCycle);
+        return stats;
+    }
+}
@@ -0,0 +1,44 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.dto.request.MarketFilterRequest;
+import com.crypto.dashboard.entity.MarketFilterPreset;
+
+import java.math.BigDecimal;
+
+/**
+ * 市場篩選條件（已轉成原始型別，未設定的邊界為 ±Infinity）
+ */
+public record MarketFilterCriteria(
+        double priceMin, double priceMax,
+        double marketCapMin, double marketCapMax,
+        double volumeMin, double volumeMax,
+        double change24hMin, double change24hMax) {
+
+    public static MarketFilterCriteria from(MarketFilterPreset preset) {
+        return new MarketFilterCriteria(
+                lower(preset.getPriceMin()), upper(preset.getPriceMax()),
+                lower(preset.getMarketCapMin()), upper(preset.getMarketCapMax()),
+                lower(preset.getVolume24hMin()), Double.POSITIVE_INFINITY,
+                lower(preset.getPriceChange24hMin()), upper(preset.getPriceChange24hMax()));
+    }
+
+    public static MarketFilterCriteria from(MarketFilterRequest request) {
+        return new MarketFilterCriteria(
+                lower(request.getPriceMin()), upper(request.getPriceMax()),
+                lower(request.getMarketCapMin()), upper(request.getMarketCapMax()),
+                lower(request.getVolume24hMin()), Double.POSITIVE_INFINITY,
+                lower(request.getPriceChange24hMin()), upper(request.getPriceChange24hMax()));
+    }
+
+    private static double lower(Number value) {
+        return value == null ? Double.NEGATIVE_INFINITY : toDouble(value);
+    }
+
+    private static double upper(Number value) {
+        return value == null ? Double.POSITIVE_INFINITY : toDouble(value);
+    }
+
+    private static double toDouble(Number value) {
+        return value instanceof BigDecimal decimal ? decimal.doubleValue() : value.doubleValue();
+    }
+}
@@ -0,0 +1,122 @@
+package com.crypto.dashboard.service;
+
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+/**
+ * 市場篩選索引（每個快照版本建立一次）
+ * 每個數值欄位預先依值排序；範圍條件 = 兩次二分搜尋找出區間 → 轉成 BitSet → 各欄位 BitSet 取交集
+ * 上游回傳 null 的值（NaN）不進索引，只要該欄位有設定邊界就不會被選中
+ */
+final class MarketFilterIndex {
+
+    private final MarketSnapshot snapshot;
+    private final ColumnIndex price;
+    private final ColumnIndex marketCap;
+    private final ColumnIndex volume;
+    private final ColumnIndex change24h;
+
+    MarketFilterIndex(MarketSnapshot snapshot) {
+        this.snapshot = snapshot;
+        int n = snapshot.size();
+        double[] priceValues = new double[n];
+        double[] marketCapValues = new double[n];
+        double[] volumeValues = new double[n];
+        double[] changeValues = new double[n];
+        for (int row = 0; row < n; row++) {
+            priceValues[row] = snapshot.price(row);
+            marketCapValues[row] = snapshot.marketCap(row);
+            volumeValues[row] = snapshot.volume(row);
+            changeValues[row] = snapshot.change24h(row);
+        }
+        this.price = new ColumnIndex(priceValues);
+        this.marketCap = new ColumnIndex(marketCapValues);
+        this.volume = new ColumnIndex(volumeValues);
+        this.change24h = new ColumnIndex(changeValues);
+    }
+
+    MarketSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 計算符合條件的列（bit i = 第 i 列符合）
+     */
+    BitSet match(MarketFilterCriteria criteria) {
+        BitSet result = new BitSet(snapshot.size());
+        result.set(0, snapshot.size());
+        price.intersect(result, criteria.priceMin(), criteria.priceMax());
+        marketCap.intersect(result, criteria.marketCapMin(), criteria.marketCapMax());
+        volume.intersect(result, criteria.volumeMin(), criteria.volumeMax());
+        change24h.intersect(result, criteria.change24hMin(), criteria.change24hMax());
+        return result;
+    }
+
+    /**
+     * 單一欄位的排序索引
+     */
+    private static final class ColumnIndex {
+        private final int[] rows;        // 依值由小到大排列的列號
+        private final double[] values;   // 與 rows 對應的值
+
+        ColumnIndex(double[] column) {
+            this.rows = IntStream.range(0, column.length)
+                    .filter(row -> !Double.isNaN(column[row]))
+                    .boxed()
+                    .sorted((a, b) -> Double.compare(column[a], column[b]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            this.values = new double[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                values[i] = column[rows[i]];
+            }
+        }
+
+        void intersect(BitSet result, double min, double max) {
+            if (min == Double.NEGATIVE_INFINITY && max == Double.POSITIVE_INFINITY) {
+                return;  // 沒有設定邊界
+            }
+            BitSet inRange = new BitSet(result.size());
+            int from = lowerBound(min);
+            int to = upperBound(max);
+            for (int i = from; i < to; i++) {
+                inRange.set(rows[i]);
+            }
+            result.and(inRange);
+        }
+
+        /**
+         * 第一個 >= min 的位置
+         */
+        private int lowerBound(double min) {
+            int lo = 0;
+            int hi = values.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid] < min) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /**
+         * 第一個 > max 的位置
+         */
+        private int upperBound(double max) {
+            int lo = 0;
+            int hi = values.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid] <= max) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.dto.request.MarketFilterRequest;
+import com.crypto.dashboard.dto.response.MarketFilterResponse;
+import com.crypto.dashboard.entity.MarketFilterPreset;
+import com.crypto.dashboard.entity.User;
+import com.crypto.dashboard.exception.ResourceNotFoundException;
+import com.crypto.dashboard.exception.ServiceNotReadyException;
+import com.crypto.dashboard.exception.ValidationException;
+import com.crypto.dashboard.repository.MarketFilterPresetRepository;
+import com.crypto.dashboard.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 市場篩選服務
+ * 篩選預設（market_filter_presets）的 CRUD，以及在伺服器端對市場快照執行篩選
+ *
+ * 注意：/coins/markets 的資料不含分類，categories 只會被儲存，篩選時不會套用
+ */
+@Service
+@RequiredArgsConstructor
+public class MarketFilterService {
+
+    private final MarketFilterPresetRepository presetRepository;
+    private final UserRepository userRepository;
+    private final MarketSnapshotService marketSnapshotService;
+
+    private volatile MarketFilterIndex index;
+
+    // ========== 篩選預設 CRUD ==========
+
+    public List<MarketFilterPreset> getPresets(Long userId) {
+        return presetRepository.findByUser_IdOrderByCreatedAtDesc(userId);
+    }
+
+    @Transactional
+    public MarketFilterPreset createPreset(Long userId, MarketFilterRequest request) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+        MarketFilterPreset preset = new MarketFilterPreset();
+        preset.setUser(user);
+        apply(preset, request);
+        return presetRepository.save(preset);
+    }
+
+    @Transactional
+    public MarketFilterPreset updatePreset(Long userId, Long presetId, MarketFilterRequest request) {
+        MarketFilterPreset preset = findPreset(userId, presetId);
+        apply(preset, request);
+        return presetRepository.save(preset);
+    }
+
+    @Transactional
+    public void deletePreset(Long userId, Long presetId) {
+        presetRepository.delete(findPreset(userId, presetId));
+    }
+
+    private MarketFilterPreset findPreset(Long userId, Long presetId) {
+        return presetRepository.findByIdAndUser_Id(presetId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Filter preset not found with id: " + presetId));
+    }
+
+    private void apply(MarketFilterPreset preset, MarketFilterRequest request) {
+        if (request.getPresetName() == null || request.getPresetName().isBlank()) {
+            throw new ValidationException("Preset name is required");
+        }
+        validate(request);
+
+        preset.setPresetName(request.getPresetName());
+        preset.setPriceMin(request.getPriceMin());
+        preset.setPriceMax(request.getPriceMax());
+        preset.setMarketCapMin(request.getMarketCapMin());
+        preset.setMarketCapMax(request.getMarketCapMax());
+        preset.setVolume24hMin(request.getVolume24hMin());
+        preset.setPriceChange24hMin(request.getPriceChange24hMin());
+        preset.setPriceChange24hMax(request.getPriceChange24hMax());
+        preset.setCategories(request.getCategories());
+        preset.setIsDefault(Boolean.TRUE.equals(request.getIsDefault()));
+    }
+
+    private void validate(MarketFilterRequest request) {
+        checkRange("price", request.getPriceMin(), request.getPriceMax());
+        checkRange("marketCap", request.getMarketCapMin(), request.getMarketCapMax());
+        checkRange("priceChange24h", request.getPriceChange24hMin(), request.getPriceChange24hMax());
+    }
+
+    private static void checkRange(String field, Number min, Number max) {
+        if (min != null && max != null
+                && new BigDecimal(min.toString()).compareTo(new BigDecimal(max.toString())) > 0) {
+            throw new ValidationException(field + " min must not be greater than max");
+        }
+    }
+
+    // ========== 篩選 ==========
+
+    /**
+     * 以已儲存的預設篩選
+     */
+    public MarketFilterResponse evaluatePreset(Long userId, Long presetId, int page, int perPage, String orderBy) {
+        MarketFilterPreset preset = findPreset(userId, presetId);
+        return evaluate(MarketFilterCriteria.from(preset), page, perPage, orderBy);
+    }
+
+    /**
+     * 以臨時條件篩選（不儲存）
+     */
+    public MarketFilterResponse evaluateAdHoc(MarketFilterRequest request, int page, int perPage, String orderBy) {
+        validate(request);
+        return evaluate(MarketFilterCriteria.from(request), page, perPage, orderBy);
+    }
+
+    private MarketFilterResponse evaluate(MarketFilterCriteria criteria, int page, int perPage, String orderBy) {
+        if (page < 1 || perPage < 1 || perPage > 250) {
+            throw new ValidationException("page must be >= 1 and perPage between 1 and 250");
+        }
+
+        MarketFilterIndex current = currentIndex();
+        MarketSnapshot snapshot = current.snapshot();
+        if (!snapshot.supportsOrder(orderBy)) {
+            throw new ValidationException("Unsupported orderBy: " + orderBy);
+        }
+
+        // 依排序走訪，只保留符合的列
+        BitSet matches = current.match(criteria);
+        int[] order = snapshot.permutation(orderBy);
+        int[] rows = new int[matches.cardinality()];
+        int total = 0;
+        for (int row : order) {
+            if (matches.get(row)) {
+                rows[total++] = row;
+            }
+        }
+
+        int from = Math.min((page - 1) * perPage, total);
+        int to = Math.min(from + perPage, total);
+        return new MarketFilterResponse(snapshot.getVersion(), total, page, perPage,
+                snapshot.rowsAsJson(rows, from, to));
+    }
+
+    /**
+     * 取得目前快照的篩選索引（快照版本變更時重建）
+     */
+    private MarketFilterIndex currentIndex() {
+        MarketSnapshot snapshot = marketSnapshotService.getFreshSnapshot();
+        if (snapshot == null) {
+            throw new ServiceNotReadyException("Market snapshot is not available yet");
+        }
+
+        MarketFilterIndex current = index;
+        if (current == null || current.snapshot() != snapshot) {
+            current = new MarketFilterIndex(snapshot);
+            index = current;
+        }
+        return current;
+    }
+}
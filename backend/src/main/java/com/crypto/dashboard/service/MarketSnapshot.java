@@ -0,0 +1,252 @@
+package com.crypto.dashboard.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * 市場快照（不可變）
+ * 以欄位式（columnar）原始型別陣列保存前 N 大幣種的市場數據，
+ * 並預先計算各種排序的索引排列（permutation），任何分頁 / 每頁筆數 / 排序都可直接由本地組出
+ *
+ * 每一列的原始 JSON（CoinGecko /coins/markets 單一元素）連續存放在 rowData 中，
+ * 以 rowOffsets 切割，組頁面時直接複製位元組，不需要重新序列化
+ */
+public final class MarketSnapshot {
+
+    /**
+     * 支援的排序（與 CoinGecko /coins/markets 的 order 參數相同）
+     */
+    public static final String MARKET_CAP_DESC = "market_cap_desc";
+    public static final String MARKET_CAP_ASC = "market_cap_asc";
+    public static final String VOLUME_DESC = "volume_desc";
+    public static final String VOLUME_ASC = "volume_asc";
+    public static final String ID_ASC = "id_asc";
+    public static final String ID_DESC = "id_desc";
+
+    private final long version;
+    private final long createdAt;
+
+    // ========== 欄位 ==========
+    private final String[] ids;
+    private final double[] price;
+    private final double[] marketCap;
+    private final double[] volume;
+    private final double[] change24h;
+    private final int[] rank;           // 0 = 無排名
+
+    // ========== 原始 JSON ==========
+    private final byte[] rowData;
+    private final int[] rowOffsets;     // 長度 size + 1
+
+    // ========== 排序索引 ==========
+    private final Map<String, int[]> permutations = new HashMap<>();
+    private final Map<String, Integer> indexById;
+
+    // ========== 已組好的分頁（隨快照一起丟棄）==========
+    private static final int MAX_MEMOIZED_PAGES = 256;
+    private final Map<String, CachedPayload> pages = new ConcurrentHashMap<>();
+
+    MarketSnapshot(long version, long createdAt, String[] ids, double[] price, double[] marketCap,
+                   double[] volume, double[] change24h, int[] rank, byte[] rowData, int[] rowOffsets) {
+        this.version = version;
+        this.createdAt = createdAt;
+        this.ids = ids;
+        this.price = price;
+        this.marketCap = marketCap;
+        this.volume = volume;
+        this.change24h = change24h;
+        this.rank = rank;
+        this.rowData = rowData;
+        this.rowOffsets = rowOffsets;
+
+        int[] byRank = sortByRank(rank);
+        permutations.put(MARKET_CAP_DESC, byRank);
+        permutations.put(MARKET_CAP_ASC, reverse(byRank));
+        int[] byVolume = sortByColumn(volume);
+        permutations.put(VOLUME_DESC, byVolume);
+        permutations.put(VOLUME_ASC, reverse(byVolume));
+        int[] byId = IntStream.range(0, ids.length).boxed()
+                .sorted((a, b) -> ids[a].compareTo(ids[b]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        permutations.put(ID_ASC, byId);
+        permutations.put(ID_DESC, reverse(byId));
+
+        this.indexById = new HashMap<>(ids.length * 2);
+        for (int i = 0; i < ids.length; i++) {
+            indexById.put(ids[i], i);
+        }
+    }
+
+    public boolean supportsOrder(String orderBy) {
+        return permutations.containsKey(orderBy);
+    }
+
+    /**
+     * 此排序在快照內的結果是否與 CoinGecko 全市場排序相同
+     * 只有市值由大到小成立（快照本身就是市值前 N 大）；其他排序只在前 N 大的範圍內排序，
+     * 例如 market_cap_asc 第一頁會是前 N 大裡最小的幣種，而不是全市場最小的
+     */
+    public boolean answersGlobally(String orderBy) {
+        return MARKET_CAP_DESC.equals(orderBy);
+    }
+
+    /**
+     * 分頁範圍是否完全落在快照內
+     */
+    public boolean covers(int page, int perPage) {
+        return page >= 1 && perPage >= 1 && (long) page * perPage <= ids.length;
+    }
+
+    /**
+     * 取得指定分頁的預先編碼內容（同一個快照內只組一次）
+     */
+    public CachedPayload pagePayload(int page, int perPage, String orderBy) {
+        String key = page + "-" + perPage + "-" + orderBy;
+        CachedPayload payload = pages.get(key);
+        if (payload == null) {
+            payload = CachedPayload.of(page(page, perPage, orderBy));
+            if (pages.size() < MAX_MEMOIZED_PAGES) {
+                pages.putIfAbsent(key, payload);
+            }
+        }
+        return payload;
+    }
+
+    /**
+     * 組出指定分頁的 JSON 陣列（格式與 CoinGecko /coins/markets 相同）
+     */
+    public String page(int page, int perPage, String orderBy) {
+        int[] order = permutations.get(orderBy);
+        int from = (page - 1) * perPage;
+        return rowsAsJson(order, from, Math.min(from + perPage, order.length));
+    }
+
+    /**
+     * 將 rows[from, to) 指到的列組成 JSON 陣列
+     */
+    public String rowsAsJson(int[] rows, int from, int to) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(estimateSize(rows, from, to));
+        out.write('[');
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                out.write(',');
+            }
+            int row = rows[i];
+            out.write(rowData, rowOffsets[row], rowOffsets[row + 1] - rowOffsets[row]);
+        }
+        out.write(']');
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 兩個快照中的同一列，追蹤的數值欄位（價格、市值、成交量、24h 漲跌、排名）是否都相同
+     */
+    boolean sameValues(int row, MarketSnapshot other, int otherRow) {
+        return Double.compare(price[row], other.price[otherRow]) == 0
+                && Double.compare(marketCap[row], other.marketCap[otherRow]) == 0
+                && Double.compare(volume[row], other.volume[otherRow]) == 0
+                && Double.compare(change24h[row], other.change24h[otherRow]) == 0
+                && rank[row] == other.rank[otherRow];
+    }
+
+    /**
+     * 取得排序索引排列（不可修改回傳的陣列）
+     */
+    int[] permutation(String orderBy) {
+        return permutations.get(orderBy);
+    }
+
+    private int estimateSize(int[] rows, int from, int to) {
+        int size = 2 + Math.max(0, to - from);
+        for (int i = from; i < to; i++) {
+            size += rowOffsets[rows[i] + 1] - rowOffsets[rows[i]];
+        }
+        return size;
+    }
+
+    // ========== 排序工具 ==========
+
+    /**
+     * 依排名由小到大排序（無排名的放最後）
+     */
+    private static int[] sortByRank(int[] rank) {
+        return IntStream.range(0, rank.length).boxed()
+                .sorted((a, b) -> {
+                    int ra = rank[a] == 0 ? Integer.MAX_VALUE : rank[a];
+                    int rb = rank[b] == 0 ? Integer.MAX_VALUE : rank[b];
+                    return Integer.compare(ra, rb);
+                })
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * 依數值由大到小排序（NaN，也就是上游回傳 null 的放最後）
+     */
+    private static int[] sortByColumn(double[] column) {
+        return IntStream.range(0, column.length).boxed()
+                .sorted((a, b) -> {
+                    double va = Double.isNaN(column[a]) ? Double.NEGATIVE_INFINITY : column[a];
+                    double vb = Double.isNaN(column[b]) ? Double.NEGATIVE_INFINITY : column[b];
+                    return Double.compare(vb, va);
+                })
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static int[] reverse(int[] order) {
+        int[] reversed = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            reversed[i] = order[order.length - 1 - i];
+        }
+        return reversed;
+    }
+
+    // ========== Getter ==========
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int indexOf(String coinId) {
+        Integer index = indexById.get(coinId);
+        return index == null ? -1 : index;
+    }
+
+    public String id(int row) {
+        return ids[row];
+    }
+
+    public double price(int row) {
+        return price[row];
+    }
+
+    public double marketCap(int row) {
+        return marketCap[row];
+    }
+
+    public double volume(int row) {
+        return volume[row];
+    }
+
+    public double change24h(int row) {
+        return change24h[row];
+    }
+
+    public int rank(int row) {
+        return rank[row];
+    }
+}
@@ -0,0 +1,180 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.event.MarketSnapshotUpdatedEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 市場快照服務
+ * 作用：定期從 CoinGecko /coins/markets 抓取市值前 N 大幣種（每頁 250 筆），
+ *      解析成 MarketSnapshot 後整份替換；/api/coins 以市值排序的分頁都直接由快照提供，
+ *      不再需要每個 page-perPage 各自快取一份、各自打一次上游
+ *
+ * 每次成功建立新快照後發佈 MarketSnapshotUpdatedEvent（K 線彙總等以此作為價格 tick）
+ *
+ * 注意：非 market_cap_desc 的排序（市值由小到大、volume、id）在快照內只能排「前 N 大」，
+ *      與 CoinGecko 全市場排序不同，因此 /api/coins 的這些排序仍交給上游（篩選器則明確只針對快照）
+ */
+@Service
+@RequiredArgsConstructor
+public class MarketSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketSnapshotService.class);
+
+    private static final int UPSTREAM_PAGE_SIZE = 250;  // CoinGecko per_page 上限
+
+    private final CoinGeckoClient coinGeckoClient;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 快照涵蓋的幣種數量（市值前 N 大）
+     */
+    @Value("${market.snapshot.size:500}")
+    private int snapshotSize;
+
+    /**
+     * 快照超過多久就不再使用（改走一般快取 + 上游）
+     */
+    @Value("${market.snapshot.max-age-ms:300000}")
+    private long maxAgeMillis;
+
+    private volatile MarketSnapshot current;
+    /**
+     * 以啟動時間作為起始版本：重新啟動後的版本一定大於重啟前用戶端手上的版本
+     */
+    private final AtomicLong versions = new AtomicLong(System.currentTimeMillis());
+    private final AtomicLong failedRefreshes = new AtomicLong();
+
+    @Scheduled(fixedDelayString = "${market.snapshot.interval-ms:60000}")
+    public void refresh() {
+        MarketSnapshot snapshot;
+        try {
+            snapshot = build(fetchRows());
+            current = snapshot;
+            log.debug("Market snapshot v{} built with {} coins", snapshot.getVersion(), snapshot.size());
+        } catch (Exception e) {
+            // 失敗時保留舊快照，直到超過 max-age 才停用
+            failedRefreshes.incrementAndGet();
+            log.warn("Market snapshot refresh failed: {}", e.getMessage());
+            return;
+        }
+        eventPublisher.publishEvent(new MarketSnapshotUpdatedEvent(snapshot));
+    }
+
+    /**
+     * 由快照組出分頁；快照不存在、過舊、排序無法與上游一致或超出範圍時回傳 empty
+     */
+    public Optional<CachedPayload> getCoinsList(int page, int perPage, String orderBy) {
+        MarketSnapshot snapshot = getFreshSnapshot();
+        if (snapshot == null || !snapshot.answersGlobally(orderBy) || !snapshot.covers(page, perPage)) {
+            return Optional.empty();
+        }
+        return Optional.of(snapshot.pagePayload(page, perPage, orderBy));
+    }
+
+    /**
+     * 上游無法使用時的備援：不論快照新舊都由快照組出分頁，並標記為舊資料
+     */
+    public Optional<CachedPayload> getStaleCoinsList(int page, int perPage, String orderBy) {
+        MarketSnapshot snapshot = current;
+        if (snapshot == null || !snapshot.answersGlobally(orderBy) || !snapshot.covers(page, perPage)) {
+            return Optional.empty();
+        }
+        return Optional.of(snapshot.pagePayload(page, perPage, orderBy).asStale());
+    }
+
+    /**
+     * 取得目前可用的快照（過舊則回傳 null）
+     */
+    public MarketSnapshot getFreshSnapshot() {
+        MarketSnapshot snapshot = current;
+        if (snapshot == null || System.currentTimeMillis() - snapshot.getCreatedAt() > maxAgeMillis) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    private List<JsonNode> fetchRows() throws Exception {
+        List<JsonNode> rows = new ArrayList<>(snapshotSize);
+        int pages = (snapshotSize + UPSTREAM_PAGE_SIZE - 1) / UPSTREAM_PAGE_SIZE;
+        for (int page = 1; page <= pages; page++) {
+            JsonNode array = objectMapper.readTree(coinGeckoClient.fetchMarketPage(page, UPSTREAM_PAGE_SIZE).getIdentity());
+            for (JsonNode row : array) {
+                if (rows.size() >= snapshotSize) {
+                    break;
+                }
+                rows.add(row);
+            }
+            if (array.size() < UPSTREAM_PAGE_SIZE) {
+                break;  // 上游已經沒有更多資料
+            }
+        }
+        return rows;
+    }
+
+    private MarketSnapshot build(List<JsonNode> rows) throws Exception {
+        int n = rows.size();
+        String[] ids = new String[n];
+        double[] price = new double[n];
+        double[] marketCap = new double[n];
+        double[] volume = new double[n];
+        double[] change24h = new double[n];
+        int[] rank = new int[n];
+        int[] rowOffsets = new int[n + 1];
+        ByteArrayOutputStream rowData = new ByteArrayOutputStream(n * 700);
+
+        for (int i = 0; i < n; i++) {
+            JsonNode row = rows.get(i);
+            ids[i] = row.path("id").asText();
+            price[i] = number(row, "current_price");
+            marketCap[i] = number(row, "market_cap");
+            volume[i] = number(row, "total_volume");
+            change24h[i] = number(row, "price_change_percentage_24h");
+            rank[i] = row.path("market_cap_rank").asInt(0);
+
+            rowOffsets[i] = rowData.size();
+            rowData.write(objectMapper.writeValueAsBytes(row));
+        }
+        rowOffsets[n] = rowData.size();
+
+        return new MarketSnapshot(versions.incrementAndGet(), System.currentTimeMillis(),
+                ids, price, marketCap, volume, change24h, rank, rowData.toByteArray(), rowOffsets);
+    }
+
+    /**
+     * 讀取數值欄位（null 或缺少時以 NaN 表示）
+     */
+    private static double number(JsonNode row, String field) {
+        JsonNode value = row.get(field);
+        return value == null || !value.isNumber() ? Double.NaN : value.asDouble();
+    }
+
+    /**
+     * 取得快照統計（供管理員監控使用）
+     */
+    public Map<String, Object> getStats() {
+        MarketSnapshot snapshot = current;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("version", snapshot == null ? 0 : snapshot.getVersion());
+        stats.put("coins", snapshot == null ? 0 : snapshot.size());
+        stats.put("ageMillis", snapshot == null ? null : System.currentTimeMillis() - snapshot.getCreatedAt());
+        stats.put("failedRefreshes", failedRefreshes.get());
+        return stats;
+    }
+}
@@ -0,0 +1,435 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.event.MarketSnapshotUpdatedEvent;
+import com.crypto.dashboard.exception.ServiceNotReadyException;
+import com.crypto.dashboard.exception.ValidationException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 即時價格推播（Server-Sent Events）
+ * 作用：取代前端定時重抓整頁 /api/coins；每次市場快照更新時只推送有變動的欄位
+ *
+ * 主題（topic）：
+ * - top:{n}      市值前 n 名（進出前 n 名的幣種分別以完整資料 / removed 通知）
+ * - ids:{a,b,c}  指定幣種（自選清單、單一幣種），id 排序後作為 key，相同清單共用同一個主題
+ *
+ * 每個主題的更新只序列化一次，再放進各訂閱者的有界佇列；
+ * 佇列滿了代表用戶端跟不上，直接中斷連線（EventSource 會自動重連並重新取得完整資料）
+ * 連線閒置時不佔用執行緒（Servlet 非同步），只有寫出時才使用 writer 執行緒
+ */
+@Service
+public class MarketStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(MarketStreamService.class);
+
+    public static final int MAX_TOP = 250;
+    public static final int MAX_IDS = 100;
+
+    private static final String[] FIELD_NAMES = {
+            "current_price", "market_cap", "total_volume", "price_change_percentage_24h", "market_cap_rank"
+    };
+
+    @Value("${market.stream.max-clients:20000}")
+    private int maxClients;
+
+    /**
+     * Tomcat 的連線上限（SSE 訂閱者與一般請求共用）
+     */
+    @Value("${server.tomcat.max-connections:8192}")
+    private int maxConnections;
+
+    /**
+     * 保留給一般 API 請求的連線數，SSE 訂閱者最多使用 max-connections 減去這個數量
+     */
+    @Value("${market.stream.reserved-connections:5000}")
+    private int reservedConnections;
+
+    @Value("${market.stream.client-buffer:16}")
+    private int clientBuffer;
+
+    @Value("${market.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${market.stream.writer-threads:4}")
+    private int writerThreads;
+
+    private final MarketSnapshotService marketSnapshotService;
+    private final Map<String, Topic> topics = new ConcurrentHashMap<>();
+    private final AtomicInteger clients = new AtomicInteger();
+    private ExecutorService writers;
+    private volatile MarketSnapshot previous;
+
+    // 統計數據
+    private final LongAdder framesBuilt = new LongAdder();
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public MarketStreamService(MarketSnapshotService marketSnapshotService) {
+        this.marketSnapshotService = marketSnapshotService;
+    }
+
+    @PostConstruct
+    void init() {
+        int limit = Math.max(0, maxConnections - reservedConnections);
+        if (maxClients > limit) {
+            log.warn("market.stream.max-clients {} exceeds server.tomcat.max-connections {} minus {} reserved, capping at {}",
+                    maxClients, maxConnections, reservedConnections, limit);
+            maxClients = limit;
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        writers = Executors.newFixedThreadPool(writerThreads, r -> {
+            Thread t = new Thread(r, "market-stream-writer-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        topics.values().forEach(topic -> topic.subscribers.forEach(s -> s.emitter.complete()));
+        writers.shutdownNow();
+    }
+
+    /**
+     * 訂閱主題（top 與 ids 擇一）
+     * 連線建立後立即送出一筆 snapshot 事件（完整資料），之後只送 delta 事件
+     */
+    public SseEmitter subscribe(Integer top, String ids) {
+        String key = topicKey(top, ids);
+        if (clients.incrementAndGet() > maxClients) {
+            clients.decrementAndGet();
+            rejected.increment();
+            throw new ServiceNotReadyException("Too many market stream clients, please retry later");
+        }
+
+        // 與推送 delta 互斥：確保初始資料與之後第一筆 delta 的版本銜接，不會漏掉或重複
+        synchronized (this) {
+            MarketSnapshot snapshot = previous != null ? previous : marketSnapshotService.getFreshSnapshot();
+            if (snapshot == null) {
+                clients.decrementAndGet();
+                throw new ServiceNotReadyException("Market snapshot is not available yet");
+            }
+            Topic topic = topics.computeIfAbsent(key, Topic::parse);
+            Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMs), topic, clientBuffer);
+            SseEmitter emitter = subscriber.emitter;
+            emitter.onCompletion(() -> unsubscribe(subscriber));
+            emitter.onTimeout(() -> unsubscribe(subscriber));
+            emitter.onError(e -> unsubscribe(subscriber));
+
+            topic.subscribers.add(subscriber);
+            enqueue(subscriber, new Frame("snapshot", snapshot.getVersion(), topic.fullPayload(snapshot)));
+            return emitter;
+        }
+    }
+
+    /**
+     * 快照更新：每個主題組一次 delta，推送給該主題所有訂閱者
+     */
+    @EventListener
+    public synchronized void onSnapshotUpdated(MarketSnapshotUpdatedEvent event) {
+        MarketSnapshot current = event.snapshot();
+        MarketSnapshot before = previous;
+        previous = current;
+        if (before == null || topics.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> deltas = new HashMap<>();  // coinId → 變動欄位（只算一次，各主題共用）
+        for (Topic topic : topics.values()) {
+            if (topic.subscribers.isEmpty()) {
+                topics.remove(topic.key, topic);  // 已無訂閱者的主題
+                continue;
+            }
+            String payload = topic.deltaPayload(before, current, deltas);
+            if (payload == null) {
+                continue;
+            }
+            framesBuilt.increment();
+            Frame frame = new Frame("delta", current.getVersion(), payload);
+            for (Subscriber subscriber : topic.subscribers) {
+                enqueue(subscriber, frame);
+            }
+        }
+    }
+
+    /**
+     * 定期送出註解行，避免代理伺服器切斷閒置連線，也順便清掉已斷線的用戶端
+     */
+    @Scheduled(fixedDelayString = "${market.stream.heartbeat-ms:20000}")
+    public void heartbeat() {
+        for (Topic topic : topics.values()) {
+            for (Subscriber subscriber : topic.subscribers) {
+                enqueue(subscriber, Frame.HEARTBEAT);
+            }
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, Frame frame) {
+        if (!subscriber.queue.offer(frame)) {
+            evicted.increment();
+            subscriber.emitter.complete();  // 跟不上的用戶端直接中斷
+            unsubscribe(subscriber);
+            return;
+        }
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            writers.execute(() -> drain(subscriber));
+        }
+    }
+
+    /**
+     * 寫出佇列中的所有事件（同一個訂閱者同時只會有一個執行緒在寫）
+     */
+    private void drain(Subscriber subscriber) {
+        try {
+            Frame frame;
+            while ((frame = subscriber.queue.poll()) != null) {
+                if (frame == Frame.HEARTBEAT) {
+                    subscriber.emitter.send(SseEmitter.event().comment("hb"));
+                } else {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .name(frame.event)
+                            .id(Long.toString(frame.version))
+                            .data(frame.data, MediaType.APPLICATION_JSON));
+                }
+                framesSent.increment();
+            }
+        } catch (IOException | IllegalStateException e) {
+            unsubscribe(subscriber);
+            return;
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        if (!subscriber.queue.isEmpty() && subscriber.scheduled.compareAndSet(false, true)) {
+            writers.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (subscriber.closed.compareAndSet(false, true)) {
+            subscriber.topic.subscribers.remove(subscriber);
+            subscriber.queue.clear();
+            clients.decrementAndGet();
+        }
+    }
+
+    private static String topicKey(Integer top, String ids) {
+        if ((top == null) == (ids == null || ids.isBlank())) {
+            throw new ValidationException("Specify exactly one of 'top' or 'ids'");
+        }
+        if (top != null) {
+            if (top < 1 || top > MAX_TOP) {
+                throw new ValidationException("top must be between 1 and " + MAX_TOP);
+            }
+            return "top:" + top;
+        }
+        Set<String> sorted = new TreeSet<>();
+        for (String id : ids.split(",")) {
+            if (!id.isBlank()) {
+                sorted.add(id.trim().toLowerCase());
+            }
+        }
+        if (sorted.size() > MAX_IDS) {
+            throw new ValidationException("At most " + MAX_IDS + " ids per stream");
+        }
+        return "ids:" + String.join(",", sorted);
+    }
+
+    /**
+     * 取得推播統計（供管理員監控使用）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("clients", clients.get());
+        stats.put("topics", topics.size());
+        stats.put("framesBuilt", framesBuilt.sum());
+        stats.put("framesSent", framesSent.sum());
+        stats.put("evicted", evicted.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    // ========== 主題 ==========
+
+    private static final class Topic {
+        final String key;
+        final int top;          // > 0 表示 top:{n}
+        final String[] ids;     // ids:{...}
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+        private Topic(String key, int top, String[] ids) {
+            this.key = key;
+            this.top = top;
+            this.ids = ids;
+        }
+
+        static Topic parse(String key) {
+            if (key.startsWith("top:")) {
+                return new Topic(key, Integer.parseInt(key.substring(4)), null);
+            }
+            return new Topic(key, 0, key.substring(4).split(","));
+        }
+
+        /**
+         * 主題在指定快照中的列（依主題順序，不在快照中的幣種略過）
+         */
+        int[] rows(MarketSnapshot snapshot) {
+            if (top > 0) {
+                int[] order = snapshot.permutation(MarketSnapshot.MARKET_CAP_DESC);
+                return Arrays.copyOf(order, Math.min(top, order.length));
+            }
+            int[] rows = new int[ids.length];
+            int count = 0;
+            for (String id : ids) {
+                int row = snapshot.indexOf(id);
+                if (row >= 0) {
+                    rows[count++] = row;
+                }
+            }
+            return Arrays.copyOf(rows, count);
+        }
+
+        String fullPayload(MarketSnapshot snapshot) {
+            int[] rows = rows(snapshot);
+            return "{\"version\":" + snapshot.getVersion() + ",\"coins\":" + snapshot.rowsAsJson(rows, 0, rows.length) + "}";
+        }
+
+        /**
+         * 組出 delta（沒有任何變動時回傳 null）
+         * 格式：{"version":n,"coins":[{"id":..., 變動欄位...}],"added":[完整資料...],"removed":["id", ...]}
+         */
+        String deltaPayload(MarketSnapshot before, MarketSnapshot after, Map<String, String> deltas) {
+            int[] rows = rows(after);
+            List<String> changed = new ArrayList<>();
+            List<Integer> added = new ArrayList<>();
+            Set<String> members = new TreeSet<>();
+
+            Set<String> previousMembers = new TreeSet<>();
+            for (int row : rows(before)) {
+                previousMembers.add(before.id(row));
+            }
+            for (int row : rows) {
+                String id = after.id(row);
+                members.add(id);
+                int old = before.indexOf(id);
+                if (old < 0 || !previousMembers.contains(id)) {
+                    added.add(row);
+                    continue;
+                }
+                String delta = deltas.computeIfAbsent(id, k -> delta(before, old, after, row));
+                if (!delta.isEmpty()) {
+                    changed.add(delta);
+                }
+            }
+            previousMembers.removeAll(members);
+            if (changed.isEmpty() && added.isEmpty() && previousMembers.isEmpty()) {
+                return null;
+            }
+
+            StringBuilder json = new StringBuilder(64 + changed.size() * 96);
+            json.append("{\"version\":").append(after.getVersion()).append(",\"coins\":[");
+            json.append(String.join(",", changed)).append(']');
+            if (!added.isEmpty()) {
+                int[] addedRows = added.stream().mapToInt(Integer::intValue).toArray();
+                json.append(",\"added\":").append(after.rowsAsJson(addedRows, 0, addedRows.length));
+            }
+            if (!previousMembers.isEmpty()) {
+                json.append(",\"removed\":[");
+                boolean first = true;
+                for (String id : previousMembers) {
+                    json.append(first ? "" : ",").append('"').append(JsonStringEncoder.getInstance().quoteAsString(id)).append('"');
+                    first = false;
+                }
+                json.append(']');
+            }
+            return json.append('}').toString();
+        }
+
+        /**
+         * 單一幣種的變動欄位（沒有變動時回傳空字串）
+         */
+        private static String delta(MarketSnapshot before, int oldRow, MarketSnapshot after, int newRow) {
+            double[] oldValues = values(before, oldRow);
+            double[] newValues = values(after, newRow);
+            StringBuilder json = null;
+            for (int i = 0; i < FIELD_NAMES.length; i++) {
+                if (Double.compare(oldValues[i], newValues[i]) == 0) {
+                    continue;
+                }
+                if (json == null) {
+                    json = new StringBuilder(96).append("{\"id\":\"")
+                            .append(JsonStringEncoder.getInstance().quoteAsString(after.id(newRow))).append('"');
+                }
+                json.append(",\"").append(FIELD_NAMES[i]).append("\":");
+                double value = newValues[i];
+                if (Double.isNaN(value)) {
+                    json.append("null");
+                } else if (i == FIELD_NAMES.length - 1) {
+                    json.append((long) value);  // 排名為整數
+                } else {
+                    json.append(value);
+                }
+            }
+            return json == null ? "" : json.append('}').toString();
+        }
+
+        private static double[] values(MarketSnapshot snapshot, int row) {
+            int rank = snapshot.rank(row);
+            return new double[]{
+                    snapshot.price(row), snapshot.marketCap(row), snapshot.volume(row), snapshot.change24h(row),
+                    rank == 0 ? Double.NaN : rank
+            };
+        }
+    }
+
+    // ========== 訂閱者 ==========
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final Topic topic;
+        final ArrayBlockingQueue<Frame> queue;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter, Topic topic, int capacity) {
+            this.emitter = emitter;
+            this.topic = topic;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    /**
+     * 已序列化的事件（同一個主題的所有訂閱者共用）
+     */
+    private record Frame(String event, long version, String data) {
+        static final Frame HEARTBEAT = new Frame("hb", 0, "");
+    }
+}
@@ -0,0 +1,174 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.entity.CoinPriceAlert;
+import com.crypto.dashboard.event.MarketSnapshotUpdatedEvent;
+import com.crypto.dashboard.event.PriceAlertChangedEvent;
+import com.crypto.dashboard.repository.CoinPriceAlertRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 價格提醒評估引擎
+ * 作用：把所有「啟用中且尚未觸發」的提醒依幣種、方向放進 ThresholdBook，
+ *      每次市場快照更新時只需對每個有提醒的幣種做一次二分搜尋，不必掃描全部提醒
+ *
+ * - 啟動完成後分批載入一次；之後的新增 / 更新 / 刪除在交易提交後逐筆更新索引，不重新載入
+ * - 被穿越的提醒從索引移除，並分批以一條 UPDATE 標記為已觸發
+ * - 只評估市場快照涵蓋的幣種（市值前 N 大）
+ */
+@Component
+@RequiredArgsConstructor
+public class PriceAlertEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceAlertEngine.class);
+
+    private final CoinPriceAlertRepository alertRepository;
+
+    @Value("${alerts.load-batch-size:5000}")
+    private int loadBatchSize;
+
+    @Value("${alerts.update-batch-size:500}")
+    private int updateBatchSize;
+
+    private final Map<String, ThresholdBook> above = new ConcurrentHashMap<>();
+    private final Map<String, ThresholdBook> below = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    private final AtomicLong triggered = new AtomicLong();
+    private final AtomicLong failedUpdates = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long afterId = 0;
+        int count = 0;
+        while (true) {
+            List<Object[]> rows = alertRepository.findPendingAfter(afterId, PageRequest.of(0, loadBatchSize));
+            for (Object[] row : rows) {
+                Long id = (Long) row[0];
+                index((String) row[1], (CoinPriceAlert.AlertType) row[2], id, (BigDecimal) row[3]);
+                afterId = id;
+            }
+            count += rows.size();
+            if (rows.size() < loadBatchSize) {
+                break;
+            }
+        }
+        loaded = true;
+        log.info("Price alert engine loaded {} pending alerts", count);
+    }
+
+    /**
+     * 提醒異動（交易提交後）：先移除舊門檻，仍需評估的再加入新門檻
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAlertChanged(PriceAlertChangedEvent event) {
+        PriceAlertChangedEvent.Snapshot previous = event.previous();
+        if (previous != null && previous.pending()) {
+            ThresholdBook book = bookFor(previous.alertType()).get(previous.coinId());
+            if (book != null) {
+                book.remove(previous.id(), previous.targetPrice().doubleValue());
+            }
+        }
+        PriceAlertChangedEvent.Snapshot current = event.current();
+        if (current != null && current.pending()) {
+            index(current.coinId(), current.alertType(), current.id(), current.targetPrice());
+        }
+    }
+
+    @EventListener
+    public void onSnapshotUpdated(MarketSnapshotUpdatedEvent event) {
+        if (!loaded) {
+            return;
+        }
+        MarketSnapshot snapshot = event.snapshot();
+        List<Long> ids = new ArrayList<>();
+        List<Runnable> rollback = new ArrayList<>();
+        collect(snapshot, above, true, ids, rollback);
+        collect(snapshot, below, false, ids, rollback);
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            for (int from = 0; from < ids.size(); from += updateBatchSize) {
+                List<Long> batch = ids.subList(from, Math.min(from + updateBatchSize, ids.size()));
+                triggered.addAndGet(alertRepository.markTriggered(batch, now));
+            }
+        } catch (Exception e) {
+            // 寫入失敗時放回索引，下一次快照再試（已成功的批次因 is_triggered 條件不會重複更新）
+            failedUpdates.incrementAndGet();
+            rollback.forEach(Runnable::run);
+            log.warn("Failed to mark {} price alerts as triggered: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    private void collect(MarketSnapshot snapshot, Map<String, ThresholdBook> books, boolean isAbove,
+                         List<Long> ids, List<Runnable> rollback) {
+        for (Map.Entry<String, ThresholdBook> entry : books.entrySet()) {
+            int row = snapshot.indexOf(entry.getKey());
+            if (row < 0 || Double.isNaN(snapshot.price(row))) {
+                continue;
+            }
+            ThresholdBook book = entry.getValue();
+            double price = snapshot.price(row);
+            ThresholdBook.Crossed crossed = isAbove ? book.drainAtOrBelow(price) : book.drainAtOrAbove(price);
+            if (crossed.isEmpty()) {
+                continue;
+            }
+            for (long id : crossed.ids()) {
+                ids.add(id);
+            }
+            rollback.add(() -> {
+                for (int i = 0; i < crossed.ids().length; i++) {
+                    book.add(crossed.ids()[i], crossed.targets()[i]);
+                }
+            });
+        }
+    }
+
+    private void index(String coinId, CoinPriceAlert.AlertType type, Long id, BigDecimal targetPrice) {
+        bookFor(type).computeIfAbsent(coinId, k -> new ThresholdBook()).add(id, targetPrice.doubleValue());
+    }
+
+    private Map<String, ThresholdBook> bookFor(CoinPriceAlert.AlertType type) {
+        return type == CoinPriceAlert.AlertType.above ? above : below;
+    }
+
+    /**
+     * 取得提醒引擎統計（供管理員監控使用）
+     */
+    public Map<String, Object> getStats() {
+        long indexed = 0;
+        for (ThresholdBook book : above.values()) {
+            indexed += book.size();
+        }
+        for (ThresholdBook book : below.values()) {
+            indexed += book.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("loaded", loaded);
+        stats.put("indexedAlerts", indexed);
+        stats.put("books", above.size() + below.size());
+        stats.put("triggered", triggered.get());
+        stats.put("failedUpdates", failedUpdates.get());
+        return stats;
+    }
+}
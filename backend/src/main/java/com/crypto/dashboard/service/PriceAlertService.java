@@ -0,0 +1,96 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.dto.request.PriceAlertRequest;
+import com.crypto.dashboard.entity.CoinPriceAlert;
+import com.crypto.dashboard.entity.User;
+import com.crypto.dashboard.event.PriceAlertChangedEvent;
+import com.crypto.dashboard.exception.ResourceNotFoundException;
+import com.crypto.dashboard.exception.ValidationException;
+import com.crypto.dashboard.repository.CoinPriceAlertRepository;
+import com.crypto.dashboard.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 價格提醒服務（coin_price_alerts 的 CRUD）
+ * 每次異動都發佈 PriceAlertChangedEvent，由 PriceAlertEngine 在交易提交後更新索引
+ */
+@Service
+@RequiredArgsConstructor
+public class PriceAlertService {
+
+    private static final String SUPPORTED_CURRENCY = "usd";  // 市場快照只有美元價格
+
+    private final CoinPriceAlertRepository alertRepository;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public List<CoinPriceAlert> getAlerts(Long userId) {
+        return alertRepository.findByUser_IdOrderByCreatedAtDesc(userId);
+    }
+
+    @Transactional
+    public CoinPriceAlert createAlert(Long userId, PriceAlertRequest request) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+        CoinPriceAlert alert = new CoinPriceAlert();
+        alert.setUser(user);
+        apply(alert, request);
+        CoinPriceAlert saved = alertRepository.save(alert);
+        eventPublisher.publishEvent(new PriceAlertChangedEvent(null, PriceAlertChangedEvent.Snapshot.of(saved)));
+        return saved;
+    }
+
+    /**
+     * 更新提醒（修改後重新開始評估，已觸發的狀態會被清除）
+     */
+    @Transactional
+    public CoinPriceAlert updateAlert(Long userId, Long alertId, PriceAlertRequest request) {
+        CoinPriceAlert alert = findAlert(userId, alertId);
+        PriceAlertChangedEvent.Snapshot previous = PriceAlertChangedEvent.Snapshot.of(alert);
+
+        apply(alert, request);
+        alert.setIsTriggered(false);
+        alert.setTriggeredAt(null);
+        CoinPriceAlert saved = alertRepository.save(alert);
+        eventPublisher.publishEvent(new PriceAlertChangedEvent(previous, PriceAlertChangedEvent.Snapshot.of(saved)));
+        return saved;
+    }
+
+    @Transactional
+    public void deleteAlert(Long userId, Long alertId) {
+        CoinPriceAlert alert = findAlert(userId, alertId);
+        PriceAlertChangedEvent.Snapshot previous = PriceAlertChangedEvent.Snapshot.of(alert);
+        alertRepository.delete(alert);
+        eventPublisher.publishEvent(new PriceAlertChangedEvent(previous, null));
+    }
+
+    private CoinPriceAlert findAlert(Long userId, Long alertId) {
+        return alertRepository.findByIdAndUser_Id(alertId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Price alert not found with id: " + alertId));
+    }
+
+    private void apply(CoinPriceAlert alert, PriceAlertRequest request) {
+        CoinPriceAlert.AlertType type;
+        try {
+            type = CoinPriceAlert.AlertType.valueOf(request.getAlertType());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Alert type must be 'above' or 'below'");
+        }
+        String currency = request.getCurrency() == null ? SUPPORTED_CURRENCY : request.getCurrency().toLowerCase();
+        if (!SUPPORTED_CURRENCY.equals(currency)) {
+            throw new ValidationException("Only usd price alerts are supported");
+        }
+
+        alert.setCoinId(request.getCoinId().trim().toLowerCase());
+        alert.setAlertType(type);
+        alert.setTargetPrice(request.getTargetPrice());
+        alert.setCurrency(currency);
+        alert.setIsActive(request.getIsActive() == null || request.getIsActive());
+    }
+}
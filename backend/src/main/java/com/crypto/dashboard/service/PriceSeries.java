@@ -0,0 +1,154 @@
+package com.crypto.dashboard.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 單一幣種、單一資料間隔的價格序列
+ * 以原始型別的環狀緩衝區（long 時間戳 + double 價格）保存，滿了就覆蓋最舊的點
+ *
+ * 時間戳嚴格遞增；最後一點視為「目前價格」，新點與倒數第二點的距離小於 step 時直接覆寫最後一點，
+ * 讓序列間隔維持在 step 左右，同時尾端永遠是最新價格
+ */
+final class PriceSeries {
+
+    /**
+     * 所有序列共用的版本號來源：序列被快取淘汰、重新建立後也不會與舊版本相同
+     */
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final long step;
+    private final long[] timestamps;
+    private final double[] prices;
+    private int head;   // 最舊一點的位置
+    private int size;
+    private long fetchedAt;
+    private long version = VERSIONS.incrementAndGet();
+
+    PriceSeries(int capacity, long stepMillis) {
+        this.step = stepMillis;
+        this.timestamps = new long[capacity];
+        this.prices = new double[capacity];
+    }
+
+    /**
+     * 以上游完整資料取代整個序列
+     */
+    synchronized void replace(long[] ts, double[] px, int count, long now) {
+        head = 0;
+        size = 0;
+        for (int i = 0; i < count; i++) {
+            append(ts[i], px[i]);
+        }
+        fetchedAt = now;
+        version = VERSIONS.incrementAndGet();
+    }
+
+    /**
+     * 追加上游增量資料（比目前最後一點還舊的忽略）
+     */
+    synchronized void merge(long[] ts, double[] px, int count, long now) {
+        for (int i = 0; i < count; i++) {
+            append(ts[i], px[i]);
+        }
+        fetchedAt = now;
+        version = VERSIONS.incrementAndGet();
+    }
+
+    private void append(long ts, double price) {
+        if (size > 0 && ts <= timestampAt(size - 1)) {
+            return;
+        }
+        if (size >= 2 && ts - timestampAt(size - 2) < step) {
+            int last = physical(size - 1);
+            timestamps[last] = ts;
+            prices[last] = price;
+            return;
+        }
+        if (size == timestamps.length) {
+            head = (head + 1) % timestamps.length;
+            size--;
+        }
+        int slot = physical(size);
+        timestamps[slot] = ts;
+        prices[slot] = price;
+        size++;
+    }
+
+    /**
+     * 複製時間戳 >= from 的所有點（以二分搜尋定位起點）
+     */
+    synchronized Slice sliceFrom(long from) {
+        int lo = indexFrom(from);
+        int count = size - lo;
+        long[] ts = new long[count];
+        double[] px = new double[count];
+        for (int i = 0; i < count; i++) {
+            int slot = physical(lo + i);
+            ts[i] = timestamps[slot];
+            px[i] = prices[slot];
+        }
+        return new Slice(ts, px);
+    }
+
+    /**
+     * sliceFrom(from) 會取出的範圍（版本 + 起點），不複製資料；相同就代表片段內容相同
+     */
+    synchronized Position position(long from) {
+        return new Position(version, indexFrom(from));
+    }
+
+    private int indexFrom(long from) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timestampAt(mid) < from) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    synchronized long firstTimestamp() {
+        return size == 0 ? Long.MAX_VALUE : timestampAt(0);
+    }
+
+    synchronized long lastTimestamp() {
+        return size == 0 ? Long.MIN_VALUE : timestampAt(size - 1);
+    }
+
+    synchronized long fetchedAt() {
+        return fetchedAt;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private long timestampAt(int logical) {
+        return timestamps[physical(logical)];
+    }
+
+    private int physical(int logical) {
+        return (head + logical) % timestamps.length;
+    }
+
+    /**
+     * 片段在序列中的位置
+     * @param version 序列內容的版本（每次 replace / merge 遞增）
+     * @param start 片段第一點的邏輯索引
+     */
+    record Position(long version, int start) {
+    }
+
+    /**
+     * 序列片段（呼叫端獨佔，可任意使用）
+     */
+    record Slice(long[] timestamps, double[] prices) {
+        int length() {
+            return timestamps.length;
+        }
+    }
+}
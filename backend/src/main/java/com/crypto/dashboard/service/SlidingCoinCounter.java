@@ -0,0 +1,244 @@
+package com.crypto.dashboard.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 每個幣種在滑動時間窗內的次數（非執行緒安全，由 ActivityRollup 持有鎖呼叫）
+ *
+ * 時間窗分成固定數量的桶（例如 60 個一分鐘桶），桶的輪替由呼叫端控制：
+ * - 頭部：前 capacity 個出現的幣種各有一個固定索引，每個桶一個 int[capacity]，另有整個時間窗的合計；
+ *   合計歸零的幣種在桶過期時釋放索引，讓給新的幣種（精確計數）
+ * - 長尾：索引用完後的幣種改記在 count-min sketch（每個桶一份，另有整個時間窗的合計 sketch），
+ *   並保留估計值最高的少數候選幣種供排行使用（估計值只會高估）
+ */
+final class SlidingCoinCounter {
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 1024;  // 2 的次方
+    private static final int MAX_CANDIDATES = 64;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    /**
+     * 某幣種在時間窗內的次數
+     * @param approximate 含有長尾 sketch 的估計值
+     */
+    record Count(String coinId, long count, boolean approximate) {
+    }
+
+    private final int buckets;
+
+    // 頭部（精確）
+    private final Map<String, Integer> index = new HashMap<>();
+    private final String[] ids;
+    private final int[][] counts;       // [桶][索引]
+    private final long[] totals;        // [索引]：整個時間窗
+    private final int[] free;           // 可用索引（堆疊）
+    private int freeCount;
+
+    // 長尾（估計）
+    private final int[][] sketches;     // [桶][DEPTH * WIDTH]
+    private final int[] windowSketch;   // 整個時間窗
+    private final Map<String, Long> candidates = new HashMap<>();
+    private long tailEvents;
+
+    SlidingCoinCounter(int buckets, int capacity) {
+        this.buckets = buckets;
+        this.ids = new String[capacity];
+        this.counts = new int[buckets][capacity];
+        this.totals = new long[capacity];
+        this.free = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            free[i] = capacity - 1 - i;
+        }
+        this.freeCount = capacity;
+        this.sketches = new int[buckets][DEPTH * WIDTH];
+        this.windowSketch = new int[DEPTH * WIDTH];
+    }
+
+    void add(String coinId, int bucket) {
+        Integer slot = index.get(coinId);
+        if (slot == null && freeCount > 0) {
+            slot = free[--freeCount];
+            index.put(coinId, slot);
+            ids[slot] = coinId;
+        }
+        if (slot != null) {
+            counts[bucket][slot]++;
+            totals[slot]++;
+            return;
+        }
+
+        tailEvents++;
+        int estimate = Integer.MAX_VALUE;
+        for (int d = 0; d < DEPTH; d++) {
+            int cell = cell(coinId, d);
+            sketches[bucket][cell]++;
+            estimate = Math.min(estimate, ++windowSketch[cell]);
+        }
+        offerCandidate(coinId, estimate);
+    }
+
+    private void offerCandidate(String coinId, long estimate) {
+        if (candidates.size() < MAX_CANDIDATES || candidates.containsKey(coinId)) {
+            candidates.put(coinId, estimate);
+            return;
+        }
+        String lowest = null;
+        long lowestCount = Long.MAX_VALUE;
+        for (Map.Entry<String, Long> entry : candidates.entrySet()) {
+            if (entry.getValue() < lowestCount) {
+                lowest = entry.getKey();
+                lowestCount = entry.getValue();
+            }
+        }
+        if (estimate > lowestCount) {
+            candidates.remove(lowest);
+            candidates.put(coinId, estimate);
+        }
+    }
+
+    /**
+     * 清空一個桶（桶輪替時，重新使用前呼叫），從時間窗合計中扣除
+     */
+    void expire(int bucket) {
+        int[] expired = counts[bucket];
+        for (int slot = 0; slot < expired.length; slot++) {
+            if (expired[slot] == 0) {
+                continue;
+            }
+            totals[slot] -= expired[slot];
+            expired[slot] = 0;
+            if (totals[slot] == 0) {
+                index.remove(ids[slot]);
+                ids[slot] = null;
+                free[freeCount++] = slot;
+            }
+        }
+
+        int[] sketch = sketches[bucket];
+        boolean touched = false;
+        for (int cell = 0; cell < sketch.length; cell++) {
+            if (sketch[cell] != 0) {
+                windowSketch[cell] -= sketch[cell];
+                sketch[cell] = 0;
+                touched = true;
+            }
+        }
+        if (touched) {
+            Iterator<Map.Entry<String, Long>> it = candidates.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Long> entry = it.next();
+                long estimate = estimate(windowSketch, entry.getKey());
+                if (estimate == 0) {
+                    it.remove();
+                } else {
+                    entry.setValue(estimate);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            expire(bucket);
+        }
+        candidates.clear();
+    }
+
+    /**
+     * 時間窗內次數最多的幣種（頭部精確值加上長尾候選的估計值）
+     */
+    List<Count> top(int limit) {
+        Map<String, Count> merged = new HashMap<>(index.size() + candidates.size());
+        for (Map.Entry<String, Integer> entry : index.entrySet()) {
+            merged.put(entry.getKey(), new Count(entry.getKey(), totals[entry.getValue()], false));
+        }
+        for (Map.Entry<String, Long> entry : candidates.entrySet()) {
+            merged.merge(entry.getKey(), new Count(entry.getKey(), entry.getValue(), true),
+                    (head, tail) -> new Count(head.coinId(), head.count() + tail.count(), true));
+        }
+        return ranked(merged, limit);
+    }
+
+    /**
+     * 指定桶內次數最多的幣種（保存每小時彙總用）
+     */
+    List<Count> top(boolean[] selected, int limit) {
+        Map<String, Count> merged = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : index.entrySet()) {
+            long count = 0;
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                if (selected[bucket]) {
+                    count += counts[bucket][entry.getValue()];
+                }
+            }
+            if (count > 0) {
+                merged.put(entry.getKey(), new Count(entry.getKey(), count, false));
+            }
+        }
+        for (String coinId : candidates.keySet()) {
+            long count = 0;
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                if (selected[bucket]) {
+                    count += estimate(sketches[bucket], coinId);
+                }
+            }
+            if (count > 0) {
+                merged.merge(coinId, new Count(coinId, count, true),
+                        (head, tail) -> new Count(head.coinId(), head.count() + tail.count(), true));
+            }
+        }
+        return ranked(merged, limit);
+    }
+
+    /**
+     * 某幣種在時間窗內的次數（不在頭部時為 sketch 估計值）
+     */
+    long count(String coinId) {
+        Integer slot = index.get(coinId);
+        if (slot == null) {
+            return estimate(windowSketch, coinId);
+        }
+        return totals[slot] + candidates.getOrDefault(coinId, 0L);  // 取得索引前可能已記在長尾
+    }
+
+    int trackedCoins() {
+        return index.size();
+    }
+
+    int tailCandidates() {
+        return candidates.size();
+    }
+
+    long tailEvents() {
+        return tailEvents;
+    }
+
+    private static List<Count> ranked(Map<String, Count> merged, int limit) {
+        List<Count> all = new ArrayList<>(merged.values());
+        all.sort((a, b) -> a.count() != b.count() ? Long.compare(b.count(), a.count()) : a.coinId().compareTo(b.coinId()));
+        return all.size() > limit ? new ArrayList<>(all.subList(0, limit)) : all;
+    }
+
+    private static long estimate(int[] sketch, String coinId) {
+        int estimate = Integer.MAX_VALUE;
+        for (int d = 0; d < DEPTH; d++) {
+            estimate = Math.min(estimate, sketch[cell(coinId, d)]);
+        }
+        return estimate;
+    }
+
+    private static int cell(String coinId, int row) {
+        int h = coinId.hashCode() ^ SEEDS[row];
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return row * WIDTH + (h & (WIDTH - 1));
+    }
+}
@@ -0,0 +1,128 @@
+package com.crypto.dashboard.service;
+
+import java.util.Arrays;
+
+/**
+ * 單一幣種、單一方向的價格提醒門檻表
+ * 以兩個平行的原始型別陣列（門檻價由小到大、提醒 id）保存；
+ * 價格更新時以二分搜尋找出所有被穿越的門檻，它們一定是陣列的前綴或後綴，一次移除
+ */
+final class ThresholdBook {
+
+    private double[] targets = new double[8];
+    private long[] ids = new long[8];
+    private int size;
+
+    /**
+     * 加入門檻（同一個 id 與門檻已存在時不重複加入）
+     */
+    synchronized void add(long id, double target) {
+        if (indexOf(id, target) >= 0) {
+            return;
+        }
+        if (size == targets.length) {
+            targets = Arrays.copyOf(targets, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        int at = upperBound(target);
+        System.arraycopy(targets, at, targets, at + 1, size - at);
+        System.arraycopy(ids, at, ids, at + 1, size - at);
+        targets[at] = target;
+        ids[at] = id;
+        size++;
+    }
+
+    /**
+     * 移除門檻（不存在時忽略）
+     */
+    synchronized void remove(long id, double target) {
+        int at = indexOf(id, target);
+        if (at < 0) {
+            return;
+        }
+        System.arraycopy(targets, at + 1, targets, at, size - at - 1);
+        System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+        size--;
+    }
+
+    /**
+     * 移除並回傳所有門檻 <= price 的提醒（「漲到目標以上」被穿越）
+     */
+    synchronized Crossed drainAtOrBelow(double price) {
+        int end = upperBound(price);
+        Crossed crossed = new Crossed(Arrays.copyOfRange(ids, 0, end), Arrays.copyOfRange(targets, 0, end));
+        System.arraycopy(targets, end, targets, 0, size - end);
+        System.arraycopy(ids, end, ids, 0, size - end);
+        size -= end;
+        return crossed;
+    }
+
+    /**
+     * 移除並回傳所有門檻 >= price 的提醒（「跌到目標以下」被穿越）
+     */
+    synchronized Crossed drainAtOrAbove(double price) {
+        int start = lowerBound(price);
+        Crossed crossed = new Crossed(Arrays.copyOfRange(ids, start, size), Arrays.copyOfRange(targets, start, size));
+        size = start;
+        return crossed;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 第一個 >= value 的位置
+     */
+    private int lowerBound(double value) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (targets[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 第一個 > value 的位置
+     */
+    private int upperBound(double value) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (targets[mid] <= value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 在相同門檻的範圍內找 id
+     */
+    private int indexOf(long id, double target) {
+        for (int i = lowerBound(target); i < size && targets[i] == target; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 被穿越的提醒
+     */
+    record Crossed(long[] ids, double[] targets) {
+        boolean isEmpty() {
+            return ids.length == 0;
+        }
+    }
+}
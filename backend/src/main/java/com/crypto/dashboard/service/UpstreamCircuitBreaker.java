@@ -0,0 +1,195 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.exception.UpstreamUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上游斷路器（Circuit Breaker）
+ * 作用：CoinGecko 變慢或掛掉時快速失敗，不讓每個請求都卡住 Tomcat 執行緒到超時
+ *
+ * 狀態：
+ * - CLOSED：正常放行，以最近 window-size 次呼叫計算失敗率與慢呼叫比例，任一超過門檻就跳到 OPEN
+ * - OPEN：直接拒絕（UpstreamUnavailableException），經過 open-duration 後進入 HALF_OPEN
+ * - HALF_OPEN：只放行 half-open-probes 個探測請求；全部成功回到 CLOSED，任一失敗回到 OPEN
+ */
+@Component
+public class UpstreamCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    @Value("${coingecko.circuit-breaker.window-size:20}")
+    private int windowSize;
+
+    @Value("${coingecko.circuit-breaker.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${coingecko.circuit-breaker.failure-rate-threshold:50}")
+    private int failureRateThreshold;    // 百分比
+
+    @Value("${coingecko.circuit-breaker.slow-call-rate-threshold:50}")
+    private int slowCallRateThreshold;   // 百分比
+
+    @Value("${coingecko.circuit-breaker.slow-call-ms:3000}")
+    private long slowCallMs;
+
+    @Value("${coingecko.circuit-breaker.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    @Value("${coingecko.circuit-breaker.half-open-probes:3}")
+    private int halfOpenProbes;
+
+    // 以下欄位皆由 this 同步保護
+    private State state = State.CLOSED;
+    private boolean[] failedWindow;
+    private boolean[] slowWindow;
+    private int windowPosition;
+    private int windowCount;
+    private int failedCount;
+    private int slowCount;
+    private long openedAt;
+    private int probesInFlight;
+    private int probesSucceeded;
+    private long rejectedCalls;
+    private long timesOpened;
+
+    @PostConstruct
+    void init() {
+        failedWindow = new boolean[windowSize];
+        slowWindow = new boolean[windowSize];
+    }
+
+    /**
+     * 呼叫上游前取得許可
+     * @throws UpstreamUnavailableException 斷路器開啟中（或半開但探測名額已滿）
+     */
+    public synchronized void acquirePermission() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openDurationMs) {
+            transitionTo(State.HALF_OPEN);
+        }
+        switch (state) {
+            case CLOSED -> { }
+            case HALF_OPEN -> {
+                if (probesInFlight + probesSucceeded >= halfOpenProbes) {
+                    rejectedCalls++;
+                    throw new UpstreamUnavailableException("CoinGecko circuit is half-open, probes in progress");
+                }
+                probesInFlight++;
+            }
+            case OPEN -> {
+                rejectedCalls++;
+                throw new UpstreamUnavailableException("CoinGecko circuit is open");
+            }
+        }
+    }
+
+    /**
+     * 上游呼叫成功
+     */
+    public synchronized void onSuccess(long durationNanos) {
+        record(false, durationNanos);
+    }
+
+    /**
+     * 上游呼叫失敗（連線錯誤、超時、5xx、429）
+     */
+    public synchronized void onError(long durationNanos) {
+        record(true, durationNanos);
+    }
+
+    /**
+     * 取得許可後並未真的呼叫上游（例如被額度控管拒絕），歸還探測名額
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    private void record(boolean failed, long durationNanos) {
+        boolean slow = TimeUnit.NANOSECONDS.toMillis(durationNanos) >= slowCallMs;
+
+        if (state == State.HALF_OPEN) {
+            probesInFlight = Math.max(0, probesInFlight - 1);
+            if (failed || slow) {
+                transitionTo(State.OPEN);
+            } else if (++probesSucceeded >= halfOpenProbes) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return;  // 開啟前已送出的請求，結果不再計入
+        }
+
+        // 環狀視窗：覆蓋最舊的一筆
+        if (windowCount == windowSize) {
+            if (failedWindow[windowPosition]) failedCount--;
+            if (slowWindow[windowPosition]) slowCount--;
+        } else {
+            windowCount++;
+        }
+        failedWindow[windowPosition] = failed;
+        slowWindow[windowPosition] = slow;
+        if (failed) failedCount++;
+        if (slow) slowCount++;
+        windowPosition = (windowPosition + 1) % windowSize;
+
+        if (windowCount >= minimumCalls
+                && (failedCount * 100 >= failureRateThreshold * windowCount
+                    || slowCount * 100 >= slowCallRateThreshold * windowCount)) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State next) {
+        log.warn("CoinGecko circuit breaker {} -> {}", state, next);
+        state = next;
+        probesInFlight = 0;
+        probesSucceeded = 0;
+        if (next == State.OPEN) {
+            openedAt = System.currentTimeMillis();
+            timesOpened++;
+        }
+        if (next == State.CLOSED) {
+            resetWindow();
+        }
+    }
+
+    private void resetWindow() {
+        Arrays.fill(failedWindow, false);
+        Arrays.fill(slowWindow, false);
+        windowPosition = 0;
+        windowCount = 0;
+        failedCount = 0;
+        slowCount = 0;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 取得斷路器狀態（供管理員監控使用）
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state.name());
+        stats.put("windowCalls", windowCount);
+        stats.put("windowFailures", failedCount);
+        stats.put("windowSlowCalls", slowCount);
+        stats.put("rejectedCalls", rejectedCalls);
+        stats.put("timesOpened", timesOpened);
+        return stats;
+    }
+}
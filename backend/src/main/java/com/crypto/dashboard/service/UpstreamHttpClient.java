@@ -0,0 +1,113 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.exception.ExternalApiException;
+import com.crypto.dashboard.exception.UpstreamStatusException;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.core5.http.HttpVersion;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 上游 HTTP 客戶端
+ * 作用：以共用連線池（keep-alive、可協商 HTTP/2）呼叫外部 API，並套用整體請求期限（total deadline）
+ * 連線超時 / 讀取超時 / 連線池大小在 AppConfig 設定
+ */
+@Component
+public class UpstreamHttpClient {
+
+    private final CloseableHttpAsyncClient client;
+    private final PoolingAsyncClientConnectionManager connectionManager;
+
+    /**
+     * 整體請求期限（含等待連線池、連線、讀取），超過即取消請求
+     */
+    @Value("${upstream.http.total-timeout-ms:12000}")
+    private long totalTimeoutMs;
+
+    // 統計數據
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder deadlineExceeded = new LongAdder();
+    private final LongAdder http2Responses = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public UpstreamHttpClient(CloseableHttpAsyncClient upstreamHttpAsyncClient,
+                              PoolingAsyncClientConnectionManager upstreamConnectionManager) {
+        this.client = upstreamHttpAsyncClient;
+        this.connectionManager = upstreamConnectionManager;
+    }
+
+    /**
+     * 發送 GET 請求
+     * @param url 完整網址
+     * @return 回應內容（2xx）
+     * @throws ExternalApiException 連線失敗、超時；非 2xx 回應為 UpstreamStatusException
+     */
+    public byte[] get(String url) {
+        SimpleHttpRequest request = SimpleRequestBuilder.get(url)
+                .addHeader("Accept", "application/json")
+                .build();
+
+        requests.increment();
+        inFlight.incrementAndGet();
+        Future<SimpleHttpResponse> future = client.execute(request, null);
+        try {
+            SimpleHttpResponse response = future.get(totalTimeoutMs, TimeUnit.MILLISECONDS);
+            if (HttpVersion.HTTP_2.equals(response.getVersion())) {
+                http2Responses.increment();
+            }
+            if (response.getCode() < 200 || response.getCode() >= 300) {
+                failures.increment();
+                throw new UpstreamStatusException(response.getCode());
+            }
+            return response.getBodyBytes() == null ? new byte[0] : response.getBodyBytes();
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            failures.increment();
+            deadlineExceeded.increment();
+            throw new ExternalApiException("Upstream request exceeded " + totalTimeoutMs + "ms deadline", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            failures.increment();
+            throw new ExternalApiException("Upstream request interrupted", e);
+        } catch (ExecutionException e) {
+            failures.increment();
+            throw new ExternalApiException("Upstream request failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * 取得連線池與請求統計（供管理員監控使用）
+     */
+    public Map<String, Object> getStats() {
+        PoolStats pool = connectionManager.getTotalStats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", requests.sum());
+        stats.put("failures", failures.sum());
+        stats.put("deadlineExceeded", deadlineExceeded.sum());
+        stats.put("http2Responses", http2Responses.sum());
+        stats.put("inFlight", inFlight.get());
+        stats.put("poolLeased", pool.getLeased());
+        stats.put("poolAvailable", pool.getAvailable());
+        stats.put("poolPending", pool.getPending());
+        stats.put("poolMax", pool.getMax());
+        return stats;
+    }
+}
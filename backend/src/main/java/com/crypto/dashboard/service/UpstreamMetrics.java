@@ -0,0 +1,87 @@
+package com.crypto.dashboard.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 上游呼叫指標（Micrometer）
+ * - coingecko.requests：延遲直方圖，依 endpoint（路徑樣板，不含幣種 id）與 outcome 分類
+ * - coingecko.requests.in.flight：目前送出中的請求數
+ *
+ * 直方圖使用固定的 SLO 區間（而非百分位數直方圖），時間序列數量固定且記錄成本低；
+ * Timer 依 endpoint + outcome 建立一次後重複使用，熱路徑上只有一次 Map 查詢
+ */
+@Component
+public class UpstreamMetrics {
+
+    public static final String SUCCESS = "success";
+    public static final String CLIENT_ERROR = "client_error";    // 4xx（例如幣種不存在）
+    public static final String SERVER_ERROR = "server_error";    // 5xx、429
+    public static final String ERROR = "error";                  // 逾時、連線失敗、解析失敗
+    public static final String CIRCUIT_OPEN = "circuit_open";    // 斷路器開啟，未送出
+    public static final String QUOTA_EXCEEDED = "quota_exceeded";  // 額度不足，未送出
+
+    private static final Duration[] SLO = {
+            Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500),
+            Duration.ofSeconds(1), Duration.ofMillis(2500), Duration.ofSeconds(5), Duration.ofSeconds(10)
+    };
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public UpstreamMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("coingecko.requests.in.flight", inFlight, AtomicInteger::get)
+                .description("CoinGecko requests currently in flight")
+                .register(registry);
+    }
+
+    /**
+     * 請求送出前呼叫，回傳開始時間（與 {@link #finish} 成對使用）
+     */
+    long start() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * 請求結束（不論成功與否）
+     * @return 本次請求耗時（奈秒）
+     */
+    long finish(String endpoint, long start, String outcome) {
+        long elapsed = System.nanoTime() - start;
+        inFlight.decrementAndGet();
+        timer(endpoint, outcome).record(elapsed, TimeUnit.NANOSECONDS);
+        return elapsed;
+    }
+
+    /**
+     * 未送出就被拒絕的請求（斷路器、額度），以耗時 0 記錄以便計算比例
+     */
+    void rejected(String endpoint, String outcome) {
+        timer(endpoint, outcome).record(0, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String endpoint, String outcome) {
+        String key = endpoint + '|' + outcome;
+        Timer timer = timers.get(key);
+        if (timer != null) {
+            return timer;
+        }
+        return timers.computeIfAbsent(key, k -> Timer.builder("coingecko.requests")
+                .description("CoinGecko request latency")
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .serviceLevelObjectives(SLO)
+                .register(registry));
+    }
+}
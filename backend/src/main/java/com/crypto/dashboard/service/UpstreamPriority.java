@@ -0,0 +1,15 @@
+package com.crypto.dashboard.service;
+
+/**
+ * 上游呼叫優先順序（數字越小越優先）
+ */
+public enum UpstreamPriority {
+    /**
+     * 使用者請求的快取 miss（使用者正在等待）
+     */
+    USER,
+    /**
+     * 背景刷新（預先刷新、市場快照）
+     */
+    BACKGROUND
+}
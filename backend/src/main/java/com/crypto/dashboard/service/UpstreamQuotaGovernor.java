@@ -0,0 +1,210 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.exception.UpstreamQuotaExceededException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 上游呼叫額度控管（Token Bucket + 優先佇列）
+ * 作用：CoinGecko Demo Key 有每分鐘呼叫上限，所有上游呼叫都必須先取得一個 token
+ *
+ * - token 以固定速率補充（calls-per-minute），最多累積 burst 個
+ * - 沒有 token 時依優先順序排隊：USER > BACKGROUND，同優先順序先到先得
+ * - 每個優先順序的佇列長度有上限，且各自有最長等待時間；超過即快速拒絕（由呼叫端改用最後一次的快取值）
+ */
+@Component
+public class UpstreamQuotaGovernor {
+
+    @Value("${coingecko.quota.calls-per-minute:30}")
+    private int callsPerMinute;
+
+    @Value("${coingecko.quota.burst:10}")
+    private int burst;
+
+    @Value("${coingecko.quota.max-queue:20}")
+    private int maxQueue;
+
+    @Value("${coingecko.quota.user-max-wait-ms:3000}")
+    private long userMaxWaitMs;
+
+    @Value("${coingecko.quota.background-max-wait-ms:10000}")
+    private long backgroundMaxWaitMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final List<ArrayDeque<Object>> queues = newQueues();
+
+    // 以下欄位皆由 lock 保護
+    private double tokens;
+    private double tokensPerNano;
+    private long lastRefillNanos;
+    private final long[] granted = new long[UpstreamPriority.values().length];
+    private final long[] rejected = new long[UpstreamPriority.values().length];
+    private final long[] grantsPerSecond = new long[60];  // 最近 60 秒每秒核發數（環狀）
+    private long grantsSecond;
+
+    @PostConstruct
+    void init() {
+        tokens = burst;
+        tokensPerNano = callsPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * 取得一次上游呼叫額度（必要時排隊等待）
+     * @throws UpstreamQuotaExceededException 佇列已滿或等待逾時
+     */
+    public void acquire(UpstreamPriority priority) {
+        long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis(priority));
+        lock.lock();
+        try {
+            refill();
+            if (!hasWaitersAtOrAbove(priority) && tokens >= 1) {
+                grant(priority);
+                return;
+            }
+            if (maxWaitNanos <= 0 || queues.get(priority.ordinal()).size() >= maxQueue) {
+                throw reject(priority);
+            }
+
+            Object ticket = new Object();
+            queues.get(priority.ordinal()).addLast(ticket);
+            long deadline = System.nanoTime() + maxWaitNanos;
+            try {
+                while (true) {
+                    refill();
+                    boolean head = isHead(ticket);
+                    if (head && tokens >= 1) {
+                        grant(priority);
+                        return;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw reject(priority);
+                    }
+                    long wait = head ? Math.min(remaining, nanosUntilNextToken()) : remaining;
+                    changed.awaitNanos(Math.max(wait, 1));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject(priority);
+            } finally {
+                queues.get(priority.ordinal()).remove(ticket);
+                changed.signalAll();  // 讓下一位重新檢查自己是否為隊首
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long maxWaitMillis(UpstreamPriority priority) {
+        return switch (priority) {
+            case USER -> userMaxWaitMs;
+            case BACKGROUND -> backgroundMaxWaitMs;
+        };
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+
+    private long nanosUntilNextToken() {
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    private boolean hasWaitersAtOrAbove(UpstreamPriority priority) {
+        for (int i = 0; i <= priority.ordinal(); i++) {
+            if (!queues.get(i).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isHead(Object ticket) {
+        for (ArrayDeque<Object> queue : queues) {
+            if (!queue.isEmpty()) {
+                return queue.peekFirst() == ticket;
+            }
+        }
+        return false;
+    }
+
+    private void grant(UpstreamPriority priority) {
+        tokens -= 1;
+        granted[priority.ordinal()]++;
+
+        long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        advanceWindow(second);
+        grantsPerSecond[(int) (second % grantsPerSecond.length)]++;
+    }
+
+    private UpstreamQuotaExceededException reject(UpstreamPriority priority) {
+        rejected[priority.ordinal()]++;
+        return new UpstreamQuotaExceededException("CoinGecko call budget exhausted (" + priority + ")");
+    }
+
+    /**
+     * 將環狀視窗推進到指定秒數，清掉過期的格子
+     */
+    private void advanceWindow(long second) {
+        long gap = Math.min(second - grantsSecond, grantsPerSecond.length);
+        for (long i = 1; i <= gap; i++) {
+            grantsPerSecond[(int) ((grantsSecond + i) % grantsPerSecond.length)] = 0;
+        }
+        grantsSecond = Math.max(grantsSecond, second);
+    }
+
+    /**
+     * 取得目前額度使用狀況（供管理員監控使用）
+     */
+    public Map<String, Object> getStats() {
+        lock.lock();
+        try {
+            refill();
+            advanceWindow(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime()));
+            long lastMinute = 0;
+            for (long count : grantsPerSecond) {
+                lastMinute += count;
+            }
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("callsPerMinute", callsPerMinute);
+            stats.put("callsLastMinute", lastMinute);
+            stats.put("tokensAvailable", Math.floor(tokens));
+            stats.put("burst", burst);
+            for (UpstreamPriority priority : UpstreamPriority.values()) {
+                String name = priority.name().toLowerCase();
+                stats.put(name + "Granted", granted[priority.ordinal()]);
+                stats.put(name + "Rejected", rejected[priority.ordinal()]);
+                stats.put(name + "Queued", queues.get(priority.ordinal()).size());
+            }
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 每個優先順序一個佇列（以 ordinal 為索引）
+     */
+    private static List<ArrayDeque<Object>> newQueues() {
+        List<ArrayDeque<Object>> queues = new ArrayList<>(UpstreamPriority.values().length);
+        for (int i = 0; i < UpstreamPriority.values().length; i++) {
+            queues.add(new ArrayDeque<>());
+        }
+        return queues;
+    }
+}
@@ -0,0 +1,118 @@
+package com.crypto.dashboard.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 上游請求合併器（Single-flight）
+ * 作用：同一個 key 同時間只會有一個上游請求在進行，其他呼叫者等待同一個結果
+ * 場景：Caffeine 快取過期瞬間大量請求同時 miss，避免每個請求各打一次 CoinGecko
+ */
+@Component
+public class UpstreamRequestCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamRequestCoalescer.class);
+
+    private final ConcurrentHashMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    // 統計數據
+    private final LongAdder fetches = new LongAdder();          // 實際打到上游的次數
+    private final LongAdder servedCallers = new LongAdder();    // 所有上游請求服務過的呼叫者總數
+    private final LongAdder coalescedCallers = new LongAdder(); // 搭便車（沒有自己打上游）的呼叫者數
+    private final AtomicInteger lastCallersPerFetch = new AtomicInteger();
+    private final AtomicInteger maxCallersPerFetch = new AtomicInteger();
+    private final AtomicLong failedFetches = new AtomicLong();
+
+    /**
+     * 執行上游請求；若同一個 key 已有請求進行中，直接等待該請求的結果
+     * @param key 合併用的 key（需包含快取名稱，例如 coinDetail:bitcoin）
+     * @param fetcher 真正的上游呼叫
+     * @return 上游回傳值（所有合併的呼叫者拿到同一個物件）
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> fetcher) {
+        InFlight mine = new InFlight();
+        InFlight existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            existing.callers.incrementAndGet();
+            coalescedCallers.increment();
+            return (T) await(existing.future);
+        }
+
+        try {
+            T value = fetcher.get();
+            mine.future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // 包含 Error：一定要完成 future，否則等待中的呼叫者會永遠卡住
+            failedFetches.incrementAndGet();
+            mine.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+            record(key, mine.callers.get());
+        }
+    }
+
+    private Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void record(String key, int callers) {
+        fetches.increment();
+        servedCallers.add(callers);
+        lastCallersPerFetch.set(callers);
+        maxCallersPerFetch.accumulateAndGet(callers, Math::max);
+        if (callers > 1) {
+            log.debug("Upstream fetch for {} served {} callers", key, callers);
+        }
+    }
+
+    /**
+     * 取得合併統計（供管理員監控使用）
+     */
+    public Map<String, Object> getStats() {
+        long fetchCount = fetches.sum();
+        long callerCount = servedCallers.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("fetches", fetchCount);
+        stats.put("failedFetches", failedFetches.get());
+        stats.put("servedCallers", callerCount);
+        stats.put("coalescedCallers", coalescedCallers.sum());
+        stats.put("avgCallersPerFetch", fetchCount == 0 ? 0.0 : (double) callerCount / fetchCount);
+        stats.put("lastCallersPerFetch", lastCallersPerFetch.get());
+        stats.put("maxCallersPerFetch", maxCallersPerFetch.get());
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+
+    /**
+     * 進行中的上游請求
+     */
+    private static final class InFlight {
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+        private final AtomicInteger callers = new AtomicInteger(1);  // 包含發起請求的呼叫者本身
+    }
+}
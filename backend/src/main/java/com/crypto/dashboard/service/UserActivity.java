@@ -0,0 +1,35 @@
+package com.crypto.dashboard.service;
+
+import java.util.Map;
+
+/**
+ * 一筆用戶行為（對應 user_activities 的一列）
+ * @param coinId 與幣種無關的行為為 null
+ * @param metadata 額外資訊（寫入時才序列化成 JSON），可為 null
+ * @param createdAt 發生時間（epoch ms）
+ */
+public record UserActivity(long userId, Type type, String coinId, Map<String, Object> metadata, long createdAt) {
+
+    /**
+     * 行為類型（與 user_activities.activity_type 的 ENUM 值一致）
+     */
+    public enum Type {
+        LOGIN("login"),
+        LOGOUT("logout"),
+        VIEW_COIN("view_coin"),
+        ADD_FAVORITE("add_favorite"),
+        REMOVE_FAVORITE("remove_favorite"),
+        COMPARE_COINS("compare_coins"),
+        EXPORT_DATA("export_data");
+
+        private final String code;
+
+        Type(String code) {
+            this.code = code;
+        }
+
+        public String getCode() {
+            return code;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.repository.UserActivityRepository;
+import com.crypto.dashboard.util.BoundedRingBuffer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 用戶行為紀錄（非同步批次寫入 user_activities）
+ * 作用：請求執行緒只把事件放進無鎖環形緩衝區（一次 CAS，不碰資料庫），
+ *      由專屬的寫入執行緒取出後以 JDBC 批次寫入
+ *
+ * - 寫入時機：累積到 batch-size 筆立即寫入（生產者喚醒寫入執行緒），否則每 flush-ms 寫入一次
+ * - 緩衝區滿了直接丟棄並計數，不讓請求等待資料庫
+ * - 寫入失敗時保留該批、以指數退避重試；重試期間緩衝區會填滿並開始丟棄（背壓）
+ * - 資料本身有問題（DataIntegrityViolationException，例如欄位過長）時不重試整批，改為逐筆寫入並丟棄有問題的那幾筆，
+ *   避免一筆壞資料讓整條管線卡住到重啟為止
+ * - coinId 超過 user_activities.coin_id 長度的事件在記錄時就拒絕
+ * - 關閉時停止接收、寫完緩衝區中的剩餘事件後才結束（最多等 shutdown-timeout-ms）
+ * - 取出的事件同時交給 ActivityRollup 彙總（在寫入資料庫之前，重試同一批時不會重複計數）
+ */
+@Service
+@RequiredArgsConstructor
+public class UserActivityRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(UserActivityRecorder.class);
+
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+    private static final int MAX_COIN_ID_LENGTH = 64;  // user_activities.coin_id VARCHAR(64)
+
+    private final UserActivityRepository activityRepository;
+    private final ActivityRollup activityRollup;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${activity.buffer-size:16384}")
+    private int bufferSize;
+
+    @Value("${activity.batch-size:500}")
+    private int batchSize;
+
+    @Value("${activity.flush-ms:1000}")
+    private long flushMillis;
+
+    @Value("${activity.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMillis;
+
+    private BoundedRingBuffer<UserActivity> buffer;
+    private Thread writer;
+    private volatile boolean running;
+
+    // 統計數據
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private final LongAdder rejected = new LongAdder();
+
+    @PostConstruct
+    void start() {
+        buffer = new BoundedRingBuffer<>(bufferSize);
+        FunctionCounter.builder("user.activities.published", published, LongAdder::sum)
+                .description("User activities accepted into the buffer")
+                .register(meterRegistry);
+        FunctionCounter.builder("user.activities.dropped", dropped, LongAdder::sum)
+                .description("User activities dropped because the buffer was full")
+                .register(meterRegistry);
+        FunctionCounter.builder("user.activities.written", written, AtomicLong::get)
+                .description("User activities written to the database")
+                .register(meterRegistry);
+        FunctionCounter.builder("user.activities.rejected", rejected, LongAdder::sum)
+                .description("User activities rejected as invalid (not retried)")
+                .register(meterRegistry);
+        Gauge.builder("user.activities.pending", buffer, BoundedRingBuffer::size)
+                .description("User activities waiting in the buffer")
+                .register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::run, "activity-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.warn("Activity writer did not finish within {} ms, {} activities left unwritten",
+                    shutdownTimeoutMillis, buffer.size());
+        }
+    }
+
+    // ========== 記錄（請求執行緒） ==========
+
+    /**
+     * 記錄一筆行為（不會阻塞；緩衝區已滿或正在關閉時丟棄）
+     * @param userId 未登入（null）時不記錄
+     */
+    public void record(Long userId, UserActivity.Type type, String coinId, Map<String, Object> metadata) {
+        if (userId == null) {
+            return;
+        }
+        if (coinId != null && coinId.length() > MAX_COIN_ID_LENGTH) {
+            rejected.increment();  // 不可能是有效的幣種，寫入只會失敗
+            return;
+        }
+        if (!running || !buffer.offer(new UserActivity(userId, type, coinId, metadata, System.currentTimeMillis()))) {
+            dropped.increment();
+            return;
+        }
+        published.increment();
+        if (buffer.size() == batchSize) {
+            LockSupport.unpark(writer);  // 已累積一批，不必等到下一次定時寫入
+        }
+    }
+
+    /**
+     * 記錄目前登入用戶的行為（公開 API 未登入時不記錄）
+     */
+    public void record(Authentication authentication, UserActivity.Type type, String coinId, Map<String, Object> metadata) {
+        if (authentication != null && authentication.getPrincipal() instanceof Long userId) {
+            record(userId, type, coinId, metadata);
+        }
+    }
+
+    // ========== 寫入（寫入執行緒） ==========
+
+    private void run() {
+        List<UserActivity> batch = new ArrayList<>(batchSize);
+        long flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        long deadline = System.nanoTime() + flushNanos;
+        int failures = 0;
+        while (true) {
+            boolean stopping = !running;
+            int before = batch.size();
+            if (buffer.drainTo(batch, batchSize - batch.size()) > 0) {
+                rollup(batch.subList(before, batch.size()));
+            }
+            long now = System.nanoTime();
+            if (batch.size() >= batchSize || (!batch.isEmpty() && (stopping || now - deadline >= 0))) {
+                if (write(batch)) {
+                    failures = 0;
+                } else if (stopping) {
+                    discarded.addAndGet(batch.size());  // 關閉中不再重試
+                    log.warn("Discarded {} activities during shutdown", batch.size());
+                    batch.clear();
+                } else {
+                    failures++;
+                    long delay = Math.min(MAX_RETRY_DELAY_MS, flushMillis << Math.min(failures, 10));
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(delay));
+                    continue;
+                }
+            }
+            if (now - deadline >= 0) {
+                deadline = now + flushNanos;
+            }
+            if (stopping) {
+                if (batch.isEmpty() && buffer.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            if (buffer.size() < batchSize) {
+                LockSupport.parkNanos(this, deadline - System.nanoTime());
+            }
+        }
+    }
+
+    private void rollup(List<UserActivity> activities) {
+        try {
+            activityRollup.accept(activities);
+        } catch (Exception e) {
+            log.warn("Failed to roll up {} activities: {}", activities.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 寫入一批；成功時清空 batch
+     * @return false 表示暫時性的錯誤（batch 中尚未寫入的部分保留，由呼叫端退避後重試）
+     */
+    private boolean write(List<UserActivity> batch) {
+        try {
+            activityRepository.insertAll(batch, this::metadataJson);
+            written.addAndGet(batch.size());
+            batches.incrementAndGet();
+            batch.clear();
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // 重試同一批只會一直失敗：逐筆寫入，找出並丟棄有問題的資料
+            failedBatches.incrementAndGet();
+            log.warn("Batch of {} activities rejected, retrying row by row: {}", batch.size(), e.getMessage());
+            return writeRowByRow(batch);
+        } catch (Exception e) {
+            failedBatches.incrementAndGet();
+            log.warn("Failed to write {} activities: {}", batch.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 逐筆寫入；資料有問題的那筆丟棄並計數，遇到暫時性錯誤時停止（剩下的留在 batch 中）
+     */
+    private boolean writeRowByRow(List<UserActivity> batch) {
+        Iterator<UserActivity> it = batch.iterator();
+        while (it.hasNext()) {
+            UserActivity activity = it.next();
+            try {
+                activityRepository.insertAll(List.of(activity), this::metadataJson);
+                written.incrementAndGet();
+            } catch (DataIntegrityViolationException e) {
+                rejected.increment();
+                log.warn("Dropped invalid {} activity of user {}: {}", activity.type(), activity.userId(), e.getMessage());
+            } catch (Exception e) {
+                log.warn("Failed to write activities row by row: {}", e.getMessage());
+                return false;
+            }
+            it.remove();
+        }
+        return true;
+    }
+
+    private String metadataJson(UserActivity activity) {
+        if (activity.metadata() == null || activity.metadata().isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(activity.metadata());
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 取得行為紀錄統計（供管理員監控使用）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", buffer.size());
+        stats.put("capacity", buffer.capacity());
+        stats.put("published", published.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("written", written.get());
+        stats.put("batches", batches.get());
+        stats.put("failedBatches", failedBatches.get());
+        stats.put("discarded", discarded.get());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+}
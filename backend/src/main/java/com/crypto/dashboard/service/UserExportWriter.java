@@ -0,0 +1,117 @@
+package com.crypto.dashboard.service;
+
+import com.crypto.dashboard.dto.response.UserSummaryDTO;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 用戶匯出的逐列寫出器（CSV / NDJSON）
+ * 每讀到一列就寫出一列，不累積在記憶體中；close() 時才 flush 剩餘的緩衝
+ */
+abstract class UserExportWriter implements Closeable {
+
+    static final String CSV = "csv";
+    static final String NDJSON = "ndjson";
+
+    abstract void write(UserSummaryDTO user) throws IOException;
+
+    static UserExportWriter of(String format, JsonFactory factory, OutputStream out) throws IOException {
+        return switch (format) {
+            case CSV -> new Csv(out);
+            case NDJSON -> new Ndjson(factory, out);
+            default -> throw new IllegalArgumentException("Unsupported export format: " + format);
+        };
+    }
+
+    static String contentType(String format) {
+        return CSV.equals(format) ? "text/csv; charset=UTF-8" : "application/x-ndjson";
+    }
+
+    private static final class Csv extends UserExportWriter {
+
+        private final Writer writer;
+
+        Csv(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+            writer.write('\uFEFF');  // BOM：Excel 才會以 UTF-8 開啟（中文用戶名）
+            writer.write("id,username,email,role,status,joinDate,favoriteCount\r\n");
+        }
+
+        @Override
+        void write(UserSummaryDTO user) throws IOException {
+            writer.write(String.valueOf(user.getId()));
+            writer.write(',');
+            writer.write(escape(user.getUsername()));
+            writer.write(',');
+            writer.write(escape(user.getEmail()));
+            writer.write(',');
+            writer.write(escape(user.getRole()));
+            writer.write(',');
+            writer.write(escape(user.getStatus()));
+            writer.write(',');
+            writer.write(user.getJoinDate() == null ? "" : user.getJoinDate().toString());
+            writer.write(',');
+            writer.write(String.valueOf(user.getFavoriteCount()));
+            writer.write("\r\n");
+        }
+
+        /**
+         * RFC 4180 跳脫；開頭是 = + - @ 的值加上 '，避免試算表當成公式執行
+         */
+        private static String escape(String value) {
+            if (value == null || value.isEmpty()) {
+                return "";
+            }
+            if ("=+-@".indexOf(value.charAt(0)) >= 0) {
+                value = "'" + value;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                    || value.indexOf('\r') >= 0) {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+            return value;
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private static final class Ndjson extends UserExportWriter {
+
+        private final JsonGenerator generator;
+
+        Ndjson(JsonFactory factory, OutputStream out) throws IOException {
+            this.generator = factory.createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        void write(UserSummaryDTO user) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", user.getId());
+            generator.writeStringField("username", user.getUsername());
+            generator.writeStringField("email", user.getEmail());
+            generator.writeStringField("role", user.getRole());
+            generator.writeStringField("status", user.getStatus());
+            generator.writeStringField("joinDate", user.getJoinDate() == null ? null : user.getJoinDate().toString());
+            generator.writeNumberField("favoriteCount", user.getFavoriteCount());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+}
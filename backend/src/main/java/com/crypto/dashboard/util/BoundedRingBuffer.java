@@ -0,0 +1,102 @@
+package com.crypto.dashboard.util;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 固定容量的多生產者、單一消費者環形緩衝區（無鎖）
+ * 作用：請求執行緒放入元素只需要一次 CAS，不會阻塞也不會配置記憶體；滿了直接回傳 false 由呼叫端決定是否丟棄
+ *
+ * 每個格子有一個序號（Vyukov bounded queue）：
+ * - 序號 == 位置：格子空著，生產者以 CAS 搶下 tail 後寫入元素，再把序號設為 位置 + 1 發佈
+ * - 序號 == 位置 + 1：元素已發佈，消費者取出後把序號設為 位置 + 容量，留給下一輪
+ * 元素本身是一般陣列寫入，由序號的 release / acquire 保證可見性
+ */
+public final class BoundedRingBuffer<T> {
+
+    private final int mask;
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();  // 下一個要寫入的位置（生產者）
+    private volatile long head;                        // 下一個要讀取的位置（只有消費者寫入）
+
+    /**
+     * @param capacity 容量（向上取整到 2 的次方）
+     */
+    public BoundedRingBuffer(int capacity) {
+        if (capacity < 2 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be between 2 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.elements = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 放入一個元素（任何執行緒皆可呼叫）
+     * @return 緩衝區已滿時回傳 false
+     */
+    public boolean offer(T element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long diff = sequences.getAcquire(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    sequences.setRelease(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                return false;  // 這一格的上一輪元素還沒被取走：已滿
+            } else {
+                position = tail.get();  // 被其他生產者搶先，重新讀取
+            }
+        }
+    }
+
+    /**
+     * 取出最多 max 個已發佈的元素（只能由單一消費者執行緒呼叫）
+     * @return 取出的個數
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super T> target, int max) {
+        long position = head;
+        int count = 0;
+        while (count < max) {
+            int index = (int) (position & mask);
+            if (sequences.getAcquire(index) != position + 1) {
+                break;  // 尚未發佈（空的，或生產者搶到位置但還沒寫完）
+            }
+            target.add((T) elements[index]);
+            elements[index] = null;
+            sequences.setRelease(index, position + mask + 1);
+            position++;
+            count++;
+        }
+        head = position;
+        return count;
+    }
+
+    /**
+     * 目前的元素個數（概略值，包含已搶到位置但還沒寫完的元素）
+     */
+    public int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, elements.length));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return elements.length;
+    }
+}
@@ -0,0 +1,158 @@
+package com.crypto.dashboard.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Set;
+
+/**
+ * JSON 金額換算（串流式）
+ * 作用：把以美元計價的 JSON 邊讀邊寫成另一種貨幣，不建立 JsonNode 樹；
+ *      其餘欄位（百分比、供給量、時間等）原樣輸出
+ *
+ * 規則（欄位名稱在任何深度都適用）：
+ * - amount 欄位為數字：乘上匯率，例如 /coins/markets 的 "current_price": 1.0
+ * - amount 欄位為物件：其中的 "usd" 改名為目標貨幣，數字乘上匯率，
+ *   例如 /coins/{id} 的 "market_data": {"current_price": {"usd": 1.0}}
+ * - series 欄位：[[timestamp, value], ...] 的 value 乘上匯率，例如 market_chart 的 "prices"
+ * 整數換算後剛好是整數才維持整數輸出，否則以 double 輸出（不四捨五入，匯率小於 1 時才不會失去精度）
+ */
+public final class JsonCurrencyConverter {
+
+    private static final String SOURCE_CURRENCY = "usd";
+
+    /**
+     * double 可以精確表示的整數範圍（2^53）
+     */
+    private static final double MAX_EXACT_INTEGER = 9007199254740992.0;
+
+    private final Set<String> amountFields;
+    private final Set<String> seriesFields;
+
+    private JsonCurrencyConverter(Set<String> amountFields, Set<String> seriesFields) {
+        this.amountFields = amountFields;
+        this.seriesFields = seriesFields;
+    }
+
+    public static JsonCurrencyConverter of(Set<String> amountFields, Set<String> seriesFields) {
+        return new JsonCurrencyConverter(Set.copyOf(amountFields), Set.copyOf(seriesFields));
+    }
+
+    /**
+     * 換算後寫入 out（UTF-8；不會關閉 out）
+     * @param currency 目標貨幣代碼（小寫）
+     * @param rate 1 美元可換多少目標貨幣
+     */
+    public void convert(JsonFactory factory, byte[] json, String currency, double rate, OutputStream out)
+            throws IOException {
+        try (JsonParser parser = factory.createParser(json);
+             JsonGenerator generator = factory.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (parser.nextToken() != null) {
+                copy(parser, generator, currency, rate);
+            }
+        }
+    }
+
+    /**
+     * 複製目前 token 開始的值，遇到 amount / series 欄位時換算
+     */
+    private void copy(JsonParser parser, JsonGenerator generator, String currency, double rate) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            generator.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                generator.writeFieldName(field);
+                JsonToken value = parser.nextToken();
+                if (amountFields.contains(field)) {
+                    if (value == JsonToken.START_OBJECT) {
+                        copyByCurrency(parser, generator, currency, rate);
+                    } else {
+                        copyAmount(parser, generator, rate);
+                    }
+                } else if (seriesFields.contains(field) && value == JsonToken.START_ARRAY) {
+                    copySeries(parser, generator, rate);
+                } else {
+                    copy(parser, generator, currency, rate);
+                }
+            }
+            generator.writeEndObject();
+        } else if (token == JsonToken.START_ARRAY) {
+            generator.writeStartArray();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                copy(parser, generator, currency, rate);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.copyCurrentEvent(parser);
+        }
+    }
+
+    /**
+     * {"usd": 1.0, ...} → {"twd": 32.1, ...}（其他貨幣的欄位原樣保留）
+     */
+    private void copyByCurrency(JsonParser parser, JsonGenerator generator, String currency, double rate)
+            throws IOException {
+        generator.writeStartObject();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (SOURCE_CURRENCY.equals(field)) {
+                generator.writeFieldName(currency);
+                copyAmount(parser, generator, rate);
+            } else {
+                generator.writeFieldName(field);
+                generator.copyCurrentStructure(parser);
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * [[timestamp, value], ...]：只換算每一列的第二個元素
+     */
+    private static void copySeries(JsonParser parser, JsonGenerator generator, double rate) throws IOException {
+        generator.writeStartArray();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_ARRAY) {
+                generator.copyCurrentStructure(parser);
+                continue;
+            }
+            generator.writeStartArray();
+            for (int i = 0; parser.nextToken() != JsonToken.END_ARRAY; i++) {
+                if (i == 1) {
+                    copyAmount(parser, generator, rate);
+                } else {
+                    generator.copyCurrentStructure(parser);
+                }
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * 換算一個金額
+     * 上游的整數金額（例如 ath: 73738）換算後通常不是整數，匯率小於 1 時（btc、sats、xau 等）四捨五入會失去全部精度，
+     * 因此只有換算結果剛好是整數時才寫成整數，其餘一律寫成浮點數
+     */
+    private static void copyAmount(JsonParser parser, JsonGenerator generator, double rate) throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT -> {
+                double converted = parser.getDoubleValue() * rate;
+                if (converted == Math.rint(converted) && Math.abs(converted) < MAX_EXACT_INTEGER) {
+                    generator.writeNumber((long) converted);
+                } else {
+                    generator.writeNumber(converted);
+                }
+            }
+            case VALUE_NUMBER_FLOAT -> generator.writeNumber(parser.getDoubleValue() * rate);
+            default -> generator.copyCurrentStructure(parser);  // null、字串（例如 ath_date）原樣保留
+        }
+    }
+}
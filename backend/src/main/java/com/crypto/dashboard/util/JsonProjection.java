@@ -0,0 +1,95 @@
+package com.crypto.dashboard.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JSON 欄位投影（串流式）
+ * 作用：以 token 串流讀取上游 JSON，只把宣告的欄位路徑寫入輸出，其餘子樹直接跳過；
+ *      不建立 JsonNode 樹，處理數百 KB 的回應時只佔用輸出大小的記憶體
+ *
+ * 路徑以「.」分隔，例如 "id"、"image.large"、"market_data.current_price.usd"
+ * - 路徑終點的值（不論是純量、物件或陣列）整個保留
+ * - 經過陣列時套用到每個元素，例如 "tickers.last" 保留每個 ticker 的 last
+ * - 輸入中不存在的欄位直接略過；欄位順序與輸入相同
+ */
+public final class JsonProjection {
+
+    private final Node root;
+
+    private JsonProjection(Node root) {
+        this.root = root;
+    }
+
+    public static JsonProjection of(String... paths) {
+        Node root = new Node();
+        for (String path : paths) {
+            Node node = root;
+            for (String field : path.split("\\.")) {
+                node = node.children.computeIfAbsent(field, k -> new Node());
+            }
+            node.whole = true;
+        }
+        return root.children.isEmpty() ? new JsonProjection(null) : new JsonProjection(root);
+    }
+
+    /**
+     * 依投影重新輸出（最小化、UTF-8）
+     */
+    public byte[] apply(JsonFactory factory, byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(json.length, 16 * 1024));
+        try (JsonParser parser = factory.createParser(json);
+             JsonGenerator generator = factory.createGenerator(out)) {
+            if (parser.nextToken() != null) {
+                write(parser, generator, root);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 目前 token 開始的值依 node 輸出（node 為 null 或 whole 時整個保留）
+     */
+    private static void write(JsonParser parser, JsonGenerator generator, Node node) throws IOException {
+        if (node == null || node.whole) {
+            generator.copyCurrentStructure(parser);
+            return;
+        }
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            generator.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                Node child = node.children.get(parser.getCurrentName());
+                parser.nextToken();
+                if (child == null) {
+                    parser.skipChildren();
+                    continue;
+                }
+                generator.writeFieldName(parser.getCurrentName());
+                write(parser, generator, child);
+            }
+            generator.writeEndObject();
+        } else if (token == JsonToken.START_ARRAY) {
+            generator.writeStartArray();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                write(parser, generator, node);
+            }
+            generator.writeEndArray();
+        } else {
+            // 預期是物件卻是純量（例如上游回傳 null）：照原樣保留
+            generator.copyCurrentEvent(parser);
+        }
+    }
+
+    private static final class Node {
+        final Map<String, Node> children = new HashMap<>();
+        boolean whole;
+    }
+}
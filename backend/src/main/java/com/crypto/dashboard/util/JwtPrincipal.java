@@ -0,0 +1,22 @@
+package com.crypto.dashboard.util;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+/**
+ * 已驗證簽名的 JWT 用戶身份（不可變，可快取、跨請求共用）
+ * @param expiresAt Token 過期時間（epoch ms）
+ * @param authorities Spring Security 的角色權限（例如 ROLE_ADMIN），建立時產生一次
+ */
+public record JwtPrincipal(Long userId, String username, String role, long expiresAt,
+                           List<SimpleGrantedAuthority> authorities) {
+
+    public static JwtPrincipal of(Long userId, String username, String role, long expiresAt) {
+        // Spring Security 的 hasRole("ADMIN") 會自動檢查 "ROLE_ADMIN"，所以加上 "ROLE_" 前綴
+        List<SimpleGrantedAuthority> authorities = role != null
+                ? List.of(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()))
+                : List.of();
+        return new JwtPrincipal(userId, username, role, expiresAt, authorities);
+    }
+}
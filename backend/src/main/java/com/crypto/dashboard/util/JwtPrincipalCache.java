@@ -0,0 +1,123 @@
+package com.crypto.dashboard.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已驗證 Token 的快取（JWT 認證的熱路徑）
+ * 作用：同一個 Token 只在第一次出現時解析並驗證 HS512 簽名，之後的請求直接取得快取的用戶身份
+ *
+ * - 鍵是 Token 的 SHA-256 摘要（不在記憶體中保存 Token 原文）
+ * - 每筆在 Token 的過期時間自動失效，另以 jwt.principal-cache.max-size 限制筆數
+ * - 驗證失敗的 Token 不快取（避免隨意產生的字串佔滿快取），每次都重新驗證
+ * - 登出時移除該 Token
+ */
+@Component
+@RequiredArgsConstructor
+public class JwtPrincipalCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final JwtUtil jwtUtil;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${jwt.principal-cache.max-size:10000}")
+    private long maxSize;
+
+    private Cache<ByteBuffer, JwtPrincipal> principals;
+
+    @PostConstruct
+    void init() {
+        principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<ByteBuffer, JwtPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, JwtPrincipal principal, long currentTime) {
+                        long millis = principal.expiresAt() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, JwtPrincipal principal, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, principal, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, JwtPrincipal principal, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "jwtPrincipals");
+    }
+
+    /**
+     * 取得 Token 對應的用戶身份
+     * @return Token 無效（簽名錯誤、過期、格式錯誤）時為 null
+     */
+    public JwtPrincipal verify(String token) {
+        ByteBuffer key = digest(token);
+        JwtPrincipal cached = principals.getIfPresent(key);
+        if (cached != null) {
+            if (cached.expiresAt() > System.currentTimeMillis()) {
+                return cached;
+            }
+            principals.invalidate(key);  // 已過期但尚未被清除
+            return null;
+        }
+        JwtPrincipal principal;
+        try {
+            principal = jwtUtil.parsePrincipal(token);
+        } catch (Exception e) {
+            return null;
+        }
+        principals.put(key, principal);
+        return principal;
+    }
+
+    /**
+     * 移除 Token（登出時呼叫）
+     */
+    public void invalidate(String token) {
+        principals.invalidate(digest(token));
+    }
+
+    private static ByteBuffer digest(String token) {
+        return ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 取得快取統計（供管理員監控使用）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", principals.estimatedSize());
+        stats.put("hitRate", principals.stats().hitRate());
+        stats.put("evictions", principals.stats().evictionCount());
+        return stats;
+    }
+}
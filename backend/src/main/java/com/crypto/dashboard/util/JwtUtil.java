@@ -1,9 +1,11 @@
 package com.crypto.dashboard.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -39,14 +41,19 @@ public class JwtUtil {
     @Value("${jwt.expiration:86400000}")
     private long expiration;
 
-    // ========== 私有方法：取得簽名金鑰 ==========
-
     /**
-     * 將字串密鑰轉換為 SecretKey 物件（供 JJWT 函式庫使用）
-     * @return SecretKey 物件（用於 HS512 演算法）
+     * 簽名金鑰與 Parser（啟動時建立一次；兩者都是不可變的，可以跨執行緒共用）
+     * 不必在每次簽發、驗證 Token 時重新由字串產生金鑰、重新建立 Parser
      */
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)  // 設定簽名金鑰（用於驗證 Token）
+                .build();
     }
 
     // ========== 公開方法：生成 Token ==========
@@ -70,7 +77,7 @@ public class JwtUtil {
                 .setSubject(subject)  // 設定主體（通常是用戶 ID）
                 .setIssuedAt(now)  // 設定簽發時間
                 .setExpiration(expiry)  // 設定過期時間
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)  // 使用 HS512 演算法簽名
+                .signWith(signingKey, SignatureAlgorithm.HS512)  // 使用 HS512 演算法簽名
                 .compact();  // 壓縮成最終的 Token 字串
     }
 
@@ -151,6 +158,21 @@ public class JwtUtil {
         return (String) claims.get("role");  // 從 claims 中取得 "role" 欄位
     }
 
+    /**
+     * 驗證 Token 並一次取得用戶 ID、用戶名稱、角色與過期時間（只解析、驗證簽名一次）
+     * @param token JWT Token 字串
+     * @return 已驗證的用戶身份
+     * @throws io.jsonwebtoken.JwtException Token 無效（簽名錯誤、過期、格式錯誤）
+     * @throws NumberFormatException subject 不是用戶 ID
+     *
+     * 使用場景：JwtPrincipalCache 快取未命中時呼叫（取代 validateToken + getUserIdFromToken + getRoleFromToken 三次解析）
+     */
+    public JwtPrincipal parsePrincipal(String token) {
+        Claims claims = parseAllClaims(token);
+        return JwtPrincipal.of(Long.parseLong(claims.getSubject()), claims.get("username", String.class),
+                claims.get("role", String.class), claims.getExpiration().getTime());
+    }
+
     /**
      * 通用方法：從 Token 中提取任意 claim（使用 Lambda 表達式）
      * @param token JWT Token 字串
@@ -179,9 +201,7 @@ public class JwtUtil {
      * 3. 解析 Payload 中的 claims
      */
     private Claims parseAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())  // 設定簽名金鑰（用於驗證 Token）
-                .build()  // 建立 Parser
+        return parser
                 .parseClaimsJws(token)  // 解析 Token（會自動驗證簽名和過期時間）
                 .getBody();  // 取得 Payload（claims）
     }
@@ -0,0 +1,79 @@
+package com.crypto.dashboard.util;
+
+/**
+ * Largest-Triangle-Three-Buckets 降採樣
+ * 作用：把數千個點壓成圖表寬度左右的點數，同時保留視覺上的高低點
+ *
+ * 第一點與最後一點固定保留；中間的點平均分成 threshold - 2 個桶，
+ * 每個桶選出與「上一個選中點」及「下一個桶平均點」構成最大三角形面積的點
+ */
+public final class LttbDownsampler {
+
+    private LttbDownsampler() {
+    }
+
+    /**
+     * 選出要保留的點
+     * @param x 時間戳（遞增）
+     * @param y 數值
+     * @param length 使用 x / y 的前幾個點
+     * @param threshold 目標點數（至少 3）
+     * @return 保留點的索引（遞增）；length <= threshold 時回傳全部索引
+     */
+    public static int[] select(long[] x, double[] y, int length, int threshold) {
+        if (threshold >= length || threshold < 3) {
+            int[] all = new int[length];
+            for (int i = 0; i < length; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] selected = new int[threshold];
+        int count = 0;
+        selected[count++] = 0;
+
+        double bucketSize = (double) (length - 2) / (threshold - 2);
+        int a = 0;  // 上一個選中的點
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // 下一個桶的平均點（最後一個桶以最後一點為準）
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, length);
+            double avgX = 0;
+            double avgY = 0;
+            int nextCount = nextEnd - nextStart;
+            if (nextCount <= 0) {
+                avgX = x[length - 1];
+                avgY = y[length - 1];
+            } else {
+                for (int i = nextStart; i < nextEnd; i++) {
+                    avgX += x[i];
+                    avgY += y[i];
+                }
+                avgX /= nextCount;
+                avgY /= nextCount;
+            }
+
+            // 目前桶中與 a、平均點構成最大三角形的點
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double ax = x[a];
+            double ay = y[a];
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((ax - avgX) * (y[i] - ay) - (ax - x[i]) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            selected[count++] = chosen;
+            a = chosen;
+        }
+
+        selected[count] = length - 1;
+        return selected;
+    }
+}
@@ -32,7 +32,9 @@ CREATE TABLE IF NOT EXISTS users (
     UNIQUE KEY uk_username (username),
     UNIQUE KEY uk_email (email),
     INDEX idx_role (role),
-    INDEX idx_status (status)
+    INDEX idx_status (status),
+    INDEX idx_last_login_at (last_login_at),
+    INDEX idx_join_date_id (join_date, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- =============================================
@@ -214,6 +216,51 @@ CREATE TABLE IF NOT EXISTS system_settings (
     updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- =============================================
+-- 10. coin_candles
+-- =============================================
+CREATE TABLE IF NOT EXISTS coin_candles (
+    coin_id VARCHAR(64) NOT NULL COMMENT 'CoinGecko coin id',
+    timeframe ENUM('1m', '5m', '1h', '1d') NOT NULL,
+    open_time BIGINT NOT NULL COMMENT 'Candle start (epoch ms, UTC aligned)',
+
+    open_price DOUBLE NOT NULL,
+    high_price DOUBLE NOT NULL,
+    low_price DOUBLE NOT NULL,
+    close_price DOUBLE NOT NULL,
+    volume_24h DOUBLE NULL COMMENT 'Rolling 24h volume reported at candle close',
+
+    PRIMARY KEY (coin_id, timeframe, open_time),
+    INDEX idx_timeframe_open_time (timeframe, open_time)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- =============================================
+-- 11. admin_daily_stats
+-- =============================================
+CREATE TABLE IF NOT EXISTS admin_daily_stats (
+    stat_date DATE NOT NULL PRIMARY KEY,
+    signups INT UNSIGNED NOT NULL DEFAULT 0 COMMENT 'Users registered on this day',
+    active_users INT UNSIGNED NOT NULL DEFAULT 0 COMMENT 'Distinct users who logged in on this day',
+    total_users BIGINT UNSIGNED NOT NULL DEFAULT 0 COMMENT 'Total users at end of day',
+    total_favorites BIGINT UNSIGNED NOT NULL DEFAULT 0 COMMENT 'Total favorites at end of day',
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- =============================================
+-- 12. activity_hourly_rollups
+-- =============================================
+CREATE TABLE IF NOT EXISTS activity_hourly_rollups (
+    hour_start DATETIME NOT NULL,
+    activity_type VARCHAR(32) NOT NULL COMMENT 'Same values as user_activities.activity_type',
+    coin_id VARCHAR(64) NOT NULL DEFAULT '' COMMENT 'Empty for the all-coins total of this activity type',
+    activity_count BIGINT UNSIGNED NOT NULL DEFAULT 0,
+    approximate TINYINT(1) NOT NULL DEFAULT 0 COMMENT '1 when the count is a count-min sketch estimate',
+    segment VARCHAR(48) NOT NULL COMMENT 'Writer instance and capture sequence; a retried write replaces its own segment, readers sum all segments',
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+
+    PRIMARY KEY (hour_start, activity_type, coin_id, segment)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
 -- =============================================
 -- Seed helper (optional)
 -- =============================================
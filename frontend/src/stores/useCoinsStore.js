@@ -6,7 +6,7 @@ const CACHE_TTL = 5 * 60 * 1000 // 5 分鐘
 const buildKey = (currency, perPage, page) => `${currency}-${perPage}-${page}`
 
 // 轉換後端回傳的資料格式
-const convertToAppFormat = (coin) => ({
+export const convertToAppFormat = (coin) => ({
   id: coin.id,
   name: coin.name,
   symbol: coin.symbol?.toUpperCase() || '',
@@ -39,7 +39,7 @@ export const useCoinsStore = defineStore('coins', {
 
       try {
         // 透過後端 proxy 呼叫 CoinGecko API（避免 CORS 問題）
-        const response = await coinApi.getList(page, perPage)
+        const response = await coinApi.getList(page, perPage, 'market_cap_desc', currency)
         const coins = response.data || response || []
         const formatted = coins.map(convertToAppFormat)
         this.cache[key] = formatted
@@ -1,5 +1,5 @@
 // 統一的 API 請求工具
-const API_BASE_URL = import.meta.env.VITE_API_BASE_URL || 'http://localhost:8080/api'
+export const API_BASE_URL = import.meta.env.VITE_API_BASE_URL || 'http://localhost:8080/api'
 
 // 取得 Token
 const getAuthToken = () => {
@@ -79,17 +79,130 @@ export const favoriteApi = {
 }
 
 // 幣種 API
+// currency：報價貨幣（usd、twd、eur、jpy...），由後端依匯率換算，支援的貨幣見 getCurrencies
 export const coinApi = {
-  getList: (page = 1, perPage = 50, orderBy = 'market_cap_desc') =>
-    apiRequest(`/coins?page=${page}&perPage=${perPage}&orderBy=${orderBy}`),
-  getDetail: (coinId) => apiRequest(`/coins/${encodeURIComponent(coinId)}`),
+  getList: (page = 1, perPage = 50, orderBy = 'market_cap_desc', currency = 'usd') =>
+    apiRequest(`/coins?page=${page}&perPage=${perPage}&orderBy=${orderBy}&currency=${currency}`),
+  getDetail: (coinId, currency = 'usd') =>
+    apiRequest(`/coins/${encodeURIComponent(coinId)}?currency=${currency}`),
+  getCurrencies: () => apiRequest('/coins/currencies'),
+  // 最多人收藏的幣種：[{ id, watchers, coin }]（coin 為市場列表格式，不在前 N 大時為 null）
+  getMostWatched: (limit = 10, currency = 'usd') =>
+    apiRequest(`/coins/most-watched?limit=${limit}&currency=${currency}`),
+  // 站內熱門（最近一小時本站用戶最常瀏覽）：{ windowMinutes, updatedAt, coins: [{ id, views, favorites, approximate, coin }] }
+  getInternalTrending: (limit = 10, currency = 'usd') =>
+    apiRequest(`/coins/trending/internal?limit=${limit}&currency=${currency}`),
   getGlobal: () => apiRequest('/coins/global'),
+  // 價格走勢（後端快取並降採樣，格式同 CoinGecko market_chart）
+  getChart: (coinId, days = 30, width = 500) =>
+    apiRequest(`/coins/${encodeURIComponent(coinId)}/chart?days=${days}&width=${width}`),
+  // 市場列表增量更新（full = true 時 coins 為完整快照，應直接替換）
+  getChanges: (since = 0) => apiRequest(`/coins/changes?since=${since}`),
+  // 幣種搜尋（後端本地目錄索引，涵蓋所有幣種，不限目前頁面）
+  search: (q, limit = 20) =>
+    apiRequest(`/coins/search?q=${encodeURIComponent(q)}&limit=${limit}`),
+}
+
+// 市場篩選 API（伺服器端篩選）
+export const marketFilterApi = {
+  getPresets: () => apiRequest('/market-filters/presets'),
+  createPreset: (data) =>
+    apiRequest('/market-filters/presets', {
+      method: 'POST',
+      body: JSON.stringify(data),
+    }),
+  updatePreset: (id, data) =>
+    apiRequest(`/market-filters/presets/${id}`, {
+      method: 'PUT',
+      body: JSON.stringify(data),
+    }),
+  deletePreset: (id) =>
+    apiRequest(`/market-filters/presets/${id}`, {
+      method: 'DELETE',
+    }),
+  evaluatePreset: (id, page = 1, perPage = 50, orderBy = 'market_cap_desc') =>
+    apiRequest(`/market-filters/presets/${id}/results?page=${page}&perPage=${perPage}&orderBy=${orderBy}`),
+  evaluate: (filters, page = 1, perPage = 50, orderBy = 'market_cap_desc') =>
+    apiRequest(`/market-filters/evaluate?page=${page}&perPage=${perPage}&orderBy=${orderBy}`, {
+      method: 'POST',
+      body: JSON.stringify(filters),
+    }),
+}
+
+// 價格提醒 API
+export const alertApi = {
+  getAll: () => apiRequest('/alerts'),
+  create: (data) =>
+    apiRequest('/alerts', {
+      method: 'POST',
+      body: JSON.stringify(data),
+    }),
+  update: (id, data) =>
+    apiRequest(`/alerts/${id}`, {
+      method: 'PUT',
+      body: JSON.stringify(data),
+    }),
+  remove: (id) =>
+    apiRequest(`/alerts/${id}`, {
+      method: 'DELETE',
+    }),
+}
+
+// 幣種比較 API（後端平行取得走勢並計算波動度、相關係數）
+export const compareApi = {
+  compare: (coinIds, days = 30, width = 500) =>
+    apiRequest(`/compare?ids=${coinIds.map(encodeURIComponent).join(',')}&days=${days}&width=${width}`),
+  getSaved: () => apiRequest('/compare/saved'),
+  save: (data) =>
+    apiRequest('/compare/saved', {
+      method: 'POST',
+      body: JSON.stringify(data),
+    }),
+  getSavedResult: (id, days = 30, width = 500) => apiRequest(`/compare/saved/${id}?days=${days}&width=${width}`),
+  removeSaved: (id) =>
+    apiRequest(`/compare/saved/${id}`, {
+      method: 'DELETE',
+    }),
 }
 
 // 管理員 API
 export const adminApi = {
   getStats: () => apiRequest('/admin/stats'),
+  // 每日統計（註冊人數、當天活躍人數），由舊到新
+  getStatsHistory: (days = 30) => apiRequest(`/admin/stats/history?days=${days}`),
   getAllUsers: () => apiRequest('/admin/users'),
+  // 最近一小時的用戶行為統計（各類型合計、每分鐘分布、熱門幣種）
+  getActivityAnalytics: (limit = 10) => apiRequest(`/admin/analytics/activity?limit=${limit}`),
+  // 已保存的每小時用戶行為統計
+  getActivityHistory: (hours = 24, limit = 10) =>
+    apiRequest(`/admin/analytics/activity/history?hours=${hours}&limit=${limit}`),
+  // 分頁用戶列表：回傳 { items, nextCursor }，nextCursor 為 null 表示沒有下一頁
+  getUsersPage: ({ sort = 'joinDate', order = 'desc', q = '', cursor = null, size = 50 } = {}) => {
+    const params = new URLSearchParams({ sort, order, size: String(size) })
+    if (q) params.set('q', q)
+    if (cursor) params.set('cursor', cursor)
+    return apiRequest(`/admin/users/page?${params}`)
+  },
+  // 匯出用戶（csv / ndjson）：需要帶 Token，所以用 fetch 取得檔案再觸發下載
+  exportUsers: async (format = 'csv', q = '') => {
+    const params = new URLSearchParams({ format })
+    if (q) params.set('q', q)
+    const token = getAuthToken()
+    const response = await fetch(`${API_BASE_URL}/admin/users/export?${params}`, {
+      headers: token ? { Authorization: `Bearer ${token}` } : {},
+    })
+    if (!response.ok) {
+      throw new Error('Export failed')
+    }
+    const disposition = response.headers.get('Content-Disposition') || ''
+    const match = disposition.match(/filename="?([^";]+)"?/)
+    const url = URL.createObjectURL(await response.blob())
+    const link = document.createElement('a')
+    link.href = url
+    link.download = match ? match[1] : `users.${format}`
+    link.click()
+    URL.revokeObjectURL(url)
+  },
 }
 
 // 個人資料 API
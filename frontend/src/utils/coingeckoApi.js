@@ -94,20 +94,6 @@ export const getCoinDetails = async (coinId) => {
   })
 }
 
-/**
- * 取得幣種歷史價格數據 (圖表用)
- * @param {string} coinId - 幣種 ID
- * @param {string} currency - 貨幣單位
- * @param {number} days - 天數 (1, 7, 30, 90, 365, max)
- */
-export const getCoinMarketChart = async (coinId, currency = 'usd', days = 30) => {
-  return await fetchCoinGecko(`/coins/${coinId}/market_chart`, {
-    vs_currency: currency,
-    days: days,
-    interval: days <= 1 ? 'hourly' : 'daily',
-  })
-}
-
 /**
  * 取得多個幣種的簡易價格
  * @param {string[]} coinIds - 幣種 ID 陣列
@@ -170,7 +156,7 @@ export const convertToAppFormat = (coin) => {
 }
 
 /**
- * 將 CoinGecko 圖表數據轉換為應用格式
+ * 將 CoinGecko 圖表數據轉換為應用格式（後端 /api/coins/{id}/chart 也使用相同格式）
  */
 export const convertChartData = (marketChart) => {
   if (!marketChart || !marketChart.prices) {
@@ -186,7 +172,6 @@ export const convertChartData = (marketChart) => {
 export default {
   getCoinsList,
   getCoinDetails,
-  getCoinMarketChart,
   getSimplePrice,
   searchCoins,
   getGlobalData,
@@ -0,0 +1,47 @@
+// 即時價格推播（SSE）
+// 後端先送 snapshot（完整資料），之後只送有變動的欄位（delta）；
+// 斷線時 EventSource 會自動重連並重新取得 snapshot
+import { API_BASE_URL } from './api'
+
+/**
+ * 訂閱即時價格
+ * @param {{ top?: number, ids?: string[] }} topic 市值前 N 名或指定幣種（擇一）
+ * @param {(coins: object[]) => void} onUpdate 每次資料變動時回呼（CoinGecko /coins/markets 格式）
+ * @returns {() => void} 取消訂閱
+ */
+export function openMarketStream(topic, onUpdate) {
+  if (typeof EventSource === 'undefined') {
+    return () => {}
+  }
+
+  const query = topic.top ? `top=${topic.top}` : `ids=${encodeURIComponent(topic.ids.join(','))}`
+  const source = new EventSource(`${API_BASE_URL}/coins/stream?${query}`)
+  let version = 0
+  let coins = []
+
+  source.addEventListener('snapshot', (event) => {
+    const message = JSON.parse(event.data)
+    version = message.version
+    coins = message.coins
+    onUpdate(coins)
+  })
+
+  source.addEventListener('delta', (event) => {
+    const message = JSON.parse(event.data)
+    if (message.version <= version) return // 重連後可能收到重複的版本
+    version = message.version
+
+    const changes = new Map(message.coins.map((change) => [change.id, change]))
+    const removed = new Set(message.removed || [])
+    coins = coins
+      .filter((coin) => !removed.has(coin.id))
+      .map((coin) => (changes.has(coin.id) ? { ...coin, ...changes.get(coin.id) } : coin))
+      .concat(message.added || [])
+    if (topic.top) {
+      coins.sort((a, b) => (a.market_cap_rank || Infinity) - (b.market_cap_rank || Infinity))
+    }
+    onUpdate(coins)
+  })
+
+  return () => source.close()
+}